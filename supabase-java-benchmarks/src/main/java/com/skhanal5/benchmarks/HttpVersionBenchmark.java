@@ -0,0 +1,75 @@
+package com.skhanal5.benchmarks;
+
+import com.skhanal5.core.SupabaseClient;
+import com.skhanal5.models.SelectQuery;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares select throughput over HTTP/1.1, where every concurrent request needs a connection of
+ * its own, with HTTP/2, where they are multiplexed over a single connection. Each invocation keeps
+ * {@value #CONCURRENT_REQUESTS} selects in flight against a {@link StubServer} with a small fixed
+ * latency.
+ *
+ * <pre>{@code
+ * java -jar supabase-java-benchmarks/target/benchmarks.jar HttpVersionBenchmark
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HttpVersionBenchmark {
+
+  static final int CONCURRENT_REQUESTS = 64;
+
+  @Param({"HTTP_1_1", "HTTP_2"})
+  HttpClient.Version version;
+
+  @Param({"10"})
+  int rows;
+
+  @Param({"1"})
+  int latencyMillis;
+
+  StubServer server;
+
+  SupabaseClient client;
+
+  SelectQuery query;
+
+  @Setup
+  public void setup() {
+    server = StubServer.start(rows, Duration.ofMillis(latencyMillis));
+    client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl(server.url())
+            .serviceKey("benchmark")
+            .httpVersion(version)
+            .build();
+    query = new SelectQuery.SelectQueryBuilder().from("rows").select("*").build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CONCURRENT_REQUESTS)
+  public void concurrentSelects(Blackhole blackhole) {
+    var responses = new CompletableFuture<?>[CONCURRENT_REQUESTS];
+    for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+      responses[i] = client.executeSelectAsync(query, Row[].class);
+    }
+    for (var response : responses) {
+      blackhole.consume(response.join());
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package com.skhanal5.benchmarks;
+
+import com.skhanal5.core.SpringSupabaseClient;
+import com.skhanal5.core.SupabaseClient;
+import com.skhanal5.models.SelectQuery;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * An open-loop load test that sends selects at a constant rate through the {@link SupabaseClient}
+ * and the {@link SpringSupabaseClient} against the same {@link StubServer}. Requests are started on
+ * a fixed schedule whether or not earlier ones have completed, and every latency is measured from
+ * the moment its request was due, so a client that falls behind shows up in the tail instead of
+ * quietly lowering the offered load.
+ *
+ * <p>For each client it reports p50, p99 and p99.9 latency, the achieved throughput and the CPU
+ * time this process spent per request. The stub runs in a separate JVM by default so its CPU time
+ * is not counted, pass {@code --url} to use a server that is already running instead.
+ *
+ * <pre>{@code
+ * java -cp supabase-java-benchmarks/target/benchmarks.jar com.skhanal5.benchmarks.LoadTest \
+ *     --rate=2000 --duration=30 --warmup=10 --payload-bytes=4096 --latency-ms=5
+ * }</pre>
+ *
+ * Options, with their defaults: {@code --clients=native,spring}, {@code --rate=1000} requests per
+ * second, {@code --duration=30} and {@code --warmup=10} seconds, {@code --payload-bytes=1024} and
+ * {@code --latency-ms=5} for the stub, and {@code --url} for an external server.
+ */
+public class LoadTest {
+
+  private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    var options = parseOptions(args);
+    var clients = List.of(options.getOrDefault("clients", "native,spring").split(","));
+    int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+    int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+    int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+
+    Process stub = null;
+    var url = options.get("url");
+    if (url == null) {
+      stub = forkStub(options);
+      url = new BufferedReader(new InputStreamReader(stub.getInputStream())).readLine();
+    }
+    try {
+      System.out.printf("%d requests/s for %ds against %s%n", rate, duration, url);
+      System.out.printf(
+          "%-8s %10s %8s %12s %9s %9s %9s %12s%n",
+          "client",
+          "requests",
+          "errors",
+          "requests/s",
+          "p50 ms",
+          "p99 ms",
+          "p99.9 ms",
+          "cpu us/req");
+      var query = new SelectQuery.SelectQueryBuilder().from("rows").select("*").build();
+      for (var client : clients) {
+        var call = newCall(client.trim(), url, query);
+        drive(call, rate, warmup);
+        drive(call, rate, duration).print(client.trim());
+      }
+    } finally {
+      if (stub != null) {
+        stub.destroy();
+      }
+    }
+  }
+
+  private static Supplier<CompletableFuture<?>> newCall(
+      String client, String url, SelectQuery query) {
+    return switch (client) {
+      case "native" -> {
+        var supabase =
+            new SupabaseClient.SupabaseClientBuilder()
+                .databaseUrl(url)
+                .serviceKey("benchmark")
+                .build();
+        yield () -> supabase.executeSelectAsync(query, Row[].class);
+      }
+      case "spring" -> {
+        var supabase =
+            new SpringSupabaseClient.SpringSupabaseClientBuilder()
+                .databaseUrl(url)
+                .serviceKey("benchmark")
+                .build();
+        yield () -> supabase.executeSelectFlux(query, Row.class).collectList().toFuture();
+      }
+      default -> throw new IllegalArgumentException("Unknown client " + client);
+    };
+  }
+
+  /**
+   * Starts requests at a constant rate for the given number of seconds and waits for all of them to
+   * complete.
+   */
+  static Result drive(Supplier<CompletableFuture<?>> call, int rate, int seconds)
+      throws InterruptedException {
+    int requests = Math.max(1, rate * seconds);
+    long period = TimeUnit.SECONDS.toNanos(1) / rate;
+    var latencies = new long[requests];
+    Arrays.fill(latencies, -1);
+    var errors = new AtomicInteger();
+    var completed = new CountDownLatch(requests);
+
+    long cpuBefore = processCpuNanos();
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      long due = start + i * period;
+      for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+      int request = i;
+      CompletableFuture<?> response;
+      try {
+        response = call.get();
+      } catch (RuntimeException e) {
+        response = CompletableFuture.failedFuture(e);
+      }
+      response.whenComplete(
+          (result, error) -> {
+            latencies[request] = System.nanoTime() - due;
+            if (error != null) {
+              errors.incrementAndGet();
+            }
+            completed.countDown();
+          });
+    }
+    completed.await(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    long elapsed = System.nanoTime() - start;
+    long cpu = processCpuNanos() - cpuBefore;
+
+    var finished = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+    return new Result(requests, errors.get() + requests - finished.length, finished, elapsed, cpu);
+  }
+
+  private static long processCpuNanos() {
+    var os = ManagementFactory.getOperatingSystemMXBean();
+    return os instanceof com.sun.management.OperatingSystemMXBean bean
+        ? bean.getProcessCpuTime()
+        : -1;
+  }
+
+  private static Process forkStub(Map<String, String> options) throws IOException {
+    var java = ProcessHandle.current().info().command().orElse("java");
+    return new ProcessBuilder(
+            java,
+            "-cp",
+            System.getProperty("java.class.path"),
+            StubServer.class.getName(),
+            "--payload-bytes=" + options.getOrDefault("payload-bytes", "1024"),
+            "--latency-ms=" + options.getOrDefault("latency-ms", "5"))
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+  }
+
+  /** Parses arguments of the form {@code --name=value}. */
+  static Map<String, String> parseOptions(String[] args) {
+    var options = new HashMap<String, String>();
+    for (var arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value but got " + arg);
+      }
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return options;
+  }
+
+  /**
+   * The outcome of one run, latencies holds the sorted latencies of every request that completed.
+   */
+  record Result(int requests, int errors, long[] latencies, long elapsedNanos, long cpuNanos) {
+
+    double percentileMillis(double percentile) {
+      if (latencies.length == 0) {
+        return Double.NaN;
+      }
+      int index = (int) Math.ceil(percentile * latencies.length) - 1;
+      return latencies[Math.max(0, index)] / 1e6;
+    }
+
+    void print(String client) {
+      System.out.printf(
+          "%-8s %10d %8d %12.1f %9.2f %9.2f %9.2f %12.1f%n",
+          client,
+          requests,
+          errors,
+          latencies.length * 1e9 / elapsedNanos,
+          percentileMillis(0.5),
+          percentileMillis(0.99),
+          percentileMillis(0.999),
+          cpuNanos < 0 ? Double.NaN : cpuNanos / 1e3 / requests);
+    }
+  }
+}
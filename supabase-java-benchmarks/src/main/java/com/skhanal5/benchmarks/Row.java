@@ -0,0 +1,13 @@
+package com.skhanal5.benchmarks;
+
+import lombok.*;
+
+/** The row shape served by the {@link StubServer}. */
+@NoArgsConstructor
+@Getter
+@Setter
+public class Row {
+  int id;
+  String name;
+  boolean active;
+}
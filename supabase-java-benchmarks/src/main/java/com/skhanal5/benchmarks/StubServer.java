@@ -0,0 +1,135 @@
+package com.skhanal5.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * A local stand-in for PostgREST that answers every request under /rest/v1/ with the same JSON
+ * array of rows after a fixed latency. It accepts HTTP/1.1 as well as cleartext HTTP/2, either
+ * through an upgrade or with prior knowledge, so both protocol versions can be compared against the
+ * same server.
+ *
+ * <p>The stub can also run in a process of its own, so a load test only measures the CPU spent by
+ * the client. It prints its url and serves until its standard input is closed:
+ *
+ * <pre>{@code
+ * java -cp supabase-java-benchmarks/target/benchmarks.jar com.skhanal5.benchmarks.StubServer \
+ *     --payload-bytes=4096 --latency-ms=5
+ * }</pre>
+ */
+public class StubServer implements AutoCloseable {
+
+  private final DisposableServer server;
+
+  private StubServer(DisposableServer server) {
+    this.server = server;
+  }
+
+  /**
+   * Starts the stub on a free local port.
+   *
+   * @param rows the number of rows in every response
+   * @param latency the time every response is held back for
+   * @return the running stub
+   */
+  public static StubServer start(int rows, Duration latency) {
+    return start(rowsJson(rows), latency);
+  }
+
+  /**
+   * Starts the stub on a free local port with responses of roughly the given size.
+   *
+   * @param payloadBytes the minimum size of every response body, it is rounded up to whole rows
+   * @param latency the time every response is held back for
+   * @return the running stub
+   */
+  public static StubServer startWithPayload(int payloadBytes, Duration latency) {
+    return start(payloadJson(payloadBytes), latency);
+  }
+
+  private static StubServer start(String json, Duration latency) {
+    var body = json.getBytes(StandardCharsets.UTF_8);
+    var server =
+        HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+            .handle(
+                (request, response) ->
+                    response
+                        .header("Content-Type", "application/json")
+                        .sendByteArray(
+                            request
+                                .receive()
+                                .then(latency.isZero() ? Mono.empty() : Mono.delay(latency))
+                                .then(Mono.just(body))))
+            .bindNow();
+    return new StubServer(server);
+  }
+
+  /**
+   * @return the base url to pass to the SupabaseClient as its database url
+   */
+  public String url() {
+    return "http://127.0.0.1:" + server.port();
+  }
+
+  @Override
+  public void close() {
+    server.disposeNow();
+  }
+
+  /**
+   * @return a JSON array of rows in the shape of {@link Row}
+   */
+  public static String rowsJson(int rows) {
+    var json = new StringBuilder("[");
+    for (int i = 0; i < rows; i++) {
+      appendRow(json, i);
+    }
+    return json.append(']').toString();
+  }
+
+  /**
+   * @return a JSON array of rows in the shape of {@link Row} that is at least payloadBytes long
+   */
+  public static String payloadJson(int payloadBytes) {
+    var json = new StringBuilder("[");
+    for (int i = 0; json.length() + 1 < payloadBytes; i++) {
+      appendRow(json, i);
+    }
+    return json.append(']').toString();
+  }
+
+  private static void appendRow(StringBuilder json, int i) {
+    if (i > 0) {
+      json.append(',');
+    }
+    json.append("{\"id\":")
+        .append(i)
+        .append(",\"name\":\"row-")
+        .append(i)
+        .append("\",\"active\":")
+        .append(i % 2 == 0)
+        .append('}');
+  }
+
+  public static void main(String[] args) throws IOException {
+    var options = LoadTest.parseOptions(args);
+    try (var server =
+        startWithPayload(
+            Integer.parseInt(options.getOrDefault("payload-bytes", "1024")),
+            Duration.ofMillis(Long.parseLong(options.getOrDefault("latency-ms", "0"))))) {
+      System.out.println(server.url());
+      System.out.flush();
+      while (System.in.read() != -1) {
+        // serve until the parent closes our input
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.skhanal5.benchmarks;
+
+import com.skhanal5.core.SupabaseClient;
+import com.skhanal5.models.SelectQuery;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares blocking-style callers on the default client, each needing a platform thread, with
+ * callers on virtual threads using a client built with {@code virtualThreads(true)}. Each
+ * invocation issues {@code concurrency} blocking selects at once against a {@link StubServer} whose
+ * latency keeps them all in flight together. The score counts these batches, multiply it by {@code
+ * concurrency} for selects per second.
+ *
+ * <pre>{@code
+ * java -jar supabase-java-benchmarks/target/benchmarks.jar VirtualThreadBenchmark
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+  @Param({"false", "true"})
+  boolean virtualThreads;
+
+  @Param({"1000"})
+  int concurrency;
+
+  @Param({"10"})
+  int rows;
+
+  @Param({"20"})
+  int latencyMillis;
+
+  StubServer server;
+
+  SupabaseClient client;
+
+  ExecutorService callers;
+
+  SelectQuery query;
+
+  @Setup
+  public void setup() {
+    server = StubServer.start(rows, Duration.ofMillis(latencyMillis));
+    client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl(server.url())
+            .serviceKey("benchmark")
+            .virtualThreads(virtualThreads)
+            .build();
+    callers =
+        virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
+    query = new SelectQuery.SelectQueryBuilder().from("rows").select("*").build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    callers.shutdownNow();
+    client.close();
+    server.close();
+  }
+
+  @Benchmark
+  public void blockingSelects(Blackhole blackhole) throws ExecutionException, InterruptedException {
+    var responses = new ArrayList<Future<Row[]>>(concurrency);
+    for (int i = 0; i < concurrency; i++) {
+      responses.add(callers.submit(() -> client.executeSelect(query, Row[].class)));
+    }
+    for (var response : responses) {
+      blackhole.consume(response.get());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.skhanal5.models;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures converting filters into query parameters, which happens for every filtered query.
+ *
+ * <pre>{@code
+ * mvn -P jmh -pl supabase-java-common test-compile exec:exec -Djmh.args="FilterBenchmark -prof gc"
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+  Filter singleFilter;
+
+  Filter allFilters;
+
+  @Setup
+  public void setup() {
+    singleFilter = new Filter.FilterBuilder().equals("name", "foo").build();
+    allFilters =
+        new Filter.FilterBuilder()
+            .equals("name", "foo")
+            .notEquals("status", "archived")
+            .greaterThan("age", 18)
+            .lessThan("score", 100)
+            .greaterThanOrEquals("level", 2)
+            .lessThanOrEquals("rank", 50)
+            .like("title", "%supabase%")
+            .ilike("author", "%smith%")
+            .is("active", Optional.of(true))
+            .in("region", List.of("us-east-1", "eu-west-1", "ap-south-1"))
+            .build();
+  }
+
+  @Benchmark
+  public Object singleFilter() {
+    return singleFilter.convertFiltersToQueryParams();
+  }
+
+  @Benchmark
+  public Object allFilters() {
+    return allFilters.convertFiltersToQueryParams();
+  }
+}
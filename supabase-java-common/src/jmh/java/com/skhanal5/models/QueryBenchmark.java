@@ -0,0 +1,103 @@
+package com.skhanal5.models;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures turning every kind of query into query parameters and additional headers, the first step
+ * of every request.
+ *
+ * <pre>{@code
+ * mvn -P jmh -pl supabase-java-common test-compile exec:exec -Djmh.args="QueryBenchmark -prof gc"
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+  SelectQuery selectQuery;
+
+  InsertQuery insertQuery;
+
+  UpdateQuery updateQuery;
+
+  DeleteQuery deleteQuery;
+
+  @Setup
+  public void setup() {
+    var filter =
+        new Filter.FilterBuilder()
+            .equals("name", "foo")
+            .greaterThan("age", 18)
+            .in("region", List.of("us-east-1", "eu-west-1"))
+            .build();
+    selectQuery =
+        new SelectQuery.SelectQueryBuilder()
+            .from("rows")
+            .select("id", "name", "active")
+            .filter(filter)
+            .order("id")
+            .range(0, 99)
+            .build();
+    insertQuery =
+        new InsertQuery.InsertQueryBuilder()
+            .from("rows")
+            .insert(Map.of("id", 1, "name", "foo", "active", true))
+            .select()
+            .build();
+    updateQuery =
+        new UpdateQuery.UpdateQueryBuilder()
+            .from("rows")
+            .update(Map.of("active", false))
+            .filter(filter)
+            .select()
+            .build();
+    deleteQuery = new DeleteQuery.DeleteQueryBuilder().from("rows").delete().filter(filter).build();
+  }
+
+  @Benchmark
+  public Object selectQueryParams() {
+    return selectQuery.buildQueryParams();
+  }
+
+  @Benchmark
+  public Object selectHeaders() {
+    return selectQuery.buildAdditionalHeaders();
+  }
+
+  @Benchmark
+  public Object insertQueryParams() {
+    return insertQuery.buildQueryParams();
+  }
+
+  @Benchmark
+  public Object insertHeaders() {
+    return insertQuery.buildAdditionalHeaders();
+  }
+
+  @Benchmark
+  public Object updateQueryParams() {
+    return updateQuery.buildQueryParams();
+  }
+
+  @Benchmark
+  public Object updateHeaders() {
+    return updateQuery.buildAdditionalHeaders();
+  }
+
+  @Benchmark
+  public Object deleteQueryParams() {
+    return deleteQuery.buildQueryParams();
+  }
+
+  @Benchmark
+  public Object deleteHeaders() {
+    return deleteQuery.buildAdditionalHeaders();
+  }
+}
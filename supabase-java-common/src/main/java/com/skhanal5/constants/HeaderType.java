@@ -12,5 +12,9 @@ public class HeaderType {
   public static Map<String, String> RETRIEVE_RESPONSE_VALUES =
       Map.of("Prefer", "return=representation");
 
+  // This header is used when response compression is enabled to ask for a compressed body
+  public static Map<String, String> ACCEPT_COMPRESSED_RESPONSES =
+      Map.of("Accept-Encoding", "gzip, deflate");
+
   private HeaderType() {}
 }
@@ -0,0 +1,18 @@
+package com.skhanal5.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request is not sent because the circuit breaker of its table is open, i.e. recent
+ * requests to it failed or were slow so often that the endpoint is considered degraded.
+ */
+@Getter
+public class CircuitBreakerOpenException extends SupabaseException {
+
+  private final String table;
+
+  public CircuitBreakerOpenException(String message, String table) {
+    super(message);
+    this.table = table;
+  }
+}
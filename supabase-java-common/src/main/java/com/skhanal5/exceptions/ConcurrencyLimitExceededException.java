@@ -0,0 +1,18 @@
+package com.skhanal5.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request is not sent because too many requests are already in flight, either because
+ * the queue of waiting requests is full or because the request waited in it for too long.
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends SupabaseException {
+
+  private final int limit;
+
+  public ConcurrencyLimitExceededException(String message, int limit) {
+    super(message);
+    this.limit = limit;
+  }
+}
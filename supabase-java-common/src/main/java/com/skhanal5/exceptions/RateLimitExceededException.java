@@ -0,0 +1,18 @@
+package com.skhanal5.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a request is not sent because it would exceed the client-side rate limit of its table
+ * or of the whole client, and waiting for the limit would take longer than allowed.
+ */
+@Getter
+public class RateLimitExceededException extends SupabaseException {
+
+  private final String table;
+
+  public RateLimitExceededException(String message, String table) {
+    super(message);
+    this.table = table;
+  }
+}
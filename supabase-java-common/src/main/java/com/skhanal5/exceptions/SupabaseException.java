@@ -0,0 +1,16 @@
+package com.skhanal5.exceptions;
+
+/**
+ * The base exception for any failure that occurs while executing a query against the Supabase
+ * Database API. More specific failures are represented by its subclasses.
+ */
+public class SupabaseException extends RuntimeException {
+
+  public SupabaseException(String message) {
+    super(message);
+  }
+
+  public SupabaseException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
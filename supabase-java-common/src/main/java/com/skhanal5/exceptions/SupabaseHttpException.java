@@ -0,0 +1,22 @@
+package com.skhanal5.exceptions;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the Supabase Database API responds with a status code outside the 2xx range. The
+ * status code and raw response body are kept so consumers can inspect the error returned by
+ * PostgREST.
+ */
+@Getter
+public class SupabaseHttpException extends SupabaseException {
+
+  private final int statusCode;
+
+  private final String responseBody;
+
+  public SupabaseHttpException(int statusCode, String responseBody) {
+    super("Received an invalid status code from the server: " + statusCode);
+    this.statusCode = statusCode;
+    this.responseBody = responseBody;
+  }
+}
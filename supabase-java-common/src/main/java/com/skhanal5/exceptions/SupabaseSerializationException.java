@@ -0,0 +1,12 @@
+package com.skhanal5.exceptions;
+
+/**
+ * Thrown when a request body cannot be serialized to JSON or a response body cannot be deserialized
+ * into the requested response type.
+ */
+public class SupabaseSerializationException extends SupabaseException {
+
+  public SupabaseSerializationException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,65 @@
+package com.skhanal5.metrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Value;
+
+/**
+ * A {@link RequestMetricsListener} that keeps a rolling {@link LatencyHistogram} for every
+ * combination of phase, table, method and status, from which percentiles can be read at any time.
+ */
+public class HistogramMetricsListener implements RequestMetricsListener {
+
+  private final Duration window;
+
+  private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * @param window how far back each histogram looks
+   */
+  public HistogramMetricsListener(Duration window) {
+    this.window = window;
+  }
+
+  /** Identifies the histogram of a phase of the requests with the same tags. */
+  @Value
+  public static class Key {
+    RequestPhase phase;
+    String table;
+    String method;
+    int status;
+  }
+
+  @Override
+  public void onPhase(RequestPhase phase, String table, String method, int status, long nanos) {
+    histograms
+        .computeIfAbsent(
+            new Key(phase, table, method, status), key -> new LatencyHistogram(window, 6))
+        .record(nanos);
+  }
+
+  /**
+   * @return the histogram of the phase for requests with these tags, or null if there was none
+   */
+  public LatencyHistogram getHistogram(
+      RequestPhase phase, String table, String method, int status) {
+    return histograms.get(new Key(phase, table, method, status));
+  }
+
+  /**
+   * @return the histogram of a phase that runs before there is a response, such as {@link
+   *     RequestPhase#BUILD}, for requests with these tags, or null if there was none
+   */
+  public LatencyHistogram getHistogram(RequestPhase phase, String table, String method) {
+    return getHistogram(phase, table, method, NO_STATUS);
+  }
+
+  /**
+   * @return a read-only view of all histograms
+   */
+  public Map<Key, LatencyHistogram> getHistograms() {
+    return Collections.unmodifiableMap(histograms);
+  }
+}
@@ -0,0 +1,161 @@
+package com.skhanal5.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free histogram of latencies over a rolling time window. Values are counted in buckets that
+ * grow exponentially with 8 linear steps per power of two, which keeps the relative error of any
+ * percentile below 12.5% regardless of how many values are recorded.
+ *
+ * <p>The window is split into slices. Recording only touches the current slice, and a slice is
+ * cleared once it is about to be reused, so old latencies fall out of the window in steps of one
+ * slice. Every slice holds 488 buckets of a long, close to 4 KB, so a histogram with the 6 slices
+ * {@link HistogramMetricsListener} uses takes about 23 KB.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray[] slices;
+
+  private final AtomicLongArray sliceEpochs;
+
+  private final long sliceNanos;
+
+  private final LongSupplier nanoClock;
+
+  /**
+   * @param window how far back the histogram looks
+   * @param sliceCount the number of slices the window is split into
+   */
+  public LatencyHistogram(Duration window, int sliceCount) {
+    this(window, sliceCount, System::nanoTime);
+  }
+
+  LatencyHistogram(Duration window, int sliceCount, LongSupplier nanoClock) {
+    if (sliceCount < 1 || window.toNanos() < sliceCount) {
+      throw new IllegalArgumentException("expected at least one slice of a positive duration");
+    }
+    this.slices = new AtomicLongArray[sliceCount];
+    for (int i = 0; i < sliceCount; i++) {
+      slices[i] = new AtomicLongArray(BUCKETS);
+    }
+    this.sliceEpochs = new AtomicLongArray(sliceCount);
+    this.sliceNanos = window.toNanos() / sliceCount;
+    this.nanoClock = nanoClock;
+    var epoch = currentEpoch();
+    for (int i = 0; i < sliceCount; i++) {
+      sliceEpochs.set(i, epoch);
+    }
+  }
+
+  /**
+   * Records a single latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    var epoch = currentEpoch();
+    var slot = (int) Math.floorMod(epoch, (long) slices.length);
+    if (sliceEpochs.get(slot) != epoch) {
+      rotate(slot, epoch);
+    }
+    slices[slot].incrementAndGet(bucketOf(Math.max(0, nanos)));
+  }
+
+  /**
+   * @return the number of latencies recorded within the window
+   */
+  public long count() {
+    return count(currentEpoch());
+  }
+
+  private long count(long epoch) {
+    long count = 0;
+    for (int slot = 0; slot < slices.length; slot++) {
+      if (isLive(slot, epoch)) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+          count += slices[slot].get(bucket);
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Estimates a percentile of the latencies recorded within the window.
+   *
+   * @param percentile the percentile between 0 and 1, e.g. 0.99 for the p99
+   * @return the upper bound of the bucket holding the percentile, in nanoseconds, or 0 if nothing
+   *     was recorded within the window
+   */
+  public long percentile(double percentile) {
+    var epoch = currentEpoch();
+    var count = count(epoch);
+    if (count == 0) {
+      return 0;
+    }
+    // the slices are merged bucket by bucket while walking them, so the hedging path allocates
+    // nothing
+    var rank = Math.max(1, (long) Math.ceil(percentile * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      for (int slot = 0; slot < slices.length; slot++) {
+        if (isLive(slot, epoch)) {
+          seen += slices[slot].get(bucket);
+        }
+      }
+      if (seen >= rank) {
+        return upperBoundOf(bucket);
+      }
+    }
+    return upperBoundOf(BUCKETS - 1);
+  }
+
+  private boolean isLive(int slot, long epoch) {
+    return epoch - sliceEpochs.get(slot) < slices.length;
+  }
+
+  private synchronized void rotate(int slot, long epoch) {
+    if (sliceEpochs.get(slot) == epoch) {
+      return; // another thread got here first
+    }
+    var slice = slices[slot];
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      slice.set(bucket, 0);
+    }
+    sliceEpochs.set(slot, epoch);
+  }
+
+  private long currentEpoch() {
+    return nanoClock.getAsLong() / sliceNanos;
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    var exponent = 63 - Long.numberOfLeadingZeros(value);
+    var subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    var exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    var subBucket = bucket % SUB_BUCKETS;
+    var shift = exponent - SUB_BUCKET_BITS;
+    if (shift >= 60) {
+      return Long.MAX_VALUE;
+    }
+    return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+  }
+}
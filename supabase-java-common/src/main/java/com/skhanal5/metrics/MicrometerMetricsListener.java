@@ -0,0 +1,56 @@
+package com.skhanal5.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RequestMetricsListener} that records every phase into a Micrometer {@link Timer}. Phases
+ * of a response are recorded as {@value #METER_NAME}, tagged with phase, table, method and status.
+ * Phases that run before there is a response, which have no status, are recorded as {@value
+ * #CLIENT_METER_NAME}, tagged with phase, table and method, since some registries require all
+ * meters of a name to have the same tags. Requires micrometer-core on the classpath, which this
+ * library only depends on optionally.
+ */
+public class MicrometerMetricsListener implements RequestMetricsListener {
+
+  public static final String METER_NAME = "supabase.request.phase";
+
+  public static final String CLIENT_METER_NAME = "supabase.request.client.phase";
+
+  private final MeterRegistry registry;
+
+  // looked up by key first, since building and registering a Timer is far from free
+  private final Map<HistogramMetricsListener.Key, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * @param registry the registry to register the timers with
+   */
+  public MicrometerMetricsListener(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void onPhase(RequestPhase phase, String table, String method, int status, long nanos) {
+    timers
+        .computeIfAbsent(
+            new HistogramMetricsListener.Key(phase, table, method, status), this::timer)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private Timer timer(HistogramMetricsListener.Key key) {
+    var hasStatus = key.getStatus() != NO_STATUS;
+    var builder =
+        Timer.builder(hasStatus ? METER_NAME : CLIENT_METER_NAME)
+            .tag("phase", key.getPhase().name().toLowerCase(Locale.ROOT))
+            .tag("table", key.getTable())
+            .tag("method", key.getMethod());
+    if (hasStatus) {
+      builder.tag("status", Integer.toString(key.getStatus()));
+    }
+    return builder.register(registry);
+  }
+}
@@ -0,0 +1,30 @@
+package com.skhanal5.metrics;
+
+/**
+ * Receives the timings of every phase of a request, so that slow calls can be traced back to query
+ * building, JSON serialization, the network or deserialization.
+ *
+ * <p>The listener is called on the thread that ran the phase, which may be an HttpClient thread, so
+ * implementations must be fast and must not block.
+ *
+ * @see HistogramMetricsListener
+ * @see MicrometerMetricsListener
+ */
+public interface RequestMetricsListener {
+
+  /** The status passed for phases that run before there is a response to take a status from. */
+  int NO_STATUS = 0;
+
+  /**
+   * Called once a phase of a request has finished.
+   *
+   * @param phase the phase that finished
+   * @param table the table of the request, prepared queries report the table they were prepared for
+   * @param method the HTTP method of the request
+   * @param status the status of the response the phase belongs to, or {@link #NO_STATUS} for {@link
+   *     RequestPhase#BUILD} and {@link RequestPhase#SERIALIZE}, which run before there is a
+   *     response. Listeners should leave the status out for those phases rather than report it
+   * @param nanos how long the phase took in nanoseconds
+   */
+  void onPhase(RequestPhase phase, String table, String method, int status, long nanos);
+}
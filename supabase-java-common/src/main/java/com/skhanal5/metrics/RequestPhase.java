@@ -0,0 +1,18 @@
+package com.skhanal5.metrics;
+
+/** The phases of a request that are timed and reported to a {@link RequestMetricsListener}. */
+public enum RequestPhase {
+  /** Turning a query into a request: its URI, headers and rows to send. */
+  BUILD,
+  /** Building the HttpRequest, which includes serializing its body to JSON. */
+  SERIALIZE,
+  /** From handing a single attempt to the HttpClient until its response headers arrive. */
+  HEADERS,
+  /**
+   * Reading the response body of a single attempt. Streamed responses are read while their rows are
+   * consumed, so this phase only covers handing out the stream.
+   */
+  TRANSFER,
+  /** Converting the response body into the response type. */
+  DESERIALIZE
+}
@@ -0,0 +1,50 @@
+package com.skhanal5.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event emitted for every request sent to Supabase, so that its latency can
+ * be lined up with GC pauses and parked threads in the same recording. Whether the event is
+ * recorded is up to JFR's own enabled and threshold settings, e.g. {@code
+ * -XX:StartFlightRecording:com.skhanal5.SupabaseRequest#threshold=10ms}. While it is disabled, the
+ * clients skip everything but checking {@link #isEnabled()}.
+ */
+@Name(SupabaseRequestEvent.NAME)
+@Label("Supabase Request")
+@Category({"Supabase"})
+@Description("A request sent to the Supabase Database API")
+@StackTrace(false)
+public class SupabaseRequestEvent extends Event {
+
+  public static final String NAME = "com.skhanal5.SupabaseRequest";
+
+  @Label("Table")
+  public String table;
+
+  @Label("Method")
+  public String method;
+
+  @Label("URI Length")
+  @Description("The number of characters of the request URI, including its query parameters")
+  public int uriLength;
+
+  @Label("Request Size")
+  @Description("The size of the request body, or -1 if it was streamed")
+  @DataAmount
+  public long requestBytes;
+
+  @Label("Response Size")
+  @Description("The size of the response body, or -1 if it is unknown, e.g. because it is streamed")
+  @DataAmount
+  public long responseBytes;
+
+  @Label("Status")
+  @Description("The status of the response, or 0 if the request failed without one")
+  public int status;
+}
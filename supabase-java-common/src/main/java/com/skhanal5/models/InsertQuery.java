@@ -66,6 +66,20 @@ public class InsertQuery implements Query {
       return this;
     }
 
+    /**
+     * Used to specify the values we want to insert into the table when the rows are already
+     * collected in a list.
+     *
+     * @param values a list of Map<String,Object> where each Map represents a row that we want to
+     *     insert. The key is the column name and the value is its corresponding value in the type
+     *     that the column accepts.
+     * @return a InsertQueryBuilder with this configured
+     */
+    public InsertQueryBuilder insert(List<Map<String, Object>> values) {
+      this.valuesToInsert = List.copyOf(values);
+      return this;
+    }
+
     /**
      * Used in case the consumer wants to get the response back from the API with the inserted
      * contents
@@ -6,12 +6,47 @@ class Pagination {
 
   int end;
 
+  // the last row that paging may reach, which is the end of the range the pages were cut from
+  int limit;
+
   Pagination(int start, int end) {
+    this(start, end, Integer.MAX_VALUE);
+  }
+
+  Pagination(int start, int end, int limit) {
     this.start = start;
     this.end = end;
+    this.limit = limit;
   }
 
   String serialize() {
     return this.start + "-" + this.end;
   }
+
+  /**
+   * The number of rows covered by this range. Both ends of the range are inclusive.
+   *
+   * @return the size of a page
+   */
+  int size() {
+    return this.end - this.start + 1;
+  }
+
+  /**
+   * @return whether there are rows left between the end of this page and the limit
+   */
+  boolean hasNext() {
+    return this.end < this.limit;
+  }
+
+  /**
+   * Used to walk a table page by page.
+   *
+   * @return a Pagination of the same size that starts right after this one ends, clipped to the
+   *     limit
+   */
+  Pagination next() {
+    var nextEnd = Math.min((long) this.end + size(), this.limit);
+    return new Pagination(this.end + 1, (int) nextEnd, this.limit);
+  }
 }
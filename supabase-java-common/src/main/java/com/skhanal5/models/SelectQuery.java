@@ -22,15 +22,19 @@ public class SelectQuery implements Query {
 
   Optional<Filter> filter;
 
+  Optional<String> order;
+
   private SelectQuery(
       @NonNull String table,
       @NonNull List<String> columnsToSelect,
       Optional<Pagination> pagination,
-      Optional<Filter> filter) {
+      Optional<Filter> filter,
+      Optional<String> order) {
     this.table = table;
     this.columnsToSelect = columnsToSelect;
     this.pagination = pagination;
     this.filter = filter;
+    this.order = order;
   }
 
   /**
@@ -46,6 +50,8 @@ public class SelectQuery implements Query {
 
     Filter filter;
 
+    String order;
+
     /**
      * Used to specify which table our query will select from
      *
@@ -92,6 +98,18 @@ public class SelectQuery implements Query {
       return this;
     }
 
+    /**
+     * Used to specify the column the results are sorted by, in ascending order. Sorting by a unique
+     * column gives every row a stable position, which range based paging relies on.
+     *
+     * @param column the column to sort by
+     * @return a SelectQueryBuilder with this configured
+     */
+    public SelectQueryBuilder order(String column) {
+      this.order = ascending(column);
+      return this;
+    }
+
     /**
      * Used to build a InsertQuery with all configurations.
      *
@@ -99,10 +117,117 @@ public class SelectQuery implements Query {
      */
     public SelectQuery build() {
       return new SelectQuery(
-          table, columnsToSelect, Optional.ofNullable(pagination), Optional.ofNullable(filter));
+          table,
+          columnsToSelect,
+          Optional.ofNullable(pagination),
+          Optional.ofNullable(filter),
+          Optional.ofNullable(order));
     }
   }
 
+  /**
+   * Creates a copy of this SelectQuery that only selects the rows in the given range. This is
+   * 0-based indexing (i.e., withRange(0,3) would include the first 4 results)
+   *
+   * @param start the first row we want to include in our search results
+   * @param end the last row we want to include in our search results
+   * @return a new SelectQuery with the range replaced
+   */
+  public SelectQuery withRange(int start, int end) {
+    return new SelectQuery(
+        table, columnsToSelect, Optional.of(new Pagination(start, end)), filter, order);
+  }
+
+  /**
+   * Creates a copy of this SelectQuery that also sorts the results by the given column in ascending
+   * order. An order that was configured before is kept and the column only breaks its ties. If the
+   * column is already part of the order, the order is left as it is.
+   *
+   * @param column the column to sort by
+   * @return a new SelectQuery ordered by the column
+   */
+  public SelectQuery withOrder(String column) {
+    var combined =
+        order
+            .map(
+                orderVal ->
+                    isOrderedBy(orderVal, column) ? orderVal : orderVal + "," + ascending(column))
+            .orElseGet(() -> ascending(column));
+    return new SelectQuery(table, columnsToSelect, pagination, filter, Optional.of(combined));
+  }
+
+  /**
+   * Creates a copy of this SelectQuery that selects the page at pageIndex when the rows are split
+   * into pages of pageSize. Pages are counted from the start of the configured range, or from the
+   * first row if no range is configured. If a range is configured, the page is clipped to the end
+   * of that range.
+   *
+   * @param pageIndex the 0-based index of the page
+   * @param pageSize the number of rows in each page
+   * @return a new SelectQuery covering the page, or empty if the page lies past the configured
+   *     range
+   */
+  public Optional<SelectQuery> page(int pageIndex, int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("pageSize must be positive but was " + pageSize);
+    }
+    var rangeStart = pagination.map(paginationVal -> paginationVal.start).orElse(0);
+    var rangeEnd = pagination.map(paginationVal -> paginationVal.end).orElse(Integer.MAX_VALUE);
+    var pageStart = (long) rangeStart + (long) pageIndex * pageSize;
+    if (pageStart > rangeEnd) {
+      return Optional.empty();
+    }
+    var pageEnd = Math.min(pageStart + pageSize - 1, rangeEnd);
+    return Optional.of(withRange((int) pageStart, (int) pageEnd));
+  }
+
+  /**
+   * Creates a copy of this SelectQuery that selects the page of pageSize rows starting where this
+   * query's range starts, or at the first row if no range is configured. If a range is configured,
+   * the page and the pages that follow it through {@link #nextPage()} are clipped to the end of
+   * that range.
+   *
+   * @param pageSize the number of rows in each page
+   * @return a new SelectQuery covering the first page
+   */
+  public SelectQuery firstPage(int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("pageSize must be positive but was " + pageSize);
+    }
+    var start = pagination.map(paginationVal -> paginationVal.start).orElse(0);
+    var rangeEnd = pagination.map(paginationVal -> paginationVal.end).orElse(Integer.MAX_VALUE);
+    var end = (int) Math.min((long) start + pageSize - 1, rangeEnd);
+    return new SelectQuery(
+        table, columnsToSelect, Optional.of(new Pagination(start, end, rangeEnd)), filter, order);
+  }
+
+  /**
+   * @return whether {@link #nextPage()} has a page to return, which is false once the pages started
+   *     by {@link #firstPage(int)} reach the end of the original range
+   */
+  public boolean hasNextPage() {
+    return pagination.map(Pagination::hasNext).orElse(false);
+  }
+
+  /**
+   * Creates a copy of this SelectQuery that selects the page directly after the configured range,
+   * keeping the same page size. Pages started by {@link #firstPage(int)} are clipped to the end of
+   * the original range.
+   *
+   * @return a new SelectQuery covering the next page
+   * @throws IllegalStateException if no range is configured on this query, or the range ends where
+   *     the original range of the pages ends
+   */
+  public SelectQuery nextPage() {
+    var currentPage =
+        pagination.orElseThrow(
+            () -> new IllegalStateException("nextPage() requires a range to be configured"));
+    if (!currentPage.hasNext()) {
+      throw new IllegalStateException("nextPage() has reached the end of the range");
+    }
+    return new SelectQuery(table, columnsToSelect, Optional.of(currentPage.next()), filter, order);
+  }
+
   /**
    * Converts this SelectQuery into query parameters, so we can form a proper API call with the
    * correct parameters.
@@ -115,6 +240,7 @@ public class SelectQuery implements Query {
     var map = new HashMap<String, String>();
     map.put("select", String.join(",", this.columnsToSelect));
     filter.ifPresent(filterVal -> map.putAll(filterVal.convertFiltersToQueryParams()));
+    order.ifPresent(orderVal -> map.put("order", orderVal));
     return Optional.of(map);
   }
 
@@ -142,4 +268,19 @@ public class SelectQuery implements Query {
   public Optional<List<Map<String, Object>>> buildRequestBody() {
     return Optional.empty();
   }
+
+  private static String ascending(String column) {
+    return column + ".asc";
+  }
+
+  // an order is a comma separated list of column.direction[.nulls] terms
+  private static boolean isOrderedBy(String order, String column) {
+    for (var term : order.split(",")) {
+      var dot = term.indexOf('.');
+      if ((dot < 0 ? term : term.substring(0, dot)).equals(column)) {
+        return true;
+      }
+    }
+    return false;
+  }
 }
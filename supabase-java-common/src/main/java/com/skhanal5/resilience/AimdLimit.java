@@ -0,0 +1,39 @@
+package com.skhanal5.resilience;
+
+class AimdLimit implements LimitStrategy {
+
+  private final int initialLimit;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private final double backoffRatio;
+
+  AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("expected 1 <= minLimit <= initialLimit <= maxLimit");
+    }
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+  }
+
+  @Override
+  public int initialLimit() {
+    return initialLimit;
+  }
+
+  @Override
+  public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+    if (dropped) {
+      return Math.max(minLimit, (int) (limit * backoffRatio));
+    }
+    // only probe upwards when the current limit is actually being used
+    if (inFlight * 2 >= limit) {
+      return Math.min(maxLimit, limit + 1);
+    }
+    return limit;
+  }
+}
@@ -0,0 +1,358 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.exceptions.CircuitBreakerOpenException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to an endpoint that is degraded, so that callers fail in microseconds
+ * instead of waiting on the network. The breaker is in one of three states:
+ *
+ * <ul>
+ *   <li>closed: requests flow normally, and their outcomes are kept in a sliding window of the most
+ *       recent calls. Once the share of failed calls or of slow calls in the window reaches its
+ *       threshold, the breaker opens.
+ *   <li>open: every request is rejected until the open duration has passed.
+ *   <li>half-open: a few probe requests are let through. If they fail or are slow as often as
+ *       before, the breaker opens again, otherwise it closes.
+ * </ul>
+ *
+ * A call counts as failed if it could not be sent, timed out or was answered with a 5xx status.
+ * Client errors such as a 404 say nothing about the health of the endpoint and count as successful.
+ *
+ * <p>Use the {@link CircuitBreakerBuilder} to configure a CircuitBreaker, or a {@link
+ * CircuitBreakerRegistry} to keep one per table.
+ */
+public class CircuitBreaker {
+
+  /** The states of a circuit breaker. */
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String name;
+
+  private final double failureRateThreshold;
+
+  private final double slowCallRateThreshold;
+
+  private final long slowCallNanos;
+
+  private final int minimumCalls;
+
+  private final long openNanos;
+
+  private final int halfOpenProbes;
+
+  private final LongSupplier nanoClock;
+
+  // outcomes of the most recent calls as FAILED and SLOW flags, in a ring buffer
+  private final byte[] window;
+
+  private int windowPosition;
+
+  private int windowCalls;
+
+  private int windowFailures;
+
+  private int windowSlowCalls;
+
+  private State state = State.CLOSED;
+
+  // bumped on every transition, so that outcomes of calls from an earlier state are ignored
+  private long stateEpoch;
+
+  private long openUntilNanos;
+
+  private int probesIssued;
+
+  private int probesCompleted;
+
+  private int probeFailures;
+
+  private int probeSlowCalls;
+
+  private static final byte FAILED = 1;
+
+  private static final byte SLOW = 2;
+
+  private CircuitBreaker(String name, CircuitBreakerBuilder builder, LongSupplier nanoClock) {
+    this.name = name;
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallRateThreshold = builder.slowCallRateThreshold;
+    this.slowCallNanos = builder.slowCallDuration.toNanos();
+    this.minimumCalls = builder.minimumCalls;
+    this.openNanos = builder.openDuration.toNanos();
+    this.halfOpenProbes = builder.halfOpenProbes;
+    this.window = new byte[builder.slidingWindowSize];
+    this.nanoClock = nanoClock;
+  }
+
+  /** The main entrypoint to configure a CircuitBreaker. */
+  public static class CircuitBreakerBuilder {
+
+    double failureRateThreshold = 0.5;
+
+    double slowCallRateThreshold = 1.0;
+
+    Duration slowCallDuration = Duration.ofSeconds(5);
+
+    int slidingWindowSize = 100;
+
+    int minimumCalls = 20;
+
+    Duration openDuration = Duration.ofSeconds(30);
+
+    int halfOpenProbes = 5;
+
+    /**
+     * Used to set the share of failed calls at which the breaker opens. Defaults to 0.5.
+     *
+     * @param failureRateThreshold the share of failed calls, between 0 and 1
+     * @return a CircuitBreakerBuilder with this configured
+     */
+    public CircuitBreakerBuilder failureRateThreshold(double failureRateThreshold) {
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    /**
+     * Used to set when a call counts as slow and the share of slow calls at which the breaker
+     * opens. Defaults to calls slower than 5 seconds, with the breaker only opening if all of them
+     * are slow.
+     *
+     * @param slowCallDuration the duration after which a call counts as slow
+     * @param slowCallRateThreshold the share of slow calls, between 0 and 1
+     * @return a CircuitBreakerBuilder with this configured
+     */
+    public CircuitBreakerBuilder slowCalls(
+        Duration slowCallDuration, double slowCallRateThreshold) {
+      this.slowCallDuration = slowCallDuration;
+      this.slowCallRateThreshold = slowCallRateThreshold;
+      return this;
+    }
+
+    /**
+     * Used to set how many recent calls the breaker looks at, and how many of them it needs before
+     * it may open. Defaults to the last 100 calls, with at least 20 of them.
+     *
+     * @param slidingWindowSize the number of recent calls to look at
+     * @param minimumCalls the number of calls needed before the breaker may open
+     * @return a CircuitBreakerBuilder with this configured
+     */
+    public CircuitBreakerBuilder slidingWindow(int slidingWindowSize, int minimumCalls) {
+      this.slidingWindowSize = slidingWindowSize;
+      this.minimumCalls = minimumCalls;
+      return this;
+    }
+
+    /**
+     * Used to set how long the breaker stays open before it lets probe requests through. Defaults
+     * to 30 seconds.
+     *
+     * @param openDuration how long the breaker stays open
+     * @return a CircuitBreakerBuilder with this configured
+     */
+    public CircuitBreakerBuilder openDuration(Duration openDuration) {
+      this.openDuration = openDuration;
+      return this;
+    }
+
+    /**
+     * Used to set how many probe requests a half-open breaker lets through. Defaults to 5.
+     *
+     * @param halfOpenProbes the number of probe requests
+     * @return a CircuitBreakerBuilder with this configured
+     */
+    public CircuitBreakerBuilder halfOpenProbes(int halfOpenProbes) {
+      this.halfOpenProbes = halfOpenProbes;
+      return this;
+    }
+
+    /**
+     * Used to build a CircuitBreaker with all configurations.
+     *
+     * @return an instance of the CircuitBreaker
+     */
+    public CircuitBreaker build() {
+      return build("default", System::nanoTime);
+    }
+
+    CircuitBreaker build(String name, LongSupplier nanoClock) {
+      if (slidingWindowSize < 1 || minimumCalls < 1 || halfOpenProbes < 1) {
+        throw new IllegalArgumentException(
+            "slidingWindowSize, minimumCalls and halfOpenProbes must be positive");
+      }
+      return new CircuitBreaker(name, this, nanoClock);
+    }
+  }
+
+  /**
+   * @return the current state of the breaker
+   */
+  public synchronized State getState() {
+    if (state == State.OPEN && nanoClock.getAsLong() - openUntilNanos >= 0) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  /**
+   * Asks the breaker whether a call may be made.
+   *
+   * @return a permit to report the outcome of the call to, or empty if the breaker rejects it
+   */
+  public Optional<Permit> tryAcquire() {
+    var now = nanoClock.getAsLong();
+    synchronized (this) {
+      if (state == State.OPEN) {
+        if (now - openUntilNanos < 0) {
+          return Optional.empty();
+        }
+        transitionTo(State.HALF_OPEN, now);
+      }
+      if (state == State.HALF_OPEN) {
+        if (probesIssued >= halfOpenProbes) {
+          return Optional.empty();
+        }
+        probesIssued++;
+      }
+      return Optional.of(new Permit(stateEpoch, now));
+    }
+  }
+
+  /**
+   * Like {@link #tryAcquire()}, but throws if the breaker rejects the call.
+   *
+   * @return a permit to report the outcome of the call to
+   * @throws CircuitBreakerOpenException if the breaker rejects the call
+   */
+  public Permit acquire() {
+    return tryAcquire()
+        .orElseThrow(
+            () ->
+                new CircuitBreakerOpenException(
+                    "The circuit breaker for " + name + " is open", name));
+  }
+
+  /**
+   * Gives permission for a single call. Exactly one of its methods should be called once the call
+   * has an outcome, further calls are ignored.
+   */
+  public class Permit {
+
+    private final long epoch;
+
+    private final long startNanos;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(long epoch, long startNanos) {
+      this.epoch = epoch;
+      this.startNanos = startNanos;
+    }
+
+    /** Reports that the call succeeded. */
+    public void onSuccess() {
+      release(false);
+    }
+
+    /** Reports that the call failed, e.g. because the connection was refused or it timed out. */
+    public void onFailure() {
+      release(true);
+    }
+
+    /**
+     * Reports a response. A 5xx status counts as a failure, anything else as a success.
+     *
+     * @param statusCode the status of the response
+     */
+    public void onResponse(int statusCode) {
+      release(statusCode >= 500);
+    }
+
+    /** Reports that the call has no outcome worth recording, e.g. because it was cancelled. */
+    public void onIgnore() {
+      if (released.compareAndSet(false, true)) {
+        ignored(epoch);
+      }
+    }
+
+    private void release(boolean failed) {
+      if (released.compareAndSet(false, true)) {
+        var slow = nanoClock.getAsLong() - startNanos >= slowCallNanos;
+        recorded(epoch, failed, slow);
+      }
+    }
+  }
+
+  private synchronized void ignored(long epoch) {
+    if (epoch == stateEpoch && state == State.HALF_OPEN) {
+      probesIssued--;
+    }
+  }
+
+  private synchronized void recorded(long epoch, boolean failed, boolean slow) {
+    if (epoch != stateEpoch) {
+      return;
+    }
+    var now = nanoClock.getAsLong();
+    if (state == State.HALF_OPEN) {
+      probesCompleted++;
+      probeFailures += failed ? 1 : 0;
+      probeSlowCalls += slow ? 1 : 0;
+      if (probesCompleted >= halfOpenProbes) {
+        var tripped = exceedsThresholds(probeFailures, probeSlowCalls, probesCompleted);
+        transitionTo(tripped ? State.OPEN : State.CLOSED, now);
+      }
+      return;
+    }
+    if (state == State.CLOSED) {
+      record(failed, slow);
+      if (windowCalls >= minimumCalls
+          && exceedsThresholds(windowFailures, windowSlowCalls, windowCalls)) {
+        transitionTo(State.OPEN, now);
+      }
+    }
+  }
+
+  private void record(boolean failed, boolean slow) {
+    if (windowCalls == window.length) {
+      var evicted = window[windowPosition];
+      windowFailures -= evicted & FAILED;
+      windowSlowCalls -= (evicted & SLOW) >> 1;
+    } else {
+      windowCalls++;
+    }
+    var outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+    window[windowPosition] = outcome;
+    windowFailures += outcome & FAILED;
+    windowSlowCalls += (outcome & SLOW) >> 1;
+    windowPosition = (windowPosition + 1) % window.length;
+  }
+
+  private boolean exceedsThresholds(int failures, int slowCalls, int calls) {
+    return failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls;
+  }
+
+  private void transitionTo(State newState, long now) {
+    state = newState;
+    stateEpoch++;
+    probesIssued = 0;
+    probesCompleted = 0;
+    probeFailures = 0;
+    probeSlowCalls = 0;
+    if (newState == State.OPEN) {
+      openUntilNanos = now + openNanos;
+    } else if (newState == State.CLOSED) {
+      windowPosition = 0;
+      windowCalls = 0;
+      windowFailures = 0;
+      windowSlowCalls = 0;
+    }
+  }
+}
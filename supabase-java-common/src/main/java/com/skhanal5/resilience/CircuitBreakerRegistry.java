@@ -0,0 +1,91 @@
+package com.skhanal5.resilience;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps a {@link CircuitBreaker} per table, so that a degraded table does not fail requests to the
+ * healthy ones. Tables without their own configuration share the default one, but still get a
+ * breaker of their own.
+ *
+ * <p>Use the {@link CircuitBreakerRegistryBuilder} to configure a CircuitBreakerRegistry.
+ */
+public class CircuitBreakerRegistry {
+
+  private final CircuitBreaker.CircuitBreakerBuilder defaults;
+
+  private final Map<String, CircuitBreaker.CircuitBreakerBuilder> tableBreakers;
+
+  private final LongSupplier nanoClock;
+
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  private CircuitBreakerRegistry(
+      CircuitBreaker.CircuitBreakerBuilder defaults,
+      Map<String, CircuitBreaker.CircuitBreakerBuilder> tableBreakers,
+      LongSupplier nanoClock) {
+    this.defaults = defaults;
+    this.tableBreakers = tableBreakers;
+    this.nanoClock = nanoClock;
+  }
+
+  /** The main entrypoint to configure a CircuitBreakerRegistry. */
+  public static class CircuitBreakerRegistryBuilder {
+
+    CircuitBreaker.CircuitBreakerBuilder defaults = new CircuitBreaker.CircuitBreakerBuilder();
+
+    Map<String, CircuitBreaker.CircuitBreakerBuilder> tableBreakers = new HashMap<>();
+
+    /**
+     * Used to configure the breakers of tables without a configuration of their own.
+     *
+     * @param defaults the configuration to use
+     * @return a CircuitBreakerRegistryBuilder with this configured
+     */
+    public CircuitBreakerRegistryBuilder defaults(CircuitBreaker.CircuitBreakerBuilder defaults) {
+      this.defaults = defaults;
+      return this;
+    }
+
+    /**
+     * Used to configure the breaker of a single table.
+     *
+     * @param table the name of the table
+     * @param breaker the configuration to use
+     * @return a CircuitBreakerRegistryBuilder with this configured
+     */
+    public CircuitBreakerRegistryBuilder table(
+        String table, CircuitBreaker.CircuitBreakerBuilder breaker) {
+      this.tableBreakers.put(table, breaker);
+      return this;
+    }
+
+    /**
+     * Used to build a CircuitBreakerRegistry with all configurations.
+     *
+     * @return an instance of the CircuitBreakerRegistry
+     */
+    public CircuitBreakerRegistry build() {
+      return build(System::nanoTime);
+    }
+
+    CircuitBreakerRegistry build(LongSupplier nanoClock) {
+      return new CircuitBreakerRegistry(defaults, Map.copyOf(tableBreakers), nanoClock);
+    }
+  }
+
+  /**
+   * @param table the name of the table
+   * @return the breaker of the table, which is created on first use
+   * @throws NullPointerException if table is null, every request must be scoped to its table so
+   *     that one failing table cannot open the breaker of another
+   */
+  public CircuitBreaker forTable(String table) {
+    Objects.requireNonNull(table, "table");
+    return breakers.computeIfAbsent(
+        table, name -> tableBreakers.getOrDefault(name, defaults).build(name, nanoClock));
+  }
+}
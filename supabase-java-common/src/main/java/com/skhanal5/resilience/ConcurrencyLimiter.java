@@ -0,0 +1,251 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.exceptions.ConcurrencyLimitExceededException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds how many requests are in flight against Supabase at once. Without a bound, a slow database
+ * makes requests pile up, which only makes it slower. The limit itself comes from a {@link
+ * LimitStrategy}, which can be fixed or adapt to the observed latency and failures.
+ *
+ * <p>When the limit is reached, a request waits in a bounded queue for up to a configured time. A
+ * request that finds the queue full, or waits too long, fails with a {@link
+ * ConcurrencyLimitExceededException}. A queue size of 0 rejects immediately.
+ *
+ * <p>Use the {@link ConcurrencyLimiterBuilder} to configure a ConcurrencyLimiter.
+ */
+public class ConcurrencyLimiter {
+
+  private final LimitStrategy strategy;
+
+  private final int maxQueueSize;
+
+  private final Duration maxQueueWait;
+
+  private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+  private final LongAdder rejectedCount = new LongAdder();
+
+  private int limit;
+
+  private int inFlight;
+
+  private ConcurrencyLimiter(LimitStrategy strategy, int maxQueueSize, Duration maxQueueWait) {
+    this.strategy = strategy;
+    this.maxQueueSize = maxQueueSize;
+    this.maxQueueWait = maxQueueWait;
+    this.limit = strategy.initialLimit();
+  }
+
+  /** The main entrypoint to configure a ConcurrencyLimiter. */
+  public static class ConcurrencyLimiterBuilder {
+
+    LimitStrategy strategy = LimitStrategy.gradient(20, 1, 200);
+
+    int maxQueueSize = 0;
+
+    Duration maxQueueWait = Duration.ZERO;
+
+    /**
+     * Used to pick how the limit is determined. Defaults to {@link LimitStrategy#gradient(int, int,
+     * int)} starting at 20 requests.
+     *
+     * @param strategy the LimitStrategy to use
+     * @return a ConcurrencyLimiterBuilder with this configured
+     */
+    public ConcurrencyLimiterBuilder strategy(LimitStrategy strategy) {
+      this.strategy = strategy;
+      return this;
+    }
+
+    /**
+     * Used to let requests wait for a free slot instead of rejecting them right away.
+     *
+     * @param maxQueueSize the number of requests that may wait at once
+     * @param maxQueueWait how long a request may wait before it is rejected
+     * @return a ConcurrencyLimiterBuilder with this configured
+     */
+    public ConcurrencyLimiterBuilder queue(int maxQueueSize, Duration maxQueueWait) {
+      this.maxQueueSize = maxQueueSize;
+      this.maxQueueWait = maxQueueWait;
+      return this;
+    }
+
+    /**
+     * Used to build a ConcurrencyLimiter with all configurations.
+     *
+     * @return an instance of the ConcurrencyLimiter
+     */
+    public ConcurrencyLimiter build() {
+      if (maxQueueSize < 0) {
+        throw new IllegalArgumentException("maxQueueSize must not be negative");
+      }
+      return new ConcurrencyLimiter(strategy, maxQueueSize, maxQueueWait);
+    }
+  }
+
+  /**
+   * The right to send one request. Exactly one of the outcome methods must be called once the
+   * request completes; further calls are ignored.
+   */
+  public final class Permit {
+
+    private final long startNanos = System.nanoTime();
+
+    private final int inFlightAtStart;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(int inFlightAtStart) {
+      this.inFlightAtStart = inFlightAtStart;
+    }
+
+    /** The request completed normally, its latency is fed to the strategy. */
+    public void onSuccess() {
+      release(true, false);
+    }
+
+    /** The request failed in a way that signals overload, e.g. it timed out. */
+    public void onDropped() {
+      release(true, true);
+    }
+
+    /** The request failed for a reason unrelated to load, it is not fed to the strategy. */
+    public void onIgnore() {
+      release(false, false);
+    }
+
+    /**
+     * Records the outcome of a request from its HTTP status code. 429 and 503 responses signal
+     * overload, anything else counts as a success.
+     *
+     * @param statusCode the status code of the response
+     */
+    public void onResponse(int statusCode) {
+      if (statusCode == 429 || statusCode == 503) {
+        onDropped();
+      } else {
+        onSuccess();
+      }
+    }
+
+    private void release(boolean sample, boolean dropped) {
+      if (released.compareAndSet(false, true)) {
+        ConcurrencyLimiter.this.release(this, sample, dropped);
+      }
+    }
+  }
+
+  /**
+   * @return the number of requests currently allowed in flight
+   */
+  public synchronized int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return the number of requests currently in flight
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * @return the number of requests currently waiting for a slot
+   */
+  public synchronized int getQueueDepth() {
+    return waiters.size();
+  }
+
+  /**
+   * @return the number of requests rejected so far
+   */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /**
+   * Takes a permit if one is free right now, without waiting.
+   *
+   * @return a Permit, or empty if the limit is reached
+   */
+  public synchronized Optional<Permit> tryAcquire() {
+    if (inFlight < limit && waiters.isEmpty()) {
+      return Optional.of(newPermit());
+    }
+    rejectedCount.increment();
+    return Optional.empty();
+  }
+
+  /**
+   * Takes a permit, waiting in the queue if the limit is reached.
+   *
+   * @return a future that completes with a Permit, or completes exceptionally with a {@link
+   *     ConcurrencyLimitExceededException} if the request is rejected
+   */
+  public CompletableFuture<Permit> acquire() {
+    var waiter = new CompletableFuture<Permit>();
+    synchronized (this) {
+      if (inFlight < limit && waiters.isEmpty()) {
+        return CompletableFuture.completedFuture(newPermit());
+      }
+      if (waiters.size() >= maxQueueSize) {
+        rejectedCount.increment();
+        return CompletableFuture.failedFuture(
+            new ConcurrencyLimitExceededException(
+                "Too many requests in flight, the limit of " + limit + " is reached", limit));
+      }
+      waiters.add(waiter);
+    }
+    waiter.orTimeout(maxQueueWait.toNanos(), TimeUnit.NANOSECONDS);
+    return waiter.exceptionallyCompose(
+        error -> {
+          synchronized (this) {
+            waiters.remove(waiter);
+          }
+          if (error instanceof TimeoutException) {
+            rejectedCount.increment();
+            return CompletableFuture.failedFuture(
+                new ConcurrencyLimitExceededException(
+                    "Timed out after " + maxQueueWait + " waiting for a request slot", getLimit()));
+          }
+          return CompletableFuture.failedFuture(error);
+        });
+  }
+
+  // must be called while holding the lock
+  private Permit newPermit() {
+    inFlight++;
+    return new Permit(inFlight);
+  }
+
+  private void release(Permit permit, boolean sample, boolean dropped) {
+    var handoffs = new ArrayList<CompletableFuture<Permit>>();
+    var permits = new ArrayList<Permit>();
+    synchronized (this) {
+      inFlight--;
+      if (sample) {
+        var rttNanos = System.nanoTime() - permit.startNanos;
+        limit = Math.max(1, strategy.update(limit, rttNanos, permit.inFlightAtStart, dropped));
+      }
+      while (inFlight < limit && !waiters.isEmpty()) {
+        handoffs.add(waiters.poll());
+        permits.add(newPermit());
+      }
+    }
+    // complete outside the lock, the waiters' callbacks may run inline
+    for (int i = 0; i < handoffs.size(); i++) {
+      if (!handoffs.get(i).complete(permits.get(i))) {
+        permits.get(i).onIgnore(); // the waiter timed out in the meantime
+      }
+    }
+  }
+}
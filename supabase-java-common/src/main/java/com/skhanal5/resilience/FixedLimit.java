@@ -0,0 +1,23 @@
+package com.skhanal5.resilience;
+
+class FixedLimit implements LimitStrategy {
+
+  private final int limit;
+
+  FixedLimit(int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    this.limit = limit;
+  }
+
+  @Override
+  public int initialLimit() {
+    return limit;
+  }
+
+  @Override
+  public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+    return this.limit;
+  }
+}
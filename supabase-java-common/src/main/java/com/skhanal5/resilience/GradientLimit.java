@@ -0,0 +1,69 @@
+package com.skhanal5.resilience;
+
+/**
+ * Tracks a short term and a long term exponential moving average of the round trip time. While the
+ * server keeps up, both are close and the limit grows by a small queue allowance. Once requests
+ * start to queue on the server the short term average rises above the long term one, and the limit
+ * shrinks proportionally.
+ */
+class GradientLimit implements LimitStrategy {
+
+  private static final double SHORT_TERM_WEIGHT = 0.1;
+
+  private static final double LONG_TERM_WEIGHT = 0.01;
+
+  private static final double SMOOTHING = 0.2;
+
+  private final int initialLimit;
+
+  private final int minLimit;
+
+  private final int maxLimit;
+
+  private double shortRtt;
+
+  private double longRtt;
+
+  private double estimatedLimit;
+
+  GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("expected 1 <= minLimit <= initialLimit <= maxLimit");
+    }
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.estimatedLimit = initialLimit;
+  }
+
+  @Override
+  public int initialLimit() {
+    return initialLimit;
+  }
+
+  @Override
+  public int update(int limit, long rttNanos, int inFlight, boolean dropped) {
+    if (longRtt == 0) {
+      shortRtt = rttNanos;
+      longRtt = rttNanos;
+    } else {
+      shortRtt += (rttNanos - shortRtt) * SHORT_TERM_WEIGHT;
+      longRtt += (rttNanos - longRtt) * LONG_TERM_WEIGHT;
+    }
+    // let the long term average recover quickly once latency improves again
+    if (longRtt / shortRtt > 2) {
+      longRtt *= 0.95;
+    }
+
+    double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+    // an idle client tells us nothing about how much more the server can take
+    if (!dropped && gradient == 1.0 && inFlight * 2 < estimatedLimit) {
+      return limit;
+    }
+    var queueAllowance = Math.sqrt(estimatedLimit);
+    var target = estimatedLimit * gradient + queueAllowance;
+    estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+    return (int) estimatedLimit;
+  }
+}
@@ -0,0 +1,191 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.metrics.LatencyHistogram;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when a slow select is hedged, i.e. sent a second time while the first attempt is still in
+ * flight, with whichever response arrives first being used. Hedging trades a little extra load for
+ * a much shorter tail latency, since a slow response is usually caused by the one server or
+ * connection it landed on.
+ *
+ * <p>The hedge delay follows a percentile of a rolling latency histogram, by default the p95, so
+ * only the slowest 5% of selects are hedged. Until enough latencies have been observed nothing is
+ * hedged. A budget, working like the {@link RetryPolicy}'s, caps the hedges at a share of the
+ * selects sent. The percentile is recomputed at most every {@value #REFRESH_INTERVAL_MILLIS}ms
+ * rather than on every select, since it only moves as the histogram fills up.
+ *
+ * <p>Use the {@link HedgingPolicyBuilder} to configure a HedgingPolicy.
+ */
+public class HedgingPolicy {
+
+  // the percentile of fewer latencies than this is too noisy to act on
+  static final int MIN_SAMPLES = 20;
+
+  static final long REFRESH_INTERVAL_MILLIS = 100;
+
+  private static final long REFRESH_INTERVAL_NANOS =
+      TimeUnit.MILLISECONDS.toNanos(REFRESH_INTERVAL_MILLIS);
+
+  private final double percentile;
+
+  private final long minDelayNanos;
+
+  private final LatencyHistogram histogram;
+
+  private final RetryBudget budget;
+
+  private final LongAdder hedgeCount = new LongAdder();
+
+  private final LongSupplier nanoClock;
+
+  // racing refreshes compute the same value, so plain volatile fields are enough
+  private volatile long cachedDelayNanos;
+
+  private volatile long refreshAtNanos;
+
+  private volatile boolean refreshed;
+
+  private HedgingPolicy(
+      HedgingPolicyBuilder builder, LatencyHistogram histogram, LongSupplier nanoClock) {
+    this.percentile = builder.percentile;
+    this.minDelayNanos = builder.minDelay.toNanos();
+    this.histogram = histogram;
+    this.budget = new RetryBudget(builder.maxExtraLoad, 1);
+    this.nanoClock = nanoClock;
+  }
+
+  /** The main entrypoint to configure a HedgingPolicy. */
+  public static class HedgingPolicyBuilder {
+
+    double percentile = 0.95;
+
+    Duration minDelay = Duration.ofMillis(1);
+
+    double maxExtraLoad = 0.05;
+
+    Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Used to set the latency percentile after which a select is hedged. Defaults to 0.95.
+     *
+     * @param percentile the percentile between 0 and 1
+     * @return a HedgingPolicyBuilder with this configured
+     */
+    public HedgingPolicyBuilder percentile(double percentile) {
+      this.percentile = percentile;
+      return this;
+    }
+
+    /**
+     * Used to set the shortest hedge delay, regardless of the observed latencies. Defaults to 1ms.
+     *
+     * @param minDelay the shortest hedge delay
+     * @return a HedgingPolicyBuilder with this configured
+     */
+    public HedgingPolicyBuilder minDelay(Duration minDelay) {
+      this.minDelay = minDelay;
+      return this;
+    }
+
+    /**
+     * Used to cap the extra requests hedging may add. Defaults to 0.05, i.e. 5% of the selects.
+     *
+     * @param maxExtraLoad the number of hedges allowed per select
+     * @return a HedgingPolicyBuilder with this configured
+     */
+    public HedgingPolicyBuilder maxExtraLoad(double maxExtraLoad) {
+      this.maxExtraLoad = maxExtraLoad;
+      return this;
+    }
+
+    /**
+     * Used to set how far back the latency histogram looks. Defaults to one minute.
+     *
+     * @param window the window of the latency histogram
+     * @return a HedgingPolicyBuilder with this configured
+     */
+    public HedgingPolicyBuilder window(Duration window) {
+      this.window = window;
+      return this;
+    }
+
+    /**
+     * Used to build a HedgingPolicy with all configurations.
+     *
+     * @return an instance of the HedgingPolicy
+     */
+    public HedgingPolicy build() {
+      if (percentile <= 0 || percentile >= 1) {
+        throw new IllegalArgumentException("percentile must be between 0 and 1");
+      }
+      return new HedgingPolicy(this, new LatencyHistogram(window, 6), System::nanoTime);
+    }
+
+    HedgingPolicy build(LatencyHistogram histogram) {
+      return new HedgingPolicy(this, histogram, System::nanoTime);
+    }
+
+    HedgingPolicy build(LatencyHistogram histogram, LongSupplier nanoClock) {
+      return new HedgingPolicy(this, histogram, nanoClock);
+    }
+  }
+
+  /**
+   * @return the number of hedges sent so far
+   */
+  public long getHedgeCount() {
+    return hedgeCount.sum();
+  }
+
+  /**
+   * @return the current hedge delay in nanoseconds, or -1 if too few latencies were observed yet
+   */
+  public long hedgeDelayNanos() {
+    var now = nanoClock.getAsLong();
+    if (refreshed && now - refreshAtNanos < 0) {
+      return cachedDelayNanos;
+    }
+    // a delay of -1 is refreshed on the next call, so hedging starts as soon as there are samples
+    var delayNanos =
+        histogram.count() < MIN_SAMPLES
+            ? -1
+            : Math.max(minDelayNanos, histogram.percentile(percentile));
+    cachedDelayNanos = delayNanos;
+    refreshAtNanos = now + REFRESH_INTERVAL_NANOS;
+    refreshed = delayNanos >= 0;
+    return delayNanos;
+  }
+
+  /** Must be called once for every select that may be hedged. */
+  public void onRequest() {
+    budget.deposit();
+  }
+
+  /**
+   * Records the latency of a single attempt. An attempt that was cancelled because another one won
+   * is recorded with the time it had run so far, a lower bound of its latency that keeps slow
+   * attempts in the tail of the histogram.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void recordLatency(long nanos) {
+    histogram.record(nanos);
+  }
+
+  /**
+   * Asks the budget for a hedge of a select that is still in flight after the hedge delay.
+   *
+   * @return whether the hedge may be sent
+   */
+  public boolean tryHedge() {
+    if (!budget.tryWithdraw()) {
+      return false;
+    }
+    hedgeCount.increment();
+    return true;
+  }
+}
@@ -0,0 +1,63 @@
+package com.skhanal5.resilience;
+
+/**
+ * Decides how many requests a {@link ConcurrencyLimiter} lets into flight at once. The limiter
+ * reports every completed request to the strategy, which answers with the limit to use from then
+ * on. Calls are serialized by the limiter, so implementations do not need to be thread-safe.
+ */
+public interface LimitStrategy {
+
+  /**
+   * @return the limit to start with, before any request has completed
+   */
+  int initialLimit();
+
+  /**
+   * Called for every completed request.
+   *
+   * @param limit the limit currently in use
+   * @param rttNanos how long the request was in flight
+   * @param inFlight how many requests were in flight when it was sent, including itself
+   * @param dropped whether the request failed in a way that signals overload, e.g. a timeout or a
+   *     429 response
+   * @return the new limit
+   */
+  int update(int limit, long rttNanos, int inFlight, boolean dropped);
+
+  /**
+   * A limit that never changes.
+   *
+   * @param limit the number of requests allowed in flight
+   * @return a LimitStrategy with a fixed limit
+   */
+  static LimitStrategy fixed(int limit) {
+    return new FixedLimit(limit);
+  }
+
+  /**
+   * An additive increase, multiplicative decrease limit. The limit grows by one after every
+   * successful request that used at least half of it, and shrinks to 90% on every dropped request.
+   *
+   * @param initialLimit the limit to start with
+   * @param minLimit the limit never shrinks below this
+   * @param maxLimit the limit never grows beyond this
+   * @return an AIMD LimitStrategy
+   */
+  static LimitStrategy aimd(int initialLimit, int minLimit, int maxLimit) {
+    return new AimdLimit(initialLimit, minLimit, maxLimit, 0.9);
+  }
+
+  /**
+   * A limit driven by latency. It compares the short term round trip time to a slowly moving long
+   * term average, and shrinks the limit as soon as requests start to queue up on the server, before
+   * anything times out.
+   *
+   * @param initialLimit the limit to start with
+   * @param minLimit the limit never shrinks below this
+   * @param maxLimit the limit never grows beyond this
+   * @return a gradient LimitStrategy
+   */
+  static LimitStrategy gradient(int initialLimit, int minLimit, int maxLimit) {
+    return new GradientLimit(initialLimit, minLimit, maxLimit);
+  }
+}
@@ -0,0 +1,215 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.exceptions.RateLimitExceededException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of requests a client sends, both per table and for the client as a whole, so that
+ * services sharing a Supabase project stay below its server-side limits instead of running into
+ * 429s. A request needs a permit from the bucket of its table and from the global bucket.
+ *
+ * <p>Every bucket is a single AtomicLong updated with compare-and-set, so the limiter does not
+ * become a point of contention at high request rates. Callers may either take a permit without
+ * waiting with {@link #tryAcquire(String)}, or wait for one asynchronously with {@link
+ * #acquire(String)}.
+ *
+ * <p>Use the {@link RateLimiterBuilder} to configure a RateLimiter.
+ */
+public class RateLimiter {
+
+  private record Rate(double permitsPerSecond, int burst) {
+    Rate {
+      if (permitsPerSecond <= 0 || burst < 1) {
+        throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+      }
+    }
+  }
+
+  private final TokenBucket globalBucket;
+
+  private final Rate defaultTableRate;
+
+  private final Map<String, Rate> tableRates;
+
+  private final long maxWaitNanos;
+
+  private final LongSupplier nanoClock;
+
+  private final Map<String, TokenBucket> tableBuckets = new ConcurrentHashMap<>();
+
+  private final LongAdder rejectedCount = new LongAdder();
+
+  private RateLimiter(RateLimiterBuilder builder, LongSupplier nanoClock) {
+    var now = nanoClock.getAsLong();
+    this.globalBucket =
+        builder.globalRate == null
+            ? null
+            : new TokenBucket(builder.globalRate.permitsPerSecond, builder.globalRate.burst, now);
+    this.defaultTableRate = builder.defaultTableRate;
+    this.tableRates = Map.copyOf(builder.tableRates);
+    this.maxWaitNanos = builder.maxWait.toNanos();
+    this.nanoClock = nanoClock;
+  }
+
+  /** The main entrypoint to configure a RateLimiter. */
+  public static class RateLimiterBuilder {
+
+    Rate globalRate;
+
+    Rate defaultTableRate;
+
+    Map<String, Rate> tableRates = new HashMap<>();
+
+    Duration maxWait = Duration.ofSeconds(1);
+
+    /**
+     * Used to limit the rate of all requests of the client. Unlimited by default.
+     *
+     * @param permitsPerSecond the sustained number of requests per second
+     * @param burst the number of requests that may be sent at once after the client was idle
+     * @return a RateLimiterBuilder with this configured
+     */
+    public RateLimiterBuilder global(double permitsPerSecond, int burst) {
+      this.globalRate = new Rate(permitsPerSecond, burst);
+      return this;
+    }
+
+    /**
+     * Used to limit the rate of requests to every table without a limit of its own. Unlimited by
+     * default.
+     *
+     * @param permitsPerSecond the sustained number of requests per second to each table
+     * @param burst the number of requests that may be sent at once after the table was idle
+     * @return a RateLimiterBuilder with this configured
+     */
+    public RateLimiterBuilder perTable(double permitsPerSecond, int burst) {
+      this.defaultTableRate = new Rate(permitsPerSecond, burst);
+      return this;
+    }
+
+    /**
+     * Used to limit the rate of requests to a single table.
+     *
+     * @param table the name of the table
+     * @param permitsPerSecond the sustained number of requests per second to the table
+     * @param burst the number of requests that may be sent at once after the table was idle
+     * @return a RateLimiterBuilder with this configured
+     */
+    public RateLimiterBuilder table(String table, double permitsPerSecond, int burst) {
+      this.tableRates.put(table, new Rate(permitsPerSecond, burst));
+      return this;
+    }
+
+    /**
+     * Used to set how long {@link #acquire(String)} may wait for a permit before it fails with a
+     * {@link RateLimitExceededException}. Defaults to one second.
+     *
+     * @param maxWait the longest wait for a permit
+     * @return a RateLimiterBuilder with this configured
+     */
+    public RateLimiterBuilder maxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+      return this;
+    }
+
+    /**
+     * Used to build a RateLimiter with all configurations.
+     *
+     * @return an instance of the RateLimiter
+     */
+    public RateLimiter build() {
+      return build(System::nanoTime);
+    }
+
+    RateLimiter build(LongSupplier nanoClock) {
+      return new RateLimiter(this, nanoClock);
+    }
+  }
+
+  /**
+   * @return the number of requests rejected so far
+   */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /**
+   * Takes a permit for a request to the table if one is available right now.
+   *
+   * @param table the name of the table
+   * @return whether the request may be sent
+   */
+  public boolean tryAcquire(String table) {
+    return reserve(table, 0) == 0;
+  }
+
+  /**
+   * Waits for a permit for a request to the table without blocking a thread.
+   *
+   * @param table the name of the table
+   * @return a future that completes once the request may be sent, or fails with a {@link
+   *     RateLimitExceededException} if that would take longer than the max wait. It is already
+   *     complete if a permit was available right away.
+   */
+  public CompletableFuture<Void> acquire(String table) {
+    var waitNanos = reserve(table, maxWaitNanos);
+    if (waitNanos < 0) {
+      return CompletableFuture.failedFuture(
+          new RateLimitExceededException("The rate limit for " + table + " was exceeded", table));
+    }
+    if (waitNanos == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    var delayed = CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS);
+    return CompletableFuture.runAsync(() -> {}, delayed);
+  }
+
+  /** Reserves a permit from both buckets, or from neither of them. */
+  private long reserve(String table, long maxWaitNanos) {
+    var now = nanoClock.getAsLong();
+    var tableBucket = bucketFor(table, now);
+    long tableWaitNanos = 0;
+    if (tableBucket != null) {
+      tableWaitNanos = tableBucket.tryReserve(now, maxWaitNanos);
+      if (tableWaitNanos < 0) {
+        rejectedCount.increment();
+        return -1;
+      }
+    }
+    long globalWaitNanos = 0;
+    if (globalBucket != null) {
+      globalWaitNanos = globalBucket.tryReserve(now, maxWaitNanos);
+      if (globalWaitNanos < 0) {
+        if (tableBucket != null) {
+          tableBucket.refund();
+        }
+        rejectedCount.increment();
+        return -1;
+      }
+    }
+    return Math.max(tableWaitNanos, globalWaitNanos);
+  }
+
+  private TokenBucket bucketFor(String table, long now) {
+    // a request without its table would silently slip past the table's limit
+    Objects.requireNonNull(table, "table");
+    var bucket = tableBuckets.get(table);
+    if (bucket != null) {
+      return bucket;
+    }
+    var rate = tableRates.getOrDefault(table, defaultTableRate);
+    if (rate == null) {
+      return null;
+    }
+    return tableBuckets.computeIfAbsent(
+        table, name -> new TokenBucket(rate.permitsPerSecond, rate.burst, now));
+  }
+}
@@ -0,0 +1,46 @@
+package com.skhanal5.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket that caps retries to a fraction of the requests sent. Every request deposits ratio
+ * tokens, every retry withdraws a whole one, so over time at most ratio retries are sent per
+ * request. The bucket holds at most minRetries tokens and starts full, which lets a client with
+ * little traffic still retry.
+ */
+class RetryBudget {
+
+  private static final long SCALE = 1000;
+
+  private final long depositPerRequest;
+
+  private final long capacity;
+
+  private final AtomicLong balance;
+
+  RetryBudget(double ratio, int minRetries) {
+    if (ratio < 0 || minRetries < 0) {
+      throw new IllegalArgumentException("ratio and minRetries must not be negative");
+    }
+    this.depositPerRequest = (long) (ratio * SCALE);
+    this.capacity = Math.max(1, minRetries) * SCALE;
+    this.balance = new AtomicLong(minRetries * SCALE);
+  }
+
+  void deposit() {
+    balance.accumulateAndGet(
+        depositPerRequest, (current, deposit) -> Math.min(capacity, current + deposit));
+  }
+
+  boolean tryWithdraw() {
+    while (true) {
+      var current = balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+      if (balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package com.skhanal5.resilience;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides when a failed request is sent again. Only idempotent requests are retried, by default GET
+ * and DELETE. Inserts are not retried, as a retried POST could insert the same rows twice. Updates
+ * are not retried by default either, since a PATCH that fires triggers or whose filter depends on
+ * the columns it sets is not idempotent; add PATCH to the retryable methods if yours are. A request
+ * is retried when the server answers with a transient status code, or when it fails with an {@link
+ * IOException} such as a refused or reset connection.
+ *
+ * <p>Retries back off with decorrelated jitter, so clients that failed together do not retry in
+ * lockstep. A Retry-After header on a 429 or 503 response is honored as the shortest delay before
+ * the retry. A retry budget bounds retries to a fraction of the traffic, so that retries cannot
+ * multiply the load on a database that is already overloaded.
+ *
+ * <p>Use the {@link RetryPolicyBuilder} to configure a RetryPolicy.
+ */
+public class RetryPolicy {
+
+  private final int maxAttempts;
+
+  private final long baseDelayNanos;
+
+  private final long maxDelayNanos;
+
+  private final Set<Integer> retryableStatuses;
+
+  private final Set<String> retryableMethods;
+
+  private final RetryBudget budget;
+
+  private final LongAdder retryCount = new LongAdder();
+
+  private final LongAdder budgetExhaustedCount = new LongAdder();
+
+  private RetryPolicy(RetryPolicyBuilder builder) {
+    this.maxAttempts = builder.maxAttempts;
+    this.baseDelayNanos = builder.baseDelay.toNanos();
+    this.maxDelayNanos = builder.maxDelay.toNanos();
+    this.retryableStatuses = Set.copyOf(builder.retryableStatuses);
+    this.retryableMethods = Set.copyOf(builder.retryableMethods);
+    this.budget = new RetryBudget(builder.budgetRatio, builder.budgetMinRetries);
+  }
+
+  /** The main entrypoint to configure a RetryPolicy. */
+  public static class RetryPolicyBuilder {
+
+    int maxAttempts = 3;
+
+    Duration baseDelay = Duration.ofMillis(50);
+
+    Duration maxDelay = Duration.ofSeconds(2);
+
+    Set<Integer> retryableStatuses = Set.of(408, 429, 502, 503, 504);
+
+    Set<String> retryableMethods = Set.of("GET", "DELETE");
+
+    double budgetRatio = 0.1;
+
+    int budgetMinRetries = 10;
+
+    /**
+     * Used to set how often a request is sent at most, including the first attempt. Defaults to 3.
+     *
+     * @param maxAttempts the maximum number of attempts
+     * @return a RetryPolicyBuilder with this configured
+     */
+    public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Used to set the range of the backoff between attempts. Defaults to 50ms and 2s.
+     *
+     * @param baseDelay the shortest delay before a retry
+     * @param maxDelay the longest delay before a retry
+     * @return a RetryPolicyBuilder with this configured
+     */
+    public RetryPolicyBuilder backoff(Duration baseDelay, Duration maxDelay) {
+      this.baseDelay = baseDelay;
+      this.maxDelay = maxDelay;
+      return this;
+    }
+
+    /**
+     * Used to set the status codes that are retried. Defaults to 408, 429, 502, 503 and 504.
+     *
+     * @param statusCodes the retryable status codes
+     * @return a RetryPolicyBuilder with this configured
+     */
+    public RetryPolicyBuilder retryableStatuses(Set<Integer> statusCodes) {
+      this.retryableStatuses = statusCodes;
+      return this;
+    }
+
+    /**
+     * Used to set the HTTP methods that are retried. Defaults to GET and DELETE.
+     *
+     * @param methods the retryable HTTP methods
+     * @return a RetryPolicyBuilder with this configured
+     */
+    public RetryPolicyBuilder retryableMethods(Set<String> methods) {
+      this.retryableMethods = methods;
+      return this;
+    }
+
+    /**
+     * Used to bound retries to a share of the traffic. Defaults to 10% with a reserve of 10
+     * retries.
+     *
+     * @param ratio the number of retries allowed per request sent, e.g. 0.1 for 10%
+     * @param minRetries the retries allowed regardless of traffic, also the largest burst
+     * @return a RetryPolicyBuilder with this configured
+     */
+    public RetryPolicyBuilder budget(double ratio, int minRetries) {
+      this.budgetRatio = ratio;
+      this.budgetMinRetries = minRetries;
+      return this;
+    }
+
+    /**
+     * Used to build a RetryPolicy with all configurations.
+     *
+     * @return an instance of the RetryPolicy
+     */
+    public RetryPolicy build() {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException("maxAttempts must be at least 1");
+      }
+      if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+        throw new IllegalArgumentException("expected 0 <= baseDelay <= maxDelay");
+      }
+      return new RetryPolicy(this);
+    }
+  }
+
+  /**
+   * @return how often a request is sent at most, including the first attempt
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * @return the number of retries sent so far
+   */
+  public long getRetryCount() {
+    return retryCount.sum();
+  }
+
+  /**
+   * @return the number of retries skipped because the retry budget was used up
+   */
+  public long getBudgetExhaustedCount() {
+    return budgetExhaustedCount.sum();
+  }
+
+  /**
+   * @param method the HTTP method of a request
+   * @return whether requests with this method may be retried
+   */
+  public boolean isRetryableMethod(String method) {
+    return retryableMethods.contains(method);
+  }
+
+  /**
+   * @param statusCode the status code of a response
+   * @return whether the status code signals a transient failure
+   */
+  public boolean isRetryableStatus(int statusCode) {
+    return retryableStatuses.contains(statusCode);
+  }
+
+  /**
+   * @param error the error a request failed with
+   * @return whether the error, or one of its causes, is an {@link IOException}
+   */
+  public boolean isRetryableError(Throwable error) {
+    for (var cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Must be called once for every retryable request before its first attempt is sent. */
+  public void onRequest() {
+    budget.deposit();
+  }
+
+  /**
+   * Asks the retry budget for a retry of a request that failed its attempt.
+   *
+   * @param attempts the number of attempts made so far
+   * @return whether the request may be retried
+   */
+  public boolean tryRetry(int attempts) {
+    if (attempts >= maxAttempts) {
+      return false;
+    }
+    if (!budget.tryWithdraw()) {
+      budgetExhaustedCount.increment();
+      return false;
+    }
+    retryCount.increment();
+    return true;
+  }
+
+  /**
+   * Computes the delay before the next attempt with decorrelated jitter: a random delay between the
+   * base delay and three times the previous delay, capped at the maximum delay.
+   *
+   * @param previousDelayNanos the previous delay, or 0 before the first retry
+   * @return the delay before the next attempt in nanoseconds
+   */
+  public long nextDelayNanos(long previousDelayNanos) {
+    var upperBound = Math.max(baseDelayNanos, previousDelayNanos * 3);
+    var delay =
+        upperBound > baseDelayNanos
+            ? ThreadLocalRandom.current().nextLong(baseDelayNanos, upperBound)
+            : baseDelayNanos;
+    return Math.min(maxDelayNanos, delay);
+  }
+
+  /**
+   * Computes the delay before the next attempt like {@link #nextDelayNanos(long)}, but waits at
+   * least as long as the server asked for if it answered with a 429 or 503 and a Retry-After
+   * header. The Retry-After delay is not capped at the maximum delay.
+   *
+   * @param previousDelayNanos the previous delay, or 0 before the first retry
+   * @param statusCode the status code of the failed attempt, or 0 if it failed without a response
+   * @param retryAfter the Retry-After header of the response, or null if it has none
+   * @return the delay before the next attempt in nanoseconds
+   */
+  public long nextDelayNanos(long previousDelayNanos, int statusCode, String retryAfter) {
+    var delay = nextDelayNanos(previousDelayNanos);
+    if (retryAfter == null || (statusCode != 429 && statusCode != 503)) {
+      return delay;
+    }
+    return Math.max(delay, retryAfterNanos(retryAfter, Instant.now()));
+  }
+
+  /**
+   * Parses a Retry-After header, which is either a number of seconds or an HTTP date.
+   *
+   * @return how long the header asks to wait from now on in nanoseconds, or 0 if it is malformed
+   */
+  static long retryAfterNanos(String retryAfter, Instant now) {
+    var value = retryAfter.trim();
+    try {
+      if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+      }
+      var date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+      return Math.max(0, Duration.between(now, date).toNanos());
+    } catch (NumberFormatException | DateTimeParseException | ArithmeticException e) {
+      return 0;
+    }
+  }
+}
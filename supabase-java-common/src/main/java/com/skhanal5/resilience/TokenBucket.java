@@ -0,0 +1,55 @@
+package com.skhanal5.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket implemented as a generic cell rate algorithm (GCRA). Instead of a token count that
+ * has to be refilled, the bucket keeps the theoretical arrival time of the next permit in a single
+ * AtomicLong, so taking a permit is one compare-and-set without any lock or background refill.
+ *
+ * <p>Every permit pushes the theoretical arrival time one emission interval further. A permit is
+ * granted as long as that time stays within burst intervals of now, which lets up to burst permits
+ * through at once after the bucket has been idle.
+ */
+class TokenBucket {
+
+  private final long intervalNanos;
+
+  private final long burstNanos;
+
+  private final AtomicLong theoreticalArrivalNanos;
+
+  TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+    if (permitsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+    }
+    this.intervalNanos = Math.max(1, Math.round(1_000_000_000L / permitsPerSecond));
+    this.burstNanos = intervalNanos * burst;
+    this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Reserves a permit, if it becomes available within maxWaitNanos.
+   *
+   * @return how long to wait before the reserved permit may be used, or -1 if nothing was reserved
+   */
+  long tryReserve(long nowNanos, long maxWaitNanos) {
+    while (true) {
+      var current = theoreticalArrivalNanos.get();
+      // compared by difference, since nanoTime may be negative
+      var next = (current - nowNanos > 0 ? current : nowNanos) + intervalNanos;
+      var waitNanos = next - burstNanos - nowNanos;
+      if (waitNanos > maxWaitNanos) {
+        return -1;
+      }
+      if (theoreticalArrivalNanos.compareAndSet(current, next)) {
+        return Math.max(0, waitNanos);
+      }
+    }
+  }
+
+  /** Hands back a reserved permit that ends up not being used. */
+  void refund() {
+    theoreticalArrivalNanos.addAndGet(-intervalNanos);
+  }
+}
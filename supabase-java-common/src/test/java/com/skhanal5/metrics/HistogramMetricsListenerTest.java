@@ -0,0 +1,26 @@
+package com.skhanal5.metrics;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HistogramMetricsListenerTest {
+
+  @Test
+  void testKeepsHistogramPerTags() {
+    var listener = new HistogramMetricsListener(Duration.ofMinutes(1));
+
+    listener.onPhase(RequestPhase.HEADERS, "foo", "GET", 200, 1_000);
+    listener.onPhase(RequestPhase.HEADERS, "foo", "GET", 200, 2_000);
+    listener.onPhase(RequestPhase.HEADERS, "foo", "GET", 503, 3_000);
+    listener.onPhase(RequestPhase.BUILD, "bar", "GET", RequestMetricsListener.NO_STATUS, 4_000);
+
+    Assertions.assertEquals(
+        2, listener.getHistogram(RequestPhase.HEADERS, "foo", "GET", 200).count());
+    Assertions.assertEquals(
+        1, listener.getHistogram(RequestPhase.HEADERS, "foo", "GET", 503).count());
+    Assertions.assertEquals(1, listener.getHistogram(RequestPhase.BUILD, "bar", "GET").count());
+    Assertions.assertNull(listener.getHistogram(RequestPhase.TRANSFER, "foo", "GET", 200));
+    Assertions.assertEquals(3, listener.getHistograms().size());
+  }
+}
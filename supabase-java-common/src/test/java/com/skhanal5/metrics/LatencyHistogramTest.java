@@ -0,0 +1,77 @@
+package com.skhanal5.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LatencyHistogramTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private LatencyHistogram newHistogram() {
+    return new LatencyHistogram(Duration.ofSeconds(10), 10, clock::get);
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {0, 1, 7, 8, 9, 15, 16, 1_000, 123_456_789, Long.MAX_VALUE / 2})
+  void testBucketContainsValue(long value) {
+    var bucket = LatencyHistogram.bucketOf(value);
+    Assertions.assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+    if (bucket > 0) {
+      Assertions.assertTrue(value > LatencyHistogram.upperBoundOf(bucket - 1));
+    }
+  }
+
+  @Test
+  void testRejectsInvalidWindow() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> new LatencyHistogram(Duration.ofSeconds(1), 0));
+  }
+
+  @Test
+  void testPercentileOfEmptyHistogram() {
+    Assertions.assertEquals(0, newHistogram().percentile(0.99));
+    Assertions.assertEquals(0, newHistogram().count());
+  }
+
+  @Test
+  void testPercentileWithinRelativeError() {
+    var histogram = newHistogram();
+    for (long millis = 1; millis <= 100; millis++) {
+      histogram.record(Duration.ofMillis(millis).toNanos());
+    }
+
+    var p50 = histogram.percentile(0.5);
+    var p99 = histogram.percentile(0.99);
+
+    Assertions.assertEquals(100, histogram.count());
+    Assertions.assertEquals(50, Duration.ofNanos(p50).toMillis(), 50 * 0.125);
+    Assertions.assertEquals(99, Duration.ofNanos(p99).toMillis(), 99 * 0.125);
+  }
+
+  @Test
+  void testOldValuesLeaveTheWindow() {
+    var histogram = newHistogram();
+    histogram.record(Duration.ofSeconds(1).toNanos());
+    clock.addAndGet(Duration.ofSeconds(5).toNanos());
+    histogram.record(Duration.ofMillis(1).toNanos());
+    Assertions.assertEquals(2, histogram.count());
+
+    clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+    Assertions.assertEquals(1, histogram.count());
+    Assertions.assertTrue(histogram.percentile(1.0) < Duration.ofMillis(2).toNanos());
+  }
+
+  @Test
+  void testReusedSliceIsCleared() {
+    var histogram = newHistogram();
+    histogram.record(1_000);
+    clock.addAndGet(Duration.ofSeconds(10).toNanos());
+    histogram.record(2_000);
+    Assertions.assertEquals(1, histogram.count());
+  }
+}
@@ -0,0 +1,43 @@
+package com.skhanal5.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MicrometerMetricsListenerTest {
+
+  @Test
+  void testRecordsIntoTaggedTimers() {
+    var registry = new SimpleMeterRegistry();
+    var listener = new MicrometerMetricsListener(registry);
+
+    listener.onPhase(RequestPhase.HEADERS, "foo", "GET", 200, 1_000_000);
+    listener.onPhase(RequestPhase.HEADERS, "foo", "GET", 200, 3_000_000);
+    listener.onPhase(RequestPhase.DESERIALIZE, "foo", "GET", 200, 2_000);
+    listener.onPhase(
+        RequestPhase.SERIALIZE, "bar", "POST", RequestMetricsListener.NO_STATUS, 1_000);
+
+    var headers =
+        registry
+            .get(MicrometerMetricsListener.METER_NAME)
+            .tags("phase", "headers", "table", "foo", "method", "GET", "status", "200")
+            .timer();
+    Assertions.assertEquals(2, headers.count());
+    Assertions.assertEquals(4, headers.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    var deserialize =
+        registry
+            .get(MicrometerMetricsListener.METER_NAME)
+            .tags("phase", "deserialize", "table", "foo", "method", "GET", "status", "200")
+            .timer();
+    Assertions.assertEquals(1, deserialize.count());
+    // phases before the response carry no status tag at all
+    var serialize =
+        registry
+            .get(MicrometerMetricsListener.CLIENT_METER_NAME)
+            .tags("phase", "serialize", "table", "bar", "method", "POST")
+            .timer();
+    Assertions.assertEquals(1, serialize.count());
+    Assertions.assertNull(serialize.getId().getTag("status"));
+  }
+}
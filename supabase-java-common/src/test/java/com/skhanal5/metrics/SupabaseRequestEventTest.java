@@ -0,0 +1,53 @@
+package com.skhanal5.metrics;
+
+import java.nio.file.Files;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SupabaseRequestEventTest {
+
+  static List<RecordedEvent> record(Runnable body) throws Exception {
+    var file = Files.createTempFile("supabase", ".jfr");
+    try (var recording = new Recording()) {
+      recording.enable(SupabaseRequestEvent.NAME);
+      recording.start();
+      body.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals(SupabaseRequestEvent.NAME))
+          .toList();
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  void testEventIsDisabledOutsideRecording() {
+    Assertions.assertFalse(new SupabaseRequestEvent().isEnabled());
+  }
+
+  @Test
+  void testEventIsRecorded() throws Exception {
+    var events =
+        record(
+            () -> {
+              var event = new SupabaseRequestEvent();
+              event.begin();
+              event.table = "foo";
+              event.method = "GET";
+              event.status = 200;
+              event.responseBytes = 42;
+              event.commit();
+            });
+
+    Assertions.assertEquals(1, events.size());
+    Assertions.assertEquals("foo", events.get(0).getString("table"));
+    Assertions.assertEquals(200, events.get(0).getInt("status"));
+    Assertions.assertEquals(42, events.get(0).getLong("responseBytes"));
+  }
+}
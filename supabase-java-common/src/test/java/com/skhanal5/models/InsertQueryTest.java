@@ -33,6 +33,15 @@ public class InsertQueryTest {
     Assertions.assertEquals(expectedInsert, insertQuery.getValuesToInsert());
   }
 
+  @Test
+  void testBuildInsertQueryFromList() {
+    List<Map<String, Object>> expectedInsert = List.of(Map.of("foo", "bar"), Map.of("foo", "baz"));
+
+    var insertQuery = new InsertQueryBuilder().from("foo").insert(expectedInsert).build();
+
+    Assertions.assertEquals(expectedInsert, insertQuery.getValuesToInsert());
+  }
+
   @Test
   void testBuildAdditionalHeadersMinimal() {
     var insertQuery =
@@ -19,4 +19,25 @@ class PaginationTest {
     var expectedString = "0-0";
     Assertions.assertEquals(expectedString, pagination.serialize());
   }
+
+  @Test
+  void testSize() {
+    Assertions.assertEquals(1, new Pagination(0, 0).size());
+    Assertions.assertEquals(10, new Pagination(10, 19).size());
+  }
+
+  @Test
+  void testNext() {
+    var next = new Pagination(0, 9).next();
+    Assertions.assertEquals(10, next.start);
+    Assertions.assertEquals(19, next.end);
+  }
+
+  @Test
+  void testNextIsClippedToLimit() {
+    var next = new Pagination(0, 9, 14).next();
+    Assertions.assertEquals(10, next.start);
+    Assertions.assertEquals(14, next.end);
+    Assertions.assertFalse(next.hasNext());
+  }
 }
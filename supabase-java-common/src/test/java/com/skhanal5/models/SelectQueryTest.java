@@ -94,4 +94,130 @@ class SelectQueryTest {
     var requestBody = selectQuery.buildRequestBody();
     Assertions.assertTrue(requestBody.isEmpty());
   }
+
+  @Test
+  void testWithRangeKeepsOtherSettings() {
+    var filter = new Filter.FilterBuilder().equals("baz", "bin").build();
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").filter(filter).build();
+
+    var rangedQuery = selectQuery.withRange(5, 9);
+
+    Assertions.assertTrue(selectQuery.getPagination().isEmpty());
+    Assertions.assertEquals("5-9", rangedQuery.buildAdditionalHeaders().get().get("Range"));
+    Assertions.assertEquals(selectQuery.buildQueryParams(), rangedQuery.buildQueryParams());
+  }
+
+  @Test
+  void testFirstPageWithoutRange() {
+    var selectQuery = new SelectQuery.SelectQueryBuilder().from("foo").select("bar").build();
+    var page = selectQuery.firstPage(10);
+    Assertions.assertEquals("0-9", page.buildAdditionalHeaders().get().get("Range"));
+  }
+
+  @Test
+  void testFirstPageStartsAtConfiguredRange() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").range(20, 100).build();
+    var page = selectQuery.firstPage(5);
+    Assertions.assertEquals("20-24", page.buildAdditionalHeaders().get().get("Range"));
+  }
+
+  @Test
+  void testPagesAreClippedToConfiguredRange() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").range(0, 99).build();
+    var first = selectQuery.firstPage(40);
+    var last = first.nextPage().nextPage();
+
+    Assertions.assertEquals("0-39", first.buildAdditionalHeaders().get().get("Range"));
+    Assertions.assertEquals("80-99", last.buildAdditionalHeaders().get().get("Range"));
+    Assertions.assertFalse(last.hasNextPage());
+    Assertions.assertThrows(IllegalStateException.class, last::nextPage);
+  }
+
+  @Test
+  void testFirstPageLargerThanConfiguredRange() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").range(0, 3).build();
+    var page = selectQuery.firstPage(10);
+    Assertions.assertEquals("0-3", page.buildAdditionalHeaders().get().get("Range"));
+    Assertions.assertFalse(page.hasNextPage());
+  }
+
+  @Test
+  void testFirstPageRejectsNonPositiveSize() {
+    var selectQuery = new SelectQuery.SelectQueryBuilder().from("foo").select("bar").build();
+    Assertions.assertThrows(IllegalArgumentException.class, () -> selectQuery.firstPage(0));
+  }
+
+  @Test
+  void testNextPage() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").range(0, 9).build();
+    var next = selectQuery.nextPage().nextPage();
+    Assertions.assertEquals("20-29", next.buildAdditionalHeaders().get().get("Range"));
+  }
+
+  @Test
+  void testNextPageWithoutRange() {
+    var selectQuery = new SelectQuery.SelectQueryBuilder().from("foo").select("bar").build();
+    Assertions.assertThrows(IllegalStateException.class, selectQuery::nextPage);
+  }
+
+  @Test
+  void testBuildQueryParamsWithOrder() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").order("id").build();
+    var expectedQueryParams = Optional.of(Map.of("select", "bar", "order", "id.asc"));
+    Assertions.assertEquals(expectedQueryParams, selectQuery.buildQueryParams());
+  }
+
+  @Test
+  void testWithOrderAppendsTiebreaker() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").order("created_at").build();
+    var reordered = selectQuery.withOrder("id");
+    Assertions.assertEquals(Optional.of("created_at.asc,id.asc"), reordered.getOrder());
+    Assertions.assertEquals(Optional.of("created_at.asc"), selectQuery.getOrder());
+  }
+
+  @Test
+  void testWithOrderKeepsColumnAlreadyOrderedBy() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").order("id").build();
+    Assertions.assertEquals(Optional.of("id.asc"), selectQuery.withOrder("id").getOrder());
+  }
+
+  @Test
+  void testWithOrderWithoutOrder() {
+    var selectQuery = new SelectQuery.SelectQueryBuilder().from("foo").select("bar").build();
+    Assertions.assertEquals(Optional.of("id.asc"), selectQuery.withOrder("id").getOrder());
+  }
+
+  @Test
+  void testPageWithoutRange() {
+    var selectQuery = new SelectQuery.SelectQueryBuilder().from("foo").select("bar").build();
+    var page = selectQuery.page(2, 10).orElseThrow();
+    Assertions.assertEquals("20-29", page.buildAdditionalHeaders().get().get("Range"));
+  }
+
+  @Test
+  void testPageIsClippedToRange() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").range(5, 24).build();
+    Assertions.assertEquals(
+        "5-14", selectQuery.page(0, 10).orElseThrow().buildAdditionalHeaders().get().get("Range"));
+    Assertions.assertEquals(
+        "15-24", selectQuery.page(1, 10).orElseThrow().buildAdditionalHeaders().get().get("Range"));
+    Assertions.assertTrue(selectQuery.page(2, 10).isEmpty());
+  }
+
+  @Test
+  void testPageKeepsOrder() {
+    var selectQuery =
+        new SelectQuery.SelectQueryBuilder().from("foo").select("bar").order("id").build();
+    Assertions.assertEquals(
+        Optional.of("id.asc"), selectQuery.page(3, 10).orElseThrow().getOrder());
+  }
 }
@@ -0,0 +1,47 @@
+package com.skhanal5.resilience;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerRegistryTest {
+
+  @Test
+  void testBreakerPerTable() {
+    var registry =
+        new CircuitBreakerRegistry.CircuitBreakerRegistryBuilder()
+            .defaults(new CircuitBreaker.CircuitBreakerBuilder().slidingWindow(1, 1))
+            .build();
+
+    registry.forTable("foo").acquire().onFailure();
+
+    Assertions.assertSame(registry.forTable("foo"), registry.forTable("foo"));
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, registry.forTable("foo").getState());
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, registry.forTable("bar").getState());
+  }
+
+  @Test
+  void testTableConfigurationOverridesDefaults() {
+    var registry =
+        new CircuitBreakerRegistry.CircuitBreakerRegistryBuilder()
+            .defaults(new CircuitBreaker.CircuitBreakerBuilder().slidingWindow(1, 1))
+            .table(
+                "foo",
+                new CircuitBreaker.CircuitBreakerBuilder()
+                    .slidingWindow(10, 5)
+                    .openDuration(Duration.ofSeconds(1)))
+            .build();
+
+    registry.forTable("foo").acquire().onFailure();
+    registry.forTable("bar").acquire().onFailure();
+
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, registry.forTable("foo").getState());
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, registry.forTable("bar").getState());
+  }
+
+  @Test
+  void testForTableRequiresATable() {
+    var registry = new CircuitBreakerRegistry.CircuitBreakerRegistryBuilder().build();
+    Assertions.assertThrows(NullPointerException.class, () -> registry.forTable(null));
+  }
+}
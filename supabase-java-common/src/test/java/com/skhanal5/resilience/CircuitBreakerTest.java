@@ -0,0 +1,167 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.exceptions.CircuitBreakerOpenException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private CircuitBreaker newBreaker() {
+    return new CircuitBreaker.CircuitBreakerBuilder()
+        .failureRateThreshold(0.5)
+        .slowCalls(Duration.ofMillis(100), 0.5)
+        .slidingWindow(10, 4)
+        .openDuration(Duration.ofSeconds(1))
+        .halfOpenProbes(2)
+        .build("foo", clock::get);
+  }
+
+  private static void fail(CircuitBreaker breaker, int calls) {
+    for (int i = 0; i < calls; i++) {
+      breaker.acquire().onFailure();
+    }
+  }
+
+  private static void succeed(CircuitBreaker breaker, int calls) {
+    for (int i = 0; i < calls; i++) {
+      breaker.acquire().onSuccess();
+    }
+  }
+
+  private void advance(Duration duration) {
+    clock.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  void testBuilderRejectsEmptyWindow() {
+    var builder = new CircuitBreaker.CircuitBreakerBuilder().slidingWindow(0, 0);
+    Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+  }
+
+  @Test
+  void testStaysClosedBelowMinimumCalls() {
+    var breaker = newBreaker();
+    fail(breaker, 3);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void testOpensOnFailureRate() {
+    var breaker = newBreaker();
+    succeed(breaker, 2);
+    fail(breaker, 2);
+
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    Assertions.assertTrue(breaker.tryAcquire().isEmpty());
+    var exception = Assertions.assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+    Assertions.assertEquals("foo", exception.getTable());
+  }
+
+  @Test
+  void testOpensOnSlowCallRate() {
+    var breaker = newBreaker();
+    succeed(breaker, 2);
+    for (int i = 0; i < 2; i++) {
+      var permit = breaker.acquire();
+      advance(Duration.ofMillis(100));
+      permit.onSuccess();
+    }
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void testClientErrorsDoNotCountAsFailures() {
+    var breaker = newBreaker();
+    for (int i = 0; i < 10; i++) {
+      breaker.acquire().onResponse(404);
+    }
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+    for (int i = 0; i < 5; i++) {
+      breaker.acquire().onResponse(503);
+    }
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  void testOldOutcomesLeaveTheWindow() {
+    var breaker = newBreaker();
+    succeed(breaker, 4);
+    fail(breaker, 3);
+    succeed(breaker, 9);
+    // the window now only holds successes, so 4 failures out of 10 calls stay below the threshold
+    fail(breaker, 4);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void testHalfOpenProbesCloseTheBreaker() {
+    var breaker = newBreaker();
+    fail(breaker, 4);
+    advance(Duration.ofSeconds(1));
+
+    Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    var first = breaker.acquire();
+    var second = breaker.acquire();
+    Assertions.assertTrue(breaker.tryAcquire().isEmpty());
+    first.onSuccess();
+    second.onSuccess();
+
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    fail(breaker, 3);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void testFailedProbesReopenTheBreaker() {
+    var breaker = newBreaker();
+    fail(breaker, 4);
+    advance(Duration.ofSeconds(1));
+
+    succeed(breaker, 1);
+    fail(breaker, 1);
+
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    advance(Duration.ofMillis(999));
+    Assertions.assertTrue(breaker.tryAcquire().isEmpty());
+  }
+
+  @Test
+  void testIgnoredProbeIsReissued() {
+    var breaker = newBreaker();
+    fail(breaker, 4);
+    advance(Duration.ofSeconds(1));
+
+    breaker.acquire().onIgnore();
+    breaker.acquire().onIgnore();
+
+    Assertions.assertTrue(breaker.tryAcquire().isPresent());
+  }
+
+  @Test
+  void testOutcomesFromEarlierStateAreIgnored() {
+    var breaker = newBreaker();
+    var stale = breaker.acquire();
+    fail(breaker, 4);
+    advance(Duration.ofSeconds(1));
+    breaker.acquire().onSuccess();
+
+    stale.onSuccess();
+
+    Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+  }
+
+  @Test
+  void testPermitIsReleasedOnce() {
+    var breaker = newBreaker();
+    var permit = breaker.acquire();
+    for (int i = 0; i < 4; i++) {
+      permit.onFailure();
+    }
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+}
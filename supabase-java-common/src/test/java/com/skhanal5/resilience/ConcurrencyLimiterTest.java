@@ -0,0 +1,127 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.exceptions.ConcurrencyLimitExceededException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+  private static ConcurrencyLimiter newLimiter(int limit, int queueSize, Duration wait) {
+    return new ConcurrencyLimiter.ConcurrencyLimiterBuilder()
+        .strategy(LimitStrategy.fixed(limit))
+        .queue(queueSize, wait)
+        .build();
+  }
+
+  @Test
+  void testBuilderDefaults() {
+    var limiter = new ConcurrencyLimiter.ConcurrencyLimiterBuilder().build();
+    Assertions.assertEquals(20, limiter.getLimit());
+    Assertions.assertEquals(0, limiter.getInFlight());
+    Assertions.assertEquals(0, limiter.getQueueDepth());
+  }
+
+  @Test
+  void testBuilderRejectsNegativeQueue() {
+    var builder = new ConcurrencyLimiter.ConcurrencyLimiterBuilder().queue(-1, Duration.ZERO);
+    Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+  }
+
+  @Test
+  void testTryAcquireUpToLimit() {
+    var limiter = newLimiter(2, 0, Duration.ZERO);
+
+    var first = limiter.tryAcquire();
+    var second = limiter.tryAcquire();
+    var third = limiter.tryAcquire();
+
+    Assertions.assertTrue(first.isPresent());
+    Assertions.assertTrue(second.isPresent());
+    Assertions.assertTrue(third.isEmpty());
+    Assertions.assertEquals(2, limiter.getInFlight());
+    Assertions.assertEquals(1, limiter.getRejectedCount());
+  }
+
+  @Test
+  void testReleaseFreesASlot() {
+    var limiter = newLimiter(1, 0, Duration.ZERO);
+    var permit = limiter.tryAcquire().orElseThrow();
+
+    permit.onSuccess();
+    permit.onSuccess(); // released only once
+
+    Assertions.assertEquals(0, limiter.getInFlight());
+    Assertions.assertTrue(limiter.tryAcquire().isPresent());
+  }
+
+  @Test
+  void testAcquireRejectsFastWithoutQueue() {
+    var limiter = newLimiter(1, 0, Duration.ZERO);
+    limiter.acquire().join();
+
+    var rejected = limiter.acquire();
+
+    var exception = Assertions.assertThrows(CompletionException.class, rejected::join);
+    var cause =
+        Assertions.assertInstanceOf(ConcurrencyLimitExceededException.class, exception.getCause());
+    Assertions.assertEquals(1, cause.getLimit());
+  }
+
+  @Test
+  void testAcquireQueuesUntilReleased() {
+    var limiter = newLimiter(1, 1, Duration.ofSeconds(10));
+    var permit = limiter.acquire().join();
+
+    var queued = limiter.acquire();
+    Assertions.assertFalse(queued.isDone());
+    Assertions.assertEquals(1, limiter.getQueueDepth());
+
+    permit.onSuccess();
+
+    Assertions.assertNotNull(queued.join());
+    Assertions.assertEquals(0, limiter.getQueueDepth());
+    Assertions.assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  void testAcquireRejectsWhenQueueIsFull() {
+    var limiter = newLimiter(1, 1, Duration.ofSeconds(10));
+    limiter.acquire().join();
+    limiter.acquire();
+
+    var rejected = limiter.acquire();
+
+    Assertions.assertTrue(rejected.isCompletedExceptionally());
+  }
+
+  @Test
+  void testAcquireTimesOutInQueue() {
+    var limiter = newLimiter(1, 1, Duration.ofMillis(20));
+    var permit = limiter.acquire().join();
+
+    var queued = limiter.acquire();
+
+    var exception = Assertions.assertThrows(CompletionException.class, queued::join);
+    Assertions.assertInstanceOf(ConcurrencyLimitExceededException.class, exception.getCause());
+    Assertions.assertEquals(0, limiter.getQueueDepth());
+
+    permit.onSuccess();
+    Assertions.assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void testDroppedResponsesShrinkAdaptiveLimit() {
+    var limiter =
+        new ConcurrencyLimiter.ConcurrencyLimiterBuilder()
+            .strategy(LimitStrategy.aimd(10, 1, 100))
+            .build();
+
+    limiter.tryAcquire().orElseThrow().onResponse(503);
+    Assertions.assertEquals(9, limiter.getLimit());
+
+    limiter.tryAcquire().orElseThrow().onIgnore();
+    Assertions.assertEquals(9, limiter.getLimit());
+  }
+}
@@ -0,0 +1,81 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.metrics.LatencyHistogram;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HedgingPolicyTest {
+
+  @Test
+  void testBuilderRejectsInvalidPercentile() {
+    var builder = new HedgingPolicy.HedgingPolicyBuilder().percentile(1);
+    Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+  }
+
+  @Test
+  void testNoHedgeDelayWithoutEnoughSamples() {
+    var policy = new HedgingPolicy.HedgingPolicyBuilder().build();
+    for (int i = 0; i < HedgingPolicy.MIN_SAMPLES - 1; i++) {
+      policy.recordLatency(1_000_000);
+    }
+    Assertions.assertEquals(-1, policy.hedgeDelayNanos());
+  }
+
+  @Test
+  void testHedgeDelayFollowsPercentile() {
+    var policy = new HedgingPolicy.HedgingPolicyBuilder().percentile(0.9).build();
+    for (long millis = 1; millis <= 100; millis++) {
+      policy.recordLatency(Duration.ofMillis(millis).toNanos());
+    }
+    var delayMillis = Duration.ofNanos(policy.hedgeDelayNanos()).toMillis();
+    Assertions.assertEquals(90, delayMillis, 90 * 0.125);
+  }
+
+  @Test
+  void testHedgeDelayIsAtLeastMinDelay() {
+    var policy =
+        new HedgingPolicy.HedgingPolicyBuilder()
+            .minDelay(Duration.ofMillis(10))
+            .build(new LatencyHistogram(Duration.ofMinutes(1), 6));
+    for (int i = 0; i < HedgingPolicy.MIN_SAMPLES; i++) {
+      policy.recordLatency(1_000);
+    }
+    Assertions.assertEquals(Duration.ofMillis(10).toNanos(), policy.hedgeDelayNanos());
+  }
+
+  @Test
+  void testHedgeDelayIsRefreshedPeriodically() {
+    var clock = new AtomicLong();
+    var policy =
+        new HedgingPolicy.HedgingPolicyBuilder()
+            .minDelay(Duration.ofNanos(1))
+            .build(new LatencyHistogram(Duration.ofMinutes(1), 6), clock::get);
+    for (int i = 0; i < HedgingPolicy.MIN_SAMPLES; i++) {
+      policy.recordLatency(Duration.ofMillis(1).toNanos());
+    }
+    var delayNanos = policy.hedgeDelayNanos();
+    for (int i = 0; i < 10 * HedgingPolicy.MIN_SAMPLES; i++) {
+      policy.recordLatency(Duration.ofSeconds(1).toNanos());
+    }
+
+    Assertions.assertEquals(delayNanos, policy.hedgeDelayNanos());
+    clock.addAndGet(Duration.ofMillis(HedgingPolicy.REFRESH_INTERVAL_MILLIS).toNanos());
+    Assertions.assertTrue(policy.hedgeDelayNanos() > delayNanos);
+  }
+
+  @Test
+  void testTryHedgeIsCappedByExtraLoad() {
+    var policy = new HedgingPolicy.HedgingPolicyBuilder().maxExtraLoad(0.5).build();
+    Assertions.assertTrue(policy.tryHedge()); // the initial reserve
+    Assertions.assertFalse(policy.tryHedge());
+
+    policy.onRequest();
+    policy.onRequest();
+
+    Assertions.assertTrue(policy.tryHedge());
+    Assertions.assertFalse(policy.tryHedge());
+    Assertions.assertEquals(2, policy.getHedgeCount());
+  }
+}
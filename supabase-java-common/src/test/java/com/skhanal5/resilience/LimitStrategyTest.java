@@ -0,0 +1,86 @@
+package com.skhanal5.resilience;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LimitStrategyTest {
+
+  private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  void testFixedLimitNeverChanges() {
+    var strategy = LimitStrategy.fixed(5);
+    Assertions.assertEquals(5, strategy.initialLimit());
+    Assertions.assertEquals(5, strategy.update(5, RTT, 5, true));
+    Assertions.assertEquals(5, strategy.update(5, RTT, 5, false));
+  }
+
+  @Test
+  void testFixedLimitRejectsZero() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> LimitStrategy.fixed(0));
+  }
+
+  @Test
+  void testAimdIncreasesWhenUsed() {
+    var strategy = LimitStrategy.aimd(10, 1, 11);
+    Assertions.assertEquals(11, strategy.update(10, RTT, 5, false));
+    Assertions.assertEquals(11, strategy.update(11, RTT, 11, false));
+  }
+
+  @Test
+  void testAimdDoesNotIncreaseWhenIdle() {
+    var strategy = LimitStrategy.aimd(10, 1, 100);
+    Assertions.assertEquals(10, strategy.update(10, RTT, 1, false));
+  }
+
+  @Test
+  void testAimdBacksOffOnDrop() {
+    var strategy = LimitStrategy.aimd(10, 8, 100);
+    Assertions.assertEquals(9, strategy.update(10, RTT, 10, true));
+    Assertions.assertEquals(8, strategy.update(8, RTT, 10, true));
+  }
+
+  @Test
+  void testAimdRejectsInvalidBounds() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> LimitStrategy.aimd(5, 6, 10));
+  }
+
+  @Test
+  void testGradientGrowsWhileLatencyIsSteady() {
+    var strategy = LimitStrategy.gradient(10, 1, 100);
+    var limit = strategy.initialLimit();
+    for (int i = 0; i < 50; i++) {
+      limit = strategy.update(limit, RTT, limit, false);
+    }
+    Assertions.assertTrue(limit > 10);
+  }
+
+  @Test
+  void testGradientShrinksWhenLatencyRises() {
+    var strategy = LimitStrategy.gradient(50, 1, 100);
+    var limit = strategy.initialLimit();
+    for (int i = 0; i < 20; i++) {
+      limit = strategy.update(limit, RTT, limit, false);
+    }
+    var steadyLimit = limit;
+    for (int i = 0; i < 50; i++) {
+      limit = strategy.update(limit, RTT * 10, limit, false);
+    }
+    Assertions.assertTrue(limit < steadyLimit);
+  }
+
+  @Test
+  void testGradientStaysWithinBounds() {
+    var strategy = LimitStrategy.gradient(10, 5, 12);
+    var limit = strategy.initialLimit();
+    for (int i = 0; i < 100; i++) {
+      limit = strategy.update(limit, RTT, limit, false);
+    }
+    Assertions.assertEquals(12, limit);
+    for (int i = 0; i < 100; i++) {
+      limit = strategy.update(limit, RTT, limit, true);
+    }
+    Assertions.assertEquals(5, limit);
+  }
+}
@@ -0,0 +1,94 @@
+package com.skhanal5.resilience;
+
+import com.skhanal5.exceptions.RateLimitExceededException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void testBuilderRejectsInvalidRate() {
+    var builder = new RateLimiter.RateLimiterBuilder();
+    Assertions.assertThrows(IllegalArgumentException.class, () -> builder.global(-1, 1));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> builder.table("foo", 1, 0));
+  }
+
+  @Test
+  void testUnlimitedByDefault() {
+    var limiter = new RateLimiter.RateLimiterBuilder().build(clock::get);
+    for (int i = 0; i < 1_000; i++) {
+      Assertions.assertTrue(limiter.tryAcquire("foo"));
+    }
+  }
+
+  @Test
+  void testTableLimitsAreSeparate() {
+    var limiter =
+        new RateLimiter.RateLimiterBuilder().perTable(1, 1).table("bar", 1, 2).build(clock::get);
+
+    Assertions.assertTrue(limiter.tryAcquire("foo"));
+    Assertions.assertFalse(limiter.tryAcquire("foo"));
+    Assertions.assertTrue(limiter.tryAcquire("bar"));
+    Assertions.assertTrue(limiter.tryAcquire("bar"));
+    Assertions.assertFalse(limiter.tryAcquire("bar"));
+    Assertions.assertEquals(2, limiter.getRejectedCount());
+  }
+
+  @Test
+  void testRequiresATable() {
+    var limiter = new RateLimiter.RateLimiterBuilder().perTable(1, 1).build(clock::get);
+    Assertions.assertThrows(NullPointerException.class, () -> limiter.tryAcquire(null));
+  }
+
+  @Test
+  void testGlobalLimitAppliesAcrossTables() {
+    var limiter =
+        new RateLimiter.RateLimiterBuilder().global(1, 2).perTable(1, 1).build(clock::get);
+
+    Assertions.assertTrue(limiter.tryAcquire("foo"));
+    Assertions.assertTrue(limiter.tryAcquire("bar"));
+    Assertions.assertFalse(limiter.tryAcquire("baz"));
+    // the rejection by the global bucket hands the table permit back
+    clock.addAndGet(Duration.ofSeconds(1).toNanos());
+    Assertions.assertTrue(limiter.tryAcquire("baz"));
+  }
+
+  @Test
+  void testAcquireCompletesRightAwayWithPermit() {
+    var limiter = new RateLimiter.RateLimiterBuilder().global(1, 1).build(clock::get);
+    Assertions.assertTrue(limiter.acquire("foo").isDone());
+  }
+
+  @Test
+  void testAcquireWaitsForPermit() throws Exception {
+    var limiter = new RateLimiter.RateLimiterBuilder().global(20, 1).build();
+    limiter.acquire("foo").get();
+
+    var start = System.nanoTime();
+    limiter.acquire("foo").get(5, TimeUnit.SECONDS);
+
+    Assertions.assertTrue(System.nanoTime() - start >= Duration.ofMillis(40).toNanos());
+  }
+
+  @Test
+  void testAcquireFailsBeyondMaxWait() {
+    var limiter =
+        new RateLimiter.RateLimiterBuilder()
+            .table("foo", 1, 1)
+            .maxWait(Duration.ofMillis(500))
+            .build(clock::get);
+    limiter.acquire("foo");
+
+    var exception = Assertions.assertThrows(ExecutionException.class, limiter.acquire("foo")::get);
+
+    var cause = Assertions.assertInstanceOf(RateLimitExceededException.class, exception.getCause());
+    Assertions.assertEquals("foo", cause.getTable());
+    Assertions.assertEquals(1, limiter.getRejectedCount());
+  }
+}
@@ -0,0 +1,43 @@
+package com.skhanal5.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+  @Test
+  void testStartsWithReserve() {
+    var budget = new RetryBudget(0.1, 2);
+    Assertions.assertTrue(budget.tryWithdraw());
+    Assertions.assertTrue(budget.tryWithdraw());
+    Assertions.assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void testDepositsRefillByRatio() {
+    var budget = new RetryBudget(0.25, 0);
+    for (int i = 0; i < 3; i++) {
+      budget.deposit();
+    }
+    Assertions.assertFalse(budget.tryWithdraw());
+    budget.deposit();
+    Assertions.assertTrue(budget.tryWithdraw());
+    Assertions.assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void testBalanceIsCapped() {
+    var budget = new RetryBudget(1, 2);
+    for (int i = 0; i < 100; i++) {
+      budget.deposit();
+    }
+    Assertions.assertTrue(budget.tryWithdraw());
+    Assertions.assertTrue(budget.tryWithdraw());
+    Assertions.assertFalse(budget.tryWithdraw());
+  }
+
+  @Test
+  void testRejectsNegativeRatio() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new RetryBudget(-1, 0));
+  }
+}
@@ -0,0 +1,108 @@
+package com.skhanal5.resilience;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+
+  @Test
+  void testBuilderDefaults() {
+    var policy = new RetryPolicy.RetryPolicyBuilder().build();
+    Assertions.assertEquals(3, policy.getMaxAttempts());
+    Assertions.assertTrue(policy.isRetryableMethod("GET"));
+    Assertions.assertFalse(policy.isRetryableMethod("PATCH"));
+    Assertions.assertTrue(policy.isRetryableMethod("DELETE"));
+    Assertions.assertFalse(policy.isRetryableMethod("POST"));
+    Assertions.assertTrue(policy.isRetryableStatus(503));
+    Assertions.assertFalse(policy.isRetryableStatus(400));
+  }
+
+  @Test
+  void testBuilderRejectsInvalidValues() {
+    var noAttempts = new RetryPolicy.RetryPolicyBuilder().maxAttempts(0);
+    var invertedBackoff =
+        new RetryPolicy.RetryPolicyBuilder().backoff(Duration.ofSeconds(2), Duration.ofSeconds(1));
+    Assertions.assertThrows(IllegalArgumentException.class, noAttempts::build);
+    Assertions.assertThrows(IllegalArgumentException.class, invertedBackoff::build);
+  }
+
+  @Test
+  void testIsRetryableErrorLooksAtCauses() {
+    var policy = new RetryPolicy.RetryPolicyBuilder().build();
+    Assertions.assertTrue(policy.isRetryableError(new ConnectException()));
+    Assertions.assertTrue(
+        policy.isRetryableError(new CompletionException(new IOException("connection reset"))));
+    Assertions.assertFalse(policy.isRetryableError(new IllegalStateException()));
+  }
+
+  @Test
+  void testTryRetryStopsAtMaxAttempts() {
+    var policy = new RetryPolicy.RetryPolicyBuilder().maxAttempts(2).build();
+    Assertions.assertTrue(policy.tryRetry(1));
+    Assertions.assertFalse(policy.tryRetry(2));
+    Assertions.assertEquals(1, policy.getRetryCount());
+  }
+
+  @Test
+  void testTryRetryIsBoundedByBudget() {
+    var policy = new RetryPolicy.RetryPolicyBuilder().maxAttempts(10).budget(0, 1).build();
+    policy.onRequest();
+    Assertions.assertTrue(policy.tryRetry(1));
+    Assertions.assertFalse(policy.tryRetry(1));
+    Assertions.assertEquals(1, policy.getBudgetExhaustedCount());
+  }
+
+  @Test
+  void testNextDelayUsesDecorrelatedJitter() {
+    var base = Duration.ofMillis(10).toNanos();
+    var max = Duration.ofMillis(100).toNanos();
+    var policy =
+        new RetryPolicy.RetryPolicyBuilder()
+            .backoff(Duration.ofNanos(base), Duration.ofNanos(max))
+            .build();
+
+    Assertions.assertEquals(base, policy.nextDelayNanos(0));
+    var previous = base;
+    for (int i = 0; i < 100; i++) {
+      var delay = policy.nextDelayNanos(previous);
+      Assertions.assertTrue(delay >= base);
+      Assertions.assertTrue(delay <= Math.min(max, previous * 3));
+      previous = delay;
+    }
+  }
+
+  @Test
+  void testRetryAfterIsALowerBoundOnTheDelay() {
+    var policy =
+        new RetryPolicy.RetryPolicyBuilder()
+            .backoff(Duration.ofMillis(10), Duration.ofMillis(100))
+            .build();
+    var twoSeconds = Duration.ofSeconds(2).toNanos();
+
+    Assertions.assertEquals(twoSeconds, policy.nextDelayNanos(0, 429, "2"));
+    Assertions.assertEquals(twoSeconds, policy.nextDelayNanos(0, 503, "2"));
+    // only 429 and 503 carry a Retry-After that is meant for retries
+    Assertions.assertEquals(Duration.ofMillis(10).toNanos(), policy.nextDelayNanos(0, 502, "2"));
+    // a shorter Retry-After does not shorten the backoff
+    Assertions.assertEquals(Duration.ofMillis(10).toNanos(), policy.nextDelayNanos(0, 503, "0"));
+    Assertions.assertEquals(Duration.ofMillis(10).toNanos(), policy.nextDelayNanos(0, 503, null));
+  }
+
+  @Test
+  void testParsesRetryAfter() {
+    var now = Instant.parse("2024-10-21T07:28:00Z");
+    Assertions.assertEquals(
+        Duration.ofSeconds(120).toNanos(), RetryPolicy.retryAfterNanos(" 120 ", now));
+    Assertions.assertEquals(
+        Duration.ofSeconds(30).toNanos(),
+        RetryPolicy.retryAfterNanos("Mon, 21 Oct 2024 07:28:30 GMT", now));
+    Assertions.assertEquals(0, RetryPolicy.retryAfterNanos("Mon, 21 Oct 2024 07:27:00 GMT", now));
+    Assertions.assertEquals(0, RetryPolicy.retryAfterNanos("soon", now));
+    Assertions.assertEquals(0, RetryPolicy.retryAfterNanos("-5", now));
+  }
+}
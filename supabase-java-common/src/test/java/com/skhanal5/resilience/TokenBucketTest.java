@@ -0,0 +1,61 @@
+package com.skhanal5.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void testRejectsInvalidRate() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, 0));
+  }
+
+  @Test
+  void testAllowsBurstThenSustainedRate() {
+    var bucket = new TokenBucket(10, 3, 0);
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(0, bucket.tryReserve(0, 0));
+    }
+    Assertions.assertEquals(-1, bucket.tryReserve(0, 0));
+
+    Assertions.assertEquals(0, bucket.tryReserve(SECOND / 10, 0));
+    Assertions.assertEquals(-1, bucket.tryReserve(SECOND / 10, 0));
+  }
+
+  @Test
+  void testReserveReturnsWait() {
+    var bucket = new TokenBucket(10, 1, 0);
+    Assertions.assertEquals(0, bucket.tryReserve(0, SECOND));
+    Assertions.assertEquals(SECOND / 10, bucket.tryReserve(0, SECOND));
+    Assertions.assertEquals(2 * SECOND / 10, bucket.tryReserve(0, SECOND));
+    Assertions.assertEquals(-1, bucket.tryReserve(0, SECOND / 10));
+  }
+
+  @Test
+  void testIdleBucketDoesNotExceedBurst() {
+    var bucket = new TokenBucket(10, 2, 0);
+    var later = 60 * SECOND;
+    Assertions.assertEquals(0, bucket.tryReserve(later, 0));
+    Assertions.assertEquals(0, bucket.tryReserve(later, 0));
+    Assertions.assertEquals(-1, bucket.tryReserve(later, 0));
+  }
+
+  @Test
+  void testWorksWithNegativeClock() {
+    var now = Long.MIN_VALUE / 2;
+    var bucket = new TokenBucket(10, 1, now);
+    Assertions.assertEquals(0, bucket.tryReserve(now, 0));
+    Assertions.assertEquals(-1, bucket.tryReserve(now, 0));
+  }
+
+  @Test
+  void testRefund() {
+    var bucket = new TokenBucket(10, 1, 0);
+    Assertions.assertEquals(0, bucket.tryReserve(0, 0));
+    bucket.refund();
+    Assertions.assertEquals(0, bucket.tryReserve(0, 0));
+  }
+}
@@ -0,0 +1,54 @@
+package com.skhanal5.core;
+
+import lombok.*;
+
+/** The rows deserialized by the benchmarks, and response bodies made of them. */
+final class BenchmarkRows {
+
+  private BenchmarkRows() {}
+
+  /** The row shape of the response bodies. */
+  @NoArgsConstructor
+  @Getter
+  @Setter
+  public static class Row {
+    int id;
+    String name;
+    boolean active;
+  }
+
+  /**
+   * @return a JSON array of rows in the shape of {@link Row}
+   */
+  static String rowsJson(int rows) {
+    var json = new StringBuilder("[");
+    for (int i = 0; i < rows; i++) {
+      appendRow(json, i);
+    }
+    return json.append(']').toString();
+  }
+
+  /**
+   * @return a JSON array of rows in the shape of {@link Row} that is at least payloadBytes long
+   */
+  static String payloadJson(int payloadBytes) {
+    var json = new StringBuilder("[");
+    for (int i = 0; json.length() + 1 < payloadBytes; i++) {
+      appendRow(json, i);
+    }
+    return json.append(']').toString();
+  }
+
+  private static void appendRow(StringBuilder json, int i) {
+    if (i > 0) {
+      json.append(',');
+    }
+    json.append("{\"id\":")
+        .append(i)
+        .append(",\"name\":\"row-")
+        .append(i)
+        .append("\",\"active\":")
+        .append(i % 2 == 0)
+        .append('}');
+  }
+}
@@ -0,0 +1,53 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skhanal5.core.BenchmarkRows.Row;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures deserializing response bodies of small, medium and large selects into arrays and lists
+ * of rows.
+ *
+ * <pre>{@code
+ * mvn -P jmh -pl supabase-java-native test-compile exec:exec -Djmh.args="DeserializeBenchmark -prof gc"
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializeBenchmark {
+
+  /** The number of rows in the response body. */
+  @Param({"10", "1000", "100000"})
+  int rows;
+
+  SupabaseHttpRequestSender sender;
+
+  byte[] body;
+
+  JavaType listType;
+
+  @Setup
+  public void setup() {
+    sender = new SupabaseHttpRequestSender(new ObjectMapper());
+    body = BenchmarkRows.rowsJson(rows).getBytes(StandardCharsets.UTF_8);
+    listType = sender.mapper.getTypeFactory().constructCollectionType(List.class, Row.class);
+  }
+
+  @Benchmark
+  public Row[] deserialize() {
+    return sender.deserialize(body, Row[].class);
+  }
+
+  @Benchmark
+  public List<Row> deserializeList() {
+    return sender.deserialize(body, listType);
+  }
+}
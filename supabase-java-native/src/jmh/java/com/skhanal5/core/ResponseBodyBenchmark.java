@@ -0,0 +1,79 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skhanal5.core.BenchmarkRows.Row;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares handing Jackson the response body as the bytes received with decoding it into a String
+ * first, as {@code BodyHandlers.ofString()} does, for select bodies from 10 KB to 10 MB. Both read
+ * through the same cached reader, so the difference is the UTF-8 decode and the copy it makes. The
+ * gzip cases compare inflating a compressed body straight into the parser, as the client does, with
+ * inflating it into a buffer first. Run it with the GC profiler to see the allocations next to the
+ * throughput.
+ *
+ * <pre>{@code
+ * mvn -P jmh -pl supabase-java-native test-compile exec:exec -Djmh.args="ResponseBodyBenchmark -prof gc"
+ * }</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBodyBenchmark {
+
+  /** The size of the response body in bytes. */
+  @Param({"10240", "102400", "1048576", "10485760"})
+  int payloadBytes;
+
+  SupabaseHttpRequestSender sender;
+
+  JavaType rowsType;
+
+  byte[] body;
+
+  ResponseBody gzipBody;
+
+  @Setup
+  public void setup() throws IOException {
+    sender = new SupabaseHttpRequestSender(new ObjectMapper());
+    rowsType = sender.mapper.getTypeFactory().constructCollectionType(List.class, Row.class);
+    body = BenchmarkRows.payloadJson(payloadBytes).getBytes(StandardCharsets.UTF_8);
+    var compressed = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(compressed)) {
+      out.write(body);
+    }
+    gzipBody = new ResponseBody(compressed.toByteArray(), "gzip", 200);
+  }
+
+  @Benchmark
+  public List<Row> fromBytes() {
+    return sender.deserialize(body, rowsType);
+  }
+
+  @Benchmark
+  public List<Row> fromString() throws IOException {
+    return sender.readerFor(rowsType).readValue(new String(body, StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public List<Row> fromGzipStream() {
+    return sender.deserialize(gzipBody, rowsType);
+  }
+
+  @Benchmark
+  public List<Row> fromGzipBuffer() throws IOException {
+    try (var inflated = gzipBody.open()) {
+      return sender.deserialize(inflated.readAllBytes(), rowsType);
+    }
+  }
+}
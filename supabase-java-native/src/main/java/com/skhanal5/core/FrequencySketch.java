@@ -0,0 +1,73 @@
+package com.skhanal5.core;
+
+/**
+ * A count-min sketch that estimates how often each key has been seen, using a fixed amount of
+ * memory no matter how many distinct keys there are. Counters saturate at 15 and are halved once
+ * enough increments have been recorded, so the estimates favour recent popularity over all-time
+ * popularity. Not thread-safe, callers are expected to synchronize.
+ */
+class FrequencySketch {
+
+  private static final int DEPTH = 4;
+
+  private static final int MAX_COUNT = 15;
+
+  private static final int[] SEEDS = {0x97cb3127, 0x8f2a1d3b, 0x5bd1e995, 0x27d4eb2f};
+
+  private final int[] counters;
+
+  private final int mask;
+
+  private final int resetThreshold;
+
+  private int increments;
+
+  FrequencySketch(int expectedEntries) {
+    var width = Integer.highestOneBit(Math.max(16, expectedEntries - 1) << 1);
+    this.counters = new int[DEPTH * width];
+    this.mask = width - 1;
+    this.resetThreshold = 10 * width;
+  }
+
+  void increment(Object key) {
+    var hash = spread(key.hashCode());
+    for (int row = 0; row < DEPTH; row++) {
+      var index = indexOf(hash, row);
+      if (counters[index] < MAX_COUNT) {
+        counters[index]++;
+      }
+    }
+    if (++increments >= resetThreshold) {
+      halve();
+    }
+  }
+
+  int frequency(Object key) {
+    var hash = spread(key.hashCode());
+    var frequency = MAX_COUNT;
+    for (int row = 0; row < DEPTH; row++) {
+      frequency = Math.min(frequency, counters[indexOf(hash, row)]);
+    }
+    return frequency;
+  }
+
+  private void halve() {
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] >>>= 1;
+    }
+    increments /= 2;
+  }
+
+  private int indexOf(int hash, int row) {
+    var rowHash = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+    rowHash ^= rowHash >>> 16;
+    return row * (mask + 1) + (rowHash & mask);
+  }
+
+  private static int spread(int hash) {
+    hash ^= hash >>> 17;
+    hash *= 0xed5ad4bb;
+    hash ^= hash >>> 11;
+    return hash;
+  }
+}
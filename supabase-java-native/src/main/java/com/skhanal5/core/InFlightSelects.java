@@ -0,0 +1,59 @@
+package com.skhanal5.core;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical selects that are in flight at the same time, so that a burst of callers
+ * asking for the same rows results in a single request. Callers share the raw response body and
+ * each deserialize their own copy of it, so no caller can observe another caller's changes.
+ */
+class InFlightSelects {
+
+  private final Map<String, CompletableFuture<ResponseBody>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Joins the request already in flight for key, or starts one with fetch if there is none. The
+   * returned future is shared between callers and must not be cancelled or completed by them.
+   */
+  CompletableFuture<ResponseBody> join(
+      String key, Supplier<CompletableFuture<ResponseBody>> fetch) {
+    var shared = new CompletableFuture<ResponseBody>();
+    var existing = inFlight.putIfAbsent(key, shared);
+    if (existing != null) {
+      return existing;
+    }
+    CompletableFuture<ResponseBody> response;
+    try {
+      response = fetch.get();
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete(
+        (body, error) -> {
+          // leave the map first, so callers arriving from now on start a fresh request
+          inFlight.remove(key, shared);
+          if (error != null) {
+            shared.completeExceptionally(error);
+          } else {
+            shared.complete(body);
+          }
+        });
+    return shared;
+  }
+
+  /**
+   * Detaches the in-flight selects of a table, so that selects issued after a write do not join a
+   * request that was sent before it.
+   */
+  void forget(String table) {
+    var prefix = table + "?";
+    inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  int size() {
+    return inFlight.size();
+  }
+}
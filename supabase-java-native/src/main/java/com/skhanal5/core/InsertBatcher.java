@@ -0,0 +1,149 @@
+package com.skhanal5.core;
+
+import com.skhanal5.models.InsertQuery;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects rows for a single table from any number of threads and inserts them with one multi-row
+ * request instead of one request per row. A batch is sent once it holds maxBatchSize rows, or once
+ * linger has passed since its first row was added, whichever comes first.
+ *
+ * <p>Every row added gets its own future which completes when the batch it was sent in succeeds, or
+ * completes exceptionally with the failure of that batch. PostgREST expects every row in a
+ * multi-row insert to have the same columns.
+ *
+ * <p>Closing the batcher sends any rows that are still buffered.
+ *
+ * @see SupabaseClient#newInsertBatcher(String, int, Duration)
+ */
+public class InsertBatcher implements AutoCloseable {
+
+  private final SupabaseClient client;
+
+  private final String table;
+
+  private final int maxBatchSize;
+
+  private final Duration linger;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final Object lock = new Object();
+
+  private List<PendingRow> buffer;
+
+  private ScheduledFuture<?> scheduledFlush;
+
+  private boolean closed;
+
+  private record PendingRow(Map<String, Object> row, CompletableFuture<Void> inserted) {}
+
+  InsertBatcher(SupabaseClient client, String table, int maxBatchSize, Duration linger) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be positive but was " + maxBatchSize);
+    }
+    this.client = client;
+    this.table = table;
+    this.maxBatchSize = maxBatchSize;
+    this.linger = linger;
+    this.buffer = new ArrayList<>(maxBatchSize);
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              var thread = new Thread(runnable, "supabase-insert-batcher-" + table);
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Adds a row to the current batch.
+   *
+   * @param row a Map where the key is the column name and the value is its corresponding value
+   * @return a future that completes once the batch containing this row has been inserted
+   * @throws IllegalStateException if the batcher has been closed
+   */
+  public CompletableFuture<Void> add(Map<String, Object> row) {
+    var pendingRow = new PendingRow(row, new CompletableFuture<>());
+    List<PendingRow> fullBatch = null;
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("Cannot add rows to a closed InsertBatcher");
+      }
+      buffer.add(pendingRow);
+      if (buffer.size() >= maxBatchSize) {
+        fullBatch = drainBuffer();
+      } else if (buffer.size() == 1) {
+        scheduledFlush = scheduler.schedule(this::flush, linger.toNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+    if (fullBatch != null) {
+      send(fullBatch);
+    }
+    return pendingRow.inserted();
+  }
+
+  /** Sends the rows that are currently buffered without waiting for the batch to fill up. */
+  public void flush() {
+    List<PendingRow> batch;
+    synchronized (lock) {
+      batch = drainBuffer();
+    }
+    if (!batch.isEmpty()) {
+      send(batch);
+    }
+  }
+
+  /** Sends any buffered rows and stops accepting new ones. */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+    }
+    flush();
+    scheduler.shutdown();
+  }
+
+  // must be called while holding the lock
+  private List<PendingRow> drainBuffer() {
+    var batch = buffer;
+    buffer = new ArrayList<>(maxBatchSize);
+    if (scheduledFlush != null) {
+      scheduledFlush.cancel(false);
+      scheduledFlush = null;
+    }
+    return batch;
+  }
+
+  private void send(List<PendingRow> batch) {
+    CompletableFuture<Void> inserted;
+    try {
+      var rows = batch.stream().map(PendingRow::row).toList();
+      var query = new InsertQuery.InsertQueryBuilder().from(table).insert(rows).build();
+      inserted = client.executeInsertAsync(query, Void.class);
+    } catch (RuntimeException e) {
+      // fail the rows of this batch rather than the unrelated add() or scheduled flush sending it
+      inserted = CompletableFuture.failedFuture(e);
+    }
+    inserted.whenComplete(
+        (ignored, failure) -> {
+          var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+          for (var pendingRow : batch) {
+            if (cause == null) {
+              pendingRow.inserted().complete(null);
+            } else {
+              pendingRow.inserted().completeExceptionally(cause);
+            }
+          }
+        });
+  }
+}
@@ -0,0 +1,102 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Serializes a list of rows into a JSON array lazily, as the bytes are read. Rows are written by a
+ * Jackson {@link JsonGenerator} into a single reusable chunk that is refilled whenever the reader
+ * has drained it, so at most one chunk of the encoded payload is held in memory at a time.
+ */
+class JsonArrayInputStream extends InputStream {
+
+  private final ObjectMapper mapper;
+
+  private final Iterator<?> rows;
+
+  private final int chunkSize;
+
+  private final ChunkBuffer chunk;
+
+  private final JsonGenerator generator;
+
+  private int position;
+
+  private boolean finished;
+
+  /** Gives access to the backing array so chunks can be read without copying them. */
+  private static class ChunkBuffer extends ByteArrayOutputStream {
+    ChunkBuffer(int size) {
+      super(size);
+    }
+
+    byte[] array() {
+      return buf;
+    }
+  }
+
+  JsonArrayInputStream(ObjectMapper mapper, Iterable<?> rows, int chunkSize) throws IOException {
+    this.mapper = mapper;
+    this.rows = rows.iterator();
+    this.chunkSize = chunkSize;
+    this.chunk = new ChunkBuffer(chunkSize);
+    this.generator = mapper.getFactory().createGenerator(chunk);
+    this.generator.writeStartArray();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensureAvailable()) {
+      return -1;
+    }
+    return chunk.array()[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] destination, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (!ensureAvailable()) {
+      return -1;
+    }
+    var bytesRead = Math.min(length, chunk.size() - position);
+    System.arraycopy(chunk.array(), position, destination, offset, bytesRead);
+    position += bytesRead;
+    return bytesRead;
+  }
+
+  @Override
+  public int available() {
+    return chunk.size() - position;
+  }
+
+  private boolean ensureAvailable() throws IOException {
+    while (position == chunk.size()) {
+      if (finished) {
+        return false;
+      }
+      refill();
+    }
+    return true;
+  }
+
+  private void refill() throws IOException {
+    chunk.reset();
+    position = 0;
+    while (chunk.size() < chunkSize && rows.hasNext()) {
+      mapper.writeValue(generator, rows.next());
+    }
+    if (rows.hasNext()) {
+      generator.flush();
+    } else {
+      generator.writeEndArray();
+      generator.close();
+      finished = true;
+    }
+  }
+}
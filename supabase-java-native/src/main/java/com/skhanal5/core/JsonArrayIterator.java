@@ -0,0 +1,91 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.skhanal5.exceptions.SupabaseSerializationException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks a top-level JSON array one element at a time. Only the element currently being bound is
+ * held in memory, so the cost of iterating a response does not grow with the number of rows.
+ * Closing the iterator closes the parser along with the underlying source.
+ */
+class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+  private final JsonParser parser;
+
+  private final ObjectReader reader;
+
+  private JsonToken nextToken;
+
+  JsonArrayIterator(JsonParser parser, ObjectReader reader) throws IOException {
+    this.parser = parser;
+    this.reader = reader;
+    var firstToken = parser.nextToken();
+    if (firstToken == null) {
+      this.nextToken = JsonToken.END_ARRAY; // an empty body has no rows
+    } else if (firstToken != JsonToken.START_ARRAY) {
+      throw new SupabaseSerializationException(
+          "Expected a JSON array but found " + firstToken, null);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextToken == null) {
+      try {
+        nextToken = parser.nextToken();
+      } catch (IOException e) {
+        throw rethrow(e);
+      }
+    }
+    return nextToken != null && nextToken != JsonToken.END_ARRAY;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    try {
+      T value = reader.readValue(parser);
+      nextToken = null;
+      return value;
+    } catch (IOException e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      parser.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Exposes this iterator as a sequential {@link Stream} that closes the parser when closed. */
+  Stream<T> toStream() {
+    var spliterator =
+        Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(this::close);
+  }
+
+  private RuntimeException rethrow(IOException e) {
+    if (e instanceof JsonProcessingException) {
+      return new SupabaseSerializationException("Unable to deserialize the streamed row", e);
+    }
+    return new UncheckedIOException(e);
+  }
+}
@@ -0,0 +1,121 @@
+package com.skhanal5.core;
+
+import com.skhanal5.models.SelectQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Splits one ordered SelectQuery into consecutive partitions of partitionSize rows and fetches them
+ * with at most parallelism requests in flight. Each worker claims the next unclaimed partition as
+ * soon as its previous one arrives. Once a partition comes back short, no partitions past it are
+ * claimed. Partitions claimed before that still go out, so with an unbounded range up to
+ * parallelism - 1 requests may ask for rows past the end. The partitions are then merged back in
+ * order.
+ */
+class PartitionedSelect<T> {
+
+  private final SelectQuery query;
+
+  private final int partitionSize;
+
+  private final int parallelism;
+
+  private final Function<SelectQuery, CompletableFuture<List<T>>> fetchPartition;
+
+  private final AtomicInteger nextPartition = new AtomicInteger();
+
+  // index of the last partition that can hold rows, lowered as soon as a short partition is seen
+  private final AtomicInteger lastPartition = new AtomicInteger(Integer.MAX_VALUE);
+
+  private final Map<Integer, List<T>> partitions = new ConcurrentHashMap<>();
+
+  PartitionedSelect(
+      SelectQuery query,
+      int partitionSize,
+      int parallelism,
+      Function<SelectQuery, CompletableFuture<List<T>>> fetchPartition) {
+    if (partitionSize < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("partitionSize and parallelism must be positive");
+    }
+    this.query = query;
+    this.partitionSize = partitionSize;
+    this.parallelism = parallelism;
+    this.fetchPartition = fetchPartition;
+  }
+
+  CompletableFuture<List<T>> execute() {
+    var workers = new CompletableFuture<?>[parallelism];
+    for (int i = 0; i < parallelism; i++) {
+      workers[i] = fetchRemainingPartitions();
+    }
+    return CompletableFuture.allOf(workers).thenApply(done -> mergeInOrder());
+  }
+
+  private CompletableFuture<Void> fetchRemainingPartitions() {
+    var worker = new CompletableFuture<Void>();
+    claimPartitions(worker);
+    return worker;
+  }
+
+  /**
+   * Claims and fetches partitions until none are left, then completes worker. Partitions that
+   * arrive immediately are handled in this loop, only a pending partition continues the worker from
+   * its completion, so a long run of synchronously completed partitions cannot overflow the stack.
+   */
+  private void claimPartitions(CompletableFuture<Void> worker) {
+    while (true) {
+      var index = nextPartition.getAndIncrement();
+      if (index > lastPartition.get()) {
+        worker.complete(null);
+        return;
+      }
+      var partitionQuery = query.page(index, partitionSize);
+      if (partitionQuery.isEmpty()) { // past the end of the configured range
+        lastPartition.accumulateAndGet(index - 1, Math::min);
+        worker.complete(null);
+        return;
+      }
+      var fetched = fetchPartition.apply(partitionQuery.get());
+      if (fetched.isDone() && !fetched.isCompletedExceptionally()) {
+        store(index, fetched.join());
+        continue;
+      }
+      fetched.whenComplete(
+          (rows, failure) -> {
+            if (failure != null) {
+              lastPartition.set(-1); // stop the other workers from claiming more partitions
+              worker.completeExceptionally(failure);
+            } else {
+              store(index, rows);
+              claimPartitions(worker);
+            }
+          });
+      return;
+    }
+  }
+
+  private void store(int index, List<T> rows) {
+    partitions.put(index, rows);
+    if (rows.size() < partitionSize) {
+      lastPartition.accumulateAndGet(index, Math::min);
+    }
+  }
+
+  private List<T> mergeInOrder() {
+    var merged = new ArrayList<T>();
+    var last = Math.min(lastPartition.get(), nextPartition.get() - 1);
+    for (int index = 0; index <= last; index++) {
+      var rows = partitions.get(index);
+      if (rows == null) {
+        break;
+      }
+      merged.addAll(rows);
+    }
+    return merged;
+  }
+}
@@ -0,0 +1,73 @@
+package com.skhanal5.core;
+
+import com.skhanal5.metrics.RequestMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+
+/**
+ * Wraps a BodyHandler to time the {@link RequestPhase#HEADERS} and {@link RequestPhase#TRANSFER}
+ * phases of every attempt of a request. The HttpClient calls the handler once the response headers
+ * have arrived, and the subscriber it returns completes once the body has been read, so neither
+ * phase needs a hook inside the HttpClient.
+ *
+ * <p>A request may make several attempts, so the handler passed around is a template and every
+ * attempt sends with its own copy from {@link #startAttempt()}.
+ */
+class PhaseTimingBodyHandler<B> implements BodyHandler<B> {
+
+  private final BodyHandler<B> delegate;
+
+  private final RequestMetricsListener listener;
+
+  private final String table;
+
+  private final String method;
+
+  private final long startNanos;
+
+  PhaseTimingBodyHandler(
+      BodyHandler<B> delegate, RequestMetricsListener listener, String table, String method) {
+    this(delegate, listener, table, method, System.nanoTime());
+  }
+
+  private PhaseTimingBodyHandler(
+      BodyHandler<B> delegate,
+      RequestMetricsListener listener,
+      String table,
+      String method,
+      long startNanos) {
+    this.delegate = delegate;
+    this.listener = listener;
+    this.table = table;
+    this.method = method;
+    this.startNanos = startNanos;
+  }
+
+  /**
+   * @return a handler that times an attempt which is handed to the HttpClient right now
+   */
+  PhaseTimingBodyHandler<B> startAttempt() {
+    return new PhaseTimingBodyHandler<>(delegate, listener, table, method, System.nanoTime());
+  }
+
+  @Override
+  public BodySubscriber<B> apply(ResponseInfo responseInfo) {
+    var headersNanos = System.nanoTime();
+    var status = responseInfo.statusCode();
+    listener.onPhase(RequestPhase.HEADERS, table, method, status, headersNanos - startNanos);
+    var subscriber = delegate.apply(responseInfo);
+    subscriber
+        .getBody()
+        .whenComplete(
+            (body, error) ->
+                listener.onPhase(
+                    RequestPhase.TRANSFER,
+                    table,
+                    method,
+                    status,
+                    System.nanoTime() - headersNanos));
+    return subscriber;
+  }
+}
@@ -0,0 +1,255 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.skhanal5.constants.FilterType;
+import com.skhanal5.models.Query;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * A query whose shape has been compiled once so it can be executed many times with different filter
+ * values. Compiling encodes the URI up front as literal segments with a typed placeholder for the
+ * value of every filter, and merges the headers and request body once. Executing only binds the
+ * values into the placeholders.
+ *
+ * <p>Every filter column of the original query is a parameter. Its type follows the builder method
+ * that created it. equals, notEquals, like and ilike take a {@link String}. greaterThan,
+ * greaterThanOrEquals, lessThan and lessThanOrEquals take a {@link Number}. in takes a {@link List}
+ * and is takes an {@link Optional}. Parameters that are not bound keep the value from the original
+ * query.
+ *
+ * <p>Prepared selects share the client's {@link SelectCache} and in-flight selects with the
+ * unprepared select they were compiled from, and prepared updates and deletes invalidate them.
+ *
+ * <pre>{@code
+ * var byName = client.prepareSelect(
+ *     new SelectQuery.SelectQueryBuilder()
+ *         .from("doctors")
+ *         .select("*")
+ *         .filter(new Filter.FilterBuilder().equals("full_name", "").build())
+ *         .build(),
+ *     Doctor[].class);
+ * Doctor[] johns = byName.execute(Map.of("full_name", "John Doe"));
+ * }</pre>
+ *
+ * @param <T> the type of the expected response POJO
+ * @see SupabaseClient#prepareSelect(com.skhanal5.models.SelectQuery, Class)
+ */
+public class PreparedQuery<T> {
+
+  // every operator ends with '.', so none of them is a prefix of another
+  private static final Map<String, Class<?>> OPERATOR_TYPES = new HashMap<>();
+
+  static {
+    OPERATOR_TYPES.put(FilterType.EQUALS, String.class);
+    OPERATOR_TYPES.put(FilterType.NOT_EQUALS, String.class);
+    OPERATOR_TYPES.put(FilterType.LIKE, String.class);
+    OPERATOR_TYPES.put(FilterType.I_LIKE, String.class);
+    OPERATOR_TYPES.put(FilterType.GREATER_THAN, Number.class);
+    OPERATOR_TYPES.put(FilterType.GREATER_THAN_OR_EQUALS, Number.class);
+    OPERATOR_TYPES.put(FilterType.LESS_THAN, Number.class);
+    OPERATOR_TYPES.put(FilterType.LESS_THAN_OR_EQUALS, Number.class);
+    OPERATOR_TYPES.put(FilterType.IN, List.class);
+    OPERATOR_TYPES.put(FilterType.IS, Optional.class);
+  }
+
+  private final SupabaseClient client;
+
+  private final String table;
+
+  private final String requestMethod;
+
+  private final JavaType responseType;
+
+  // literals[i] precedes the value of parameter i, the last literal ends the URI
+  private final String[] literals;
+
+  private final String[] parameterNames;
+
+  private final Class<?>[] parameterTypes;
+
+  private final String[] operators;
+
+  private final String[] defaultValues;
+
+  // the unbound query parameters and Range header, from which the cache key of a select is built
+  private final Map<String, String> queryParameters;
+
+  private final String range;
+
+  private final Map<String, Integer> parameterIndexes;
+
+  private final int uriLength;
+
+  private final Map<String, String> headers;
+
+  private final List<Map<String, Object>> requestBody;
+
+  PreparedQuery(
+      SupabaseClient client,
+      Query query,
+      String requestMethod,
+      JavaType responseType,
+      String baseURI,
+      Map<String, String> defaultHeaders) {
+    this.client = client;
+    this.table = query.getTable();
+    this.requestMethod = requestMethod;
+    this.responseType = responseType;
+    this.headers =
+        Map.copyOf(
+            SupabaseHttpRequest.mergeHeaders(defaultHeaders, query.buildAdditionalHeaders()));
+    this.requestBody = query.buildRequestBody().orElse(List.of());
+
+    var literalList = new ArrayList<String>();
+    var names = new ArrayList<String>();
+    var types = new ArrayList<Class<?>>();
+    var defaults = new ArrayList<String>();
+    var currentLiteral = new StringBuilder(baseURI).append(query.getTable()).append('?');
+    var queryParameters = new TreeMap<>(query.buildQueryParams().orElse(Map.of()));
+    var operatorList = new ArrayList<String>();
+    var first = true;
+    for (var parameter : queryParameters.entrySet()) {
+      if (!first) {
+        currentLiteral.append('&');
+      }
+      first = false;
+      currentLiteral.append(parameter.getKey()).append('=');
+      var operator = filterOperator(parameter.getKey(), parameter.getValue());
+      if (operator == null) {
+        currentLiteral.append(SupabaseHttpRequest.encodeSpaces(parameter.getValue()));
+        continue;
+      }
+      currentLiteral.append(operator);
+      literalList.add(currentLiteral.toString());
+      currentLiteral.setLength(0);
+      names.add(parameter.getKey());
+      types.add(OPERATOR_TYPES.get(operator));
+      operatorList.add(operator);
+      defaults.add(parameter.getValue().substring(operator.length()));
+    }
+    literalList.add(currentLiteral.toString());
+
+    this.literals = literalList.toArray(String[]::new);
+    this.parameterNames = names.toArray(String[]::new);
+    this.parameterTypes = types.toArray(Class<?>[]::new);
+    this.operators = operatorList.toArray(String[]::new);
+    this.defaultValues = defaults.toArray(String[]::new);
+    this.queryParameters = Map.copyOf(queryParameters);
+    this.range =
+        query.buildAdditionalHeaders().map(additional -> additional.get("Range")).orElse(null);
+    this.parameterIndexes = new HashMap<>();
+    for (int i = 0; i < parameterNames.length; i++) {
+      parameterIndexes.put(parameterNames[i], i);
+    }
+    this.uriLength = literalList.stream().mapToInt(String::length).sum() + 16 * names.size();
+  }
+
+  /**
+   * The names of the parameters that can be bound, which are the filter columns of the query.
+   *
+   * @return the parameter names in the order they appear in the URI
+   */
+  public List<String> getParameterNames() {
+    return List.of(parameterNames);
+  }
+
+  /**
+   * Binds the values to their parameters and executes the query.
+   *
+   * @param values a Map from parameter name to the value to filter by
+   * @return the response POJO
+   * @throws IllegalArgumentException if a value is bound to an unknown parameter or has the wrong
+   *     type
+   */
+  public T execute(Map<String, ?> values) {
+    return SupabaseClient.await(executeAsync(values));
+  }
+
+  /**
+   * The non-blocking variant of {@link #execute(Map)}.
+   *
+   * @param values a Map from parameter name to the value to filter by
+   * @return a future of the response POJO
+   * @throws IllegalArgumentException if a value is bound to an unknown parameter or has the wrong
+   *     type
+   */
+  public CompletableFuture<T> executeAsync(Map<String, ?> values) {
+    var boundValues = bindValues(values);
+    var request = new SupabaseHttpRequest(table, uriOf(boundValues), headers, requestBody);
+    if ("GET".equals(requestMethod)) {
+      return client.executeSelectAsync(table, () -> keyOf(boundValues), request, responseType);
+    }
+    // writes go through the client so they invalidate the cached and in-flight selects of the table
+    return client.executeWriteAsync(table, request, responseType, requestMethod);
+  }
+
+  URI bind(Map<String, ?> values) {
+    return uriOf(bindValues(values));
+  }
+
+  private String[] bindValues(Map<String, ?> values) {
+    var boundValues = defaultValues.clone();
+    values.forEach(
+        (name, value) -> {
+          var index = parameterIndexes.get(name);
+          if (index == null) {
+            throw new IllegalArgumentException(
+                "Unknown parameter " + name + ", expected one of " + getParameterNames());
+          }
+          if (!parameterTypes[index].isInstance(value)) {
+            throw new IllegalArgumentException(
+                "Parameter " + name + " expects a " + parameterTypes[index].getSimpleName());
+          }
+          boundValues[index] = stringify(value);
+        });
+    return boundValues;
+  }
+
+  private URI uriOf(String[] boundValues) {
+    var uri = new StringBuilder(uriLength);
+    for (int i = 0; i < boundValues.length; i++) {
+      uri.append(literals[i]).append(SupabaseHttpRequest.encodeSpaces(boundValues[i]));
+    }
+    uri.append(literals[literals.length - 1]);
+    return URI.create(uri.toString());
+  }
+
+  // the same key SelectCache.keyOf builds for the unprepared select with these values
+  private String keyOf(String[] boundValues) {
+    var boundParameters = new HashMap<>(queryParameters);
+    for (int i = 0; i < boundValues.length; i++) {
+      boundParameters.put(parameterNames[i], operators[i] + boundValues[i]);
+    }
+    return SelectCache.keyOf(table, boundParameters, range);
+  }
+
+  private static String filterOperator(String key, String value) {
+    if (key.equals("select") || key.equals("order")) {
+      return null;
+    }
+    for (var operator : OPERATOR_TYPES.keySet()) {
+      if (value.startsWith(operator)) {
+        return operator;
+      }
+    }
+    return null;
+  }
+
+  private static String stringify(Object value) {
+    if (value instanceof List<?> list) {
+      return list.stream().map(String::valueOf).collect(Collectors.joining(",", "(", ")"));
+    }
+    if (value instanceof Optional<?> optional) {
+      return optional.map(String::valueOf).orElse("null");
+    }
+    return value.toString();
+  }
+}
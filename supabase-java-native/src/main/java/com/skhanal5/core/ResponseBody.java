@@ -0,0 +1,61 @@
+package com.skhanal5.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A buffered response body as it came off the wire, still compressed if the server compressed it,
+ * together with the status of its response. Bodies are shared between coalesced selects and kept in
+ * the {@link SelectCache} in this form, so compressed bodies take less memory there too. Every
+ * reader inflates its own stream straight into the parser, the inflated body is never held in
+ * memory as a whole.
+ *
+ * @param bytes the body bytes
+ * @param contentEncoding the Content-Encoding of the body, or null if it is not encoded
+ * @param status the status of the response the body was read from
+ */
+record ResponseBody(byte[] bytes, String contentEncoding, int status) {
+
+  /**
+   * @return the unencoded body of a 200 response
+   */
+  static ResponseBody of(byte[] bytes) {
+    return new ResponseBody(bytes, null, 200);
+  }
+
+  boolean isEmpty() {
+    return bytes == null || bytes.length == 0;
+  }
+
+  boolean isEncoded() {
+    return contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity");
+  }
+
+  /**
+   * @return a stream of the body with its content encoding undone
+   */
+  InputStream open() throws IOException {
+    return decode(new ByteArrayInputStream(bytes), contentEncoding);
+  }
+
+  /**
+   * Wraps body in a stream that undoes contentEncoding as it is read.
+   *
+   * @throws IOException if the encoding is not supported or its header cannot be read
+   */
+  static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return body;
+    }
+    return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip", "x-gzip" -> new GZIPInputStream(body);
+      case "deflate" -> new InflaterInputStream(body);
+      case "identity", "" -> body;
+      default -> throw new IOException("Unsupported Content-Encoding " + contentEncoding);
+    };
+  }
+}
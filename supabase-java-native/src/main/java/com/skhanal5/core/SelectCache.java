@@ -0,0 +1,316 @@
+package com.skhanal5.core;
+
+import com.skhanal5.models.Query;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-process cache of select responses that sits in front of {@link
+ * SupabaseClient#executeSelect(com.skhanal5.models.SelectQuery, Class)}. Responses are cached by a
+ * canonical form of the table, selected columns, filters, order and range, so queries that differ
+ * only in how they were built share an entry.
+ *
+ * <ul>
+ *   <li>Only tables with a TTL are cached, either set per table or through a default TTL.
+ *   <li>The total size of the cached response bodies is bounded by a maximum weight in bytes.
+ *   <li>When the cache is full, a new entry is only admitted if it has been requested more often
+ *       than the least recently used entry it would evict. Request frequencies are tracked with a
+ *       compact sketch, so one-off queries cannot flush out hot ones.
+ *   <li>Any insert, update or delete made through the same client drops the cached entries of the
+ *       table it writes to.
+ * </ul>
+ *
+ * <p>Use the {@link SelectCacheBuilder} to configure a SelectCache and pass it to {@link
+ * SupabaseClient.SupabaseClientBuilder#selectCache(SelectCache)}.
+ */
+public class SelectCache {
+
+  // rough per entry bookkeeping cost on top of the body itself
+  private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+  private final Duration defaultTtl;
+
+  private final Map<String, Duration> tableTtls;
+
+  private final long maximumWeight;
+
+  private final LongSupplier nanoClock;
+
+  // access ordered, so iteration starts at the least recently used entry
+  private final LinkedHashMap<String, CachedBody> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final FrequencySketch sketch;
+
+  private final Map<String, AtomicLong> tableGenerations = new ConcurrentHashMap<>();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private long weightedSize;
+
+  private record CachedBody(String table, ResponseBody body, long weight, long expiresAtNanos) {}
+
+  SelectCache(
+      Duration defaultTtl,
+      Map<String, Duration> tableTtls,
+      long maximumWeight,
+      LongSupplier nanoClock) {
+    this.defaultTtl = defaultTtl;
+    this.tableTtls = Map.copyOf(tableTtls);
+    this.maximumWeight = maximumWeight;
+    this.nanoClock = nanoClock;
+    this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, maximumWeight / 1024)));
+  }
+
+  /** The main entrypoint to configure a SelectCache. */
+  public static class SelectCacheBuilder {
+
+    Duration defaultTtl;
+
+    Map<String, Duration> tableTtls = new HashMap<>();
+
+    long maximumWeight = 64L * 1024 * 1024;
+
+    /**
+     * Used to cache every table that has no TTL of its own for the given duration. Without a
+     * default TTL, only tables configured with {@link #ttl(String, Duration)} are cached.
+     *
+     * @param ttl how long a response stays valid
+     * @return a SelectCacheBuilder with this configured
+     */
+    public SelectCacheBuilder defaultTtl(Duration ttl) {
+      this.defaultTtl = ttl;
+      return this;
+    }
+
+    /**
+     * Used to cache the responses of a specific table for the given duration.
+     *
+     * @param table the name of the table
+     * @param ttl how long a response stays valid
+     * @return a SelectCacheBuilder with this configured
+     */
+    public SelectCacheBuilder ttl(String table, Duration ttl) {
+      this.tableTtls.put(table, ttl);
+      return this;
+    }
+
+    /**
+     * Used to bound the memory held by the cache. Defaults to 64 MB.
+     *
+     * @param bytes the maximum total size of the cached response bodies
+     * @return a SelectCacheBuilder with this configured
+     */
+    public SelectCacheBuilder maximumWeight(long bytes) {
+      this.maximumWeight = bytes;
+      return this;
+    }
+
+    /**
+     * Used to build a SelectCache with all configurations.
+     *
+     * @return an instance of the SelectCache
+     */
+    public SelectCache build() {
+      return new SelectCache(defaultTtl, tableTtls, maximumWeight, System::nanoTime);
+    }
+  }
+
+  /**
+   * @return the number of lookups that were served from the cache
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * @return the number of lookups of cacheable tables that had to go to Supabase
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * @return the number of entries removed to stay within the maximum weight
+   */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * @return the current total weight of the cached entries, in bytes
+   */
+  public synchronized long getWeightedSize() {
+    return weightedSize;
+  }
+
+  /**
+   * Drops every cached response of the given table.
+   *
+   * @param table the name of the table
+   */
+  public void invalidate(String table) {
+    generationOf(table).incrementAndGet();
+    synchronized (this) {
+      var iterator = entries.values().iterator();
+      while (iterator.hasNext()) {
+        var entry = iterator.next();
+        if (entry.table().equals(table)) {
+          weightedSize -= entry.weight();
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /** Drops every cached response. */
+  public void invalidateAll() {
+    tableGenerations.values().forEach(AtomicLong::incrementAndGet);
+    synchronized (this) {
+      entries.clear();
+      weightedSize = 0;
+    }
+  }
+
+  boolean isCacheable(String table) {
+    return ttlOf(table) != null;
+  }
+
+  /**
+   * Builds the canonical key of a query. Query parameters are sorted, so the key does not depend on
+   * the order in which filters were added.
+   */
+  static String keyOf(Query query) {
+    return keyOf(
+        query.getTable(),
+        query.buildQueryParams().orElse(Map.of()),
+        query.buildAdditionalHeaders().map(headers -> headers.get("Range")).orElse(null));
+  }
+
+  /**
+   * Builds the canonical key of a select from its parts, as {@link #keyOf(Query)} does.
+   *
+   * @param range the Range header of the select, or null if it has none
+   */
+  static String keyOf(String table, Map<String, String> queryParameters, String range) {
+    var key = new StringBuilder(table).append('?');
+    new TreeMap<>(queryParameters)
+        .forEach((name, value) -> key.append(name).append('=').append(value).append('&'));
+    if (range != null) {
+      key.append("#range=").append(range);
+    }
+    return key.toString();
+  }
+
+  /**
+   * The generation of a table changes whenever it is invalidated. A response is only stored if the
+   * generation is the same as when its request was sent, so a select racing with a write cannot put
+   * stale rows back into the cache.
+   */
+  long generation(String table) {
+    return generationOf(table).get();
+  }
+
+  synchronized ResponseBody getIfPresent(String key) {
+    sketch.increment(key);
+    var entry = entries.get(key);
+    if (entry == null) {
+      missCount.increment();
+      return null;
+    }
+    if (isExpired(entry)) {
+      remove(key, entry);
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    return entry.body();
+  }
+
+  void put(String key, String table, ResponseBody body, long generationAtRequest) {
+    var ttl = ttlOf(table);
+    var weight = body.bytes().length + ENTRY_OVERHEAD_BYTES;
+    if (ttl == null || weight > maximumWeight) {
+      return;
+    }
+    var entry = new CachedBody(table, body, weight, nanoClock.getAsLong() + ttl.toNanos());
+    synchronized (this) {
+      if (generation(table) != generationAtRequest) {
+        return;
+      }
+      var previous = entries.get(key);
+      var previousWeight = previous == null ? 0 : previous.weight();
+      if (!makeRoomFor(key, weight - previousWeight)) {
+        return;
+      }
+      entries.put(key, entry);
+      weightedSize += weight - previousWeight;
+    }
+  }
+
+  /**
+   * Evicts entries in access order until weight more fits. Only expired entries and entries
+   * requested less often than the candidate are victims. If those do not free enough room, the
+   * candidate is rejected and nothing is evicted, so a rejected put never leaves the cache emptier.
+   * Must be called while holding the lock.
+   */
+  private boolean makeRoomFor(String candidateKey, long weight) {
+    var excess = weightedSize + weight - maximumWeight;
+    if (excess <= 0) {
+      return true;
+    }
+    var candidateFrequency = sketch.frequency(candidateKey);
+    var victims = new ArrayList<Map.Entry<String, CachedBody>>();
+    var freed = 0L;
+    for (var entry : entries.entrySet()) {
+      if (freed >= excess) {
+        break;
+      }
+      if (entry.getKey().equals(candidateKey)) {
+        continue; // replaced by the candidate, its weight is already accounted for
+      }
+      if (isExpired(entry.getValue()) || candidateFrequency > sketch.frequency(entry.getKey())) {
+        victims.add(entry);
+        freed += entry.getValue().weight();
+      }
+    }
+    if (freed < excess) {
+      return false;
+    }
+    for (var victim : victims) {
+      if (!isExpired(victim.getValue())) {
+        evictionCount.increment();
+      }
+      remove(victim.getKey(), victim.getValue());
+    }
+    return true;
+  }
+
+  private void remove(String key, CachedBody entry) {
+    entries.remove(key);
+    weightedSize -= entry.weight();
+  }
+
+  private boolean isExpired(CachedBody entry) {
+    return nanoClock.getAsLong() - entry.expiresAtNanos() >= 0;
+  }
+
+  private Duration ttlOf(String table) {
+    return tableTtls.getOrDefault(table, defaultTtl);
+  }
+
+  private AtomicLong generationOf(String table) {
+    return tableGenerations.computeIfAbsent(table, ignored -> new AtomicLong());
+  }
+}
@@ -0,0 +1,60 @@
+package com.skhanal5.core;
+
+import com.skhanal5.models.SelectQuery;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Walks a table one page at a time. As soon as a full page arrives, the request for the following
+ * page is sent, so fetching page N+1 overlaps with the caller processing page N. Iteration stops at
+ * the first page that comes back with fewer rows than the page size, or at the end of the query's
+ * range if one is configured.
+ */
+class SelectPageIterator<T> implements Iterator<List<T>> {
+
+  private final Function<SelectQuery, CompletableFuture<List<T>>> fetchPage;
+
+  private final int pageSize;
+
+  private SelectQuery currentQuery;
+
+  private CompletableFuture<List<T>> inFlight;
+
+  private List<T> fetched;
+
+  SelectPageIterator(
+      SelectQuery query,
+      int pageSize,
+      Function<SelectQuery, CompletableFuture<List<T>>> fetchPage) {
+    this.fetchPage = fetchPage;
+    this.pageSize = pageSize;
+    this.currentQuery = query.firstPage(pageSize);
+    this.inFlight = fetchPage.apply(currentQuery);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (fetched == null && inFlight != null) {
+      fetched = SupabaseClient.await(inFlight);
+      inFlight = null;
+      if (fetched.size() >= pageSize && currentQuery.hasNextPage()) {
+        currentQuery = currentQuery.nextPage();
+        inFlight = fetchPage.apply(currentQuery);
+      }
+    }
+    return fetched != null && !fetched.isEmpty();
+  }
+
+  @Override
+  public List<T> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    var page = fetched;
+    fetched = null;
+    return page;
+  }
+}
@@ -1,10 +1,35 @@
 package com.skhanal5.core;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.skhanal5.constants.HeaderType;
+import com.skhanal5.exceptions.SupabaseException;
+import com.skhanal5.exceptions.SupabaseSerializationException;
+import com.skhanal5.metrics.RequestMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
 import com.skhanal5.models.*;
+import com.skhanal5.resilience.CircuitBreakerRegistry;
+import com.skhanal5.resilience.ConcurrencyLimiter;
+import com.skhanal5.resilience.HedgingPolicy;
+import com.skhanal5.resilience.RateLimiter;
+import com.skhanal5.resilience.RetryPolicy;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import lombok.*;
 
 /**
@@ -12,13 +37,20 @@ import lombok.*;
  * Database via REST. Utilizes HttpClient and Jackson under the hood to handle sending requests to
  * Supabase Database API and serializing responses.
  *
+ * <p>Every operation is offered in a blocking form (e.g. {@link #executeSelect(SelectQuery,
+ * Class)}) and a non-blocking form (e.g. {@link #executeSelectAsync(SelectQuery, Class)}) that
+ * returns a {@link CompletableFuture} without parking the calling thread. Both forms also accept a
+ * {@link TypeReference} or {@link JavaType} in place of the Class, for generic response types such
+ * as {@code List<Doctor>}.
+ *
  * <p>We expose two ways of initializing an instance of SupabaseClient to consumers .
  *
  * @see #newInstance(String, String) Using the database url and service key
  * @see #newInstance(String, String, ObjectMapper) Using the databaes url, service key, and a
  *     Jackson ObjectMapper
+ * @see SupabaseClientBuilder for further configuration, such as a {@link SelectCache}
  */
-public class SupabaseClient {
+public class SupabaseClient implements AutoCloseable {
 
   SupabaseHttpRequestSender sender;
 
@@ -26,14 +58,380 @@ public class SupabaseClient {
 
   Map<String, String> defaultHeaders;
 
+  SelectCache selectCache;
+
+  InFlightSelects inFlightSelects;
+
+  TypeFactory typeFactory;
+
+  // the virtual-thread executor the builder created for this client, null if it created none
+  ExecutorService ownedExecutor;
+
   private static final String ENDPOINT_PATH = "/rest/v1/";
 
   // correct usage of dependency injection
   SupabaseClient(
       SupabaseHttpRequestSender sender, String baseURI, Map<String, String> defaultHeaders) {
+    this(sender, baseURI, defaultHeaders, new SupabaseClientBuilder());
+  }
+
+  SupabaseClient(
+      SupabaseHttpRequestSender sender,
+      String baseURI,
+      Map<String, String> defaultHeaders,
+      SupabaseClientBuilder options) {
     this.sender = sender;
     this.baseURI = baseURI;
     this.defaultHeaders = defaultHeaders;
+    this.selectCache = options.selectCache;
+    this.inFlightSelects = options.coalesceSelects ? new InFlightSelects() : null;
+    this.typeFactory = options.mapper.getTypeFactory();
+  }
+
+  /**
+   * The main entrypoint to configure a SupabaseClient beyond what the {@link #newInstance(String,
+   * String)} factory methods offer.
+   *
+   * <pre>{@code
+   * var cache = new SelectCache.SelectCacheBuilder().ttl("countries", Duration.ofMinutes(5)).build();
+   * var client =
+   *     new SupabaseClient.SupabaseClientBuilder()
+   *         .databaseUrl(url)
+   *         .serviceKey(key)
+   *         .selectCache(cache)
+   *         .build();
+   * }</pre>
+   */
+  public static class SupabaseClientBuilder {
+
+    String databaseUrl;
+
+    String serviceKey;
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    SelectCache selectCache;
+
+    boolean coalesceSelects;
+
+    boolean compression;
+
+    HttpClient.Version httpVersion;
+
+    Executor executor;
+
+    Duration connectTimeout;
+
+    Duration requestTimeout;
+
+    HttpClient httpClient;
+
+    boolean virtualThreads;
+
+    ConcurrencyLimiter concurrencyLimiter;
+
+    RetryPolicy retryPolicy;
+
+    HedgingPolicy hedgingPolicy;
+
+    CircuitBreakerRegistry circuitBreakers;
+
+    RateLimiter rateLimiter;
+
+    RequestMetricsListener metricsListener;
+
+    /**
+     * @param databaseUrl Represents the Supabase Database API base URL.
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder databaseUrl(String databaseUrl) {
+      this.databaseUrl = databaseUrl;
+      return this;
+    }
+
+    /**
+     * @param serviceKey Represents the Supabase Database service key. Note, this should not be
+     *     exposed to clients.
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder serviceKey(String serviceKey) {
+      this.serviceKey = serviceKey;
+      return this;
+    }
+
+    /**
+     * @param mapper An instance of Jackson's ObjectMapper used to (de)serialize rows.
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder mapper(ObjectMapper mapper) {
+      this.mapper = mapper;
+      return this;
+    }
+
+    /**
+     * Used to serve repeated selects from an in-process cache. Writes made through the built client
+     * invalidate the cached responses of the table they write to.
+     *
+     * @param selectCache the cache to use
+     * @return a SupabaseClientBuilder with this configured
+     * @see SelectCache
+     */
+    public SupabaseClientBuilder selectCache(SelectCache selectCache) {
+      this.selectCache = selectCache;
+      return this;
+    }
+
+    /**
+     * Used to coalesce identical selects that are in flight at the same time into a single request.
+     * Every caller still receives its own deserialized copy of the response. This flattens the
+     * burst of identical requests that follows, for example, a popular cache entry expiring.
+     *
+     * @param coalesceSelects whether identical concurrent selects share one request
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder coalesceSelects(boolean coalesceSelects) {
+      this.coalesceSelects = coalesceSelects;
+      return this;
+    }
+
+    /**
+     * Used to ask the server for gzip or deflate compressed responses. Compressed bodies are
+     * inflated as they are parsed rather than into a buffer first, and are kept compressed in the
+     * {@link SelectCache}. This trades some CPU for less data on the wire, which pays off for large
+     * selects over slow or metered links.
+     *
+     * @param compression whether to accept compressed responses
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder compression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /**
+     * Used to pick the HTTP version. Defaults to {@link HttpClient.Version#HTTP_2}, which falls
+     * back to HTTP/1.1 when the server does not support it. Over HTTP/2, concurrent requests are
+     * multiplexed over a single connection instead of opening one connection each.
+     *
+     * @param httpVersion the preferred HTTP version
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder httpVersion(HttpClient.Version httpVersion) {
+      this.httpVersion = httpVersion;
+      return this;
+    }
+
+    /**
+     * Used to set the executor that runs the HttpClient's asynchronous tasks and dependent stages,
+     * including deserialization of async responses. Defaults to the HttpClient's own cached thread
+     * pool. The executor belongs to the caller, closing the client does not shut it down.
+     *
+     * @param executor the executor to use
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Used to bound how long establishing a connection may take.
+     *
+     * @param connectTimeout the connect timeout
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder connectTimeout(Duration connectTimeout) {
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    /**
+     * Used to bound how long each request may wait for its response headers. A request that takes
+     * longer fails with a {@link java.net.http.HttpTimeoutException}.
+     *
+     * @param requestTimeout the request timeout
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    /**
+     * Used to supply a fully configured HttpClient, e.g. one with a custom SSLContext, proxy or
+     * authenticator. Cannot be combined with {@link #httpVersion}, {@link #executor} or {@link
+     * #connectTimeout}, which only apply to the HttpClient built by this builder.
+     *
+     * <p>Connection reuse of any HttpClient is tuned through JVM wide system properties, e.g.
+     * {@code jdk.httpclient.connectionPoolSize} and {@code jdk.httpclient.keepalive.timeout}.
+     *
+     * @param httpClient the HttpClient to send requests with
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder httpClient(HttpClient httpClient) {
+      this.httpClient = httpClient;
+      return this;
+    }
+
+    /**
+     * Used to run the HttpClient's tasks and the deserialization of every response on virtual
+     * threads, one per task. Blocking calls such as {@link SupabaseClient#executeSelect} only park
+     * the calling thread, so when they are themselves issued from virtual threads, tens of
+     * thousands of queries can be in flight without a matching number of platform threads. Cannot
+     * be combined with {@link #executor} or {@link #httpClient}. The client owns the executor it
+     * creates for this, so it should be closed with {@link SupabaseClient#close()} once done.
+     *
+     * @param virtualThreads whether to execute on virtual threads
+     * @return a SupabaseClientBuilder with this configured
+     */
+    public SupabaseClientBuilder virtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * Used to bound how many requests this client has in flight at once. Requests over the limit
+     * wait or fail with a {@link com.skhanal5.exceptions.ConcurrencyLimitExceededException},
+     * depending on how the limiter's queue is configured. A permit is held until the response body
+     * has been read, except for streamed selects, which return it once the response headers arrive
+     * and read their rows afterwards.
+     *
+     * @param concurrencyLimiter the limiter to use
+     * @return a SupabaseClientBuilder with this configured
+     * @see ConcurrencyLimiter
+     */
+    public SupabaseClientBuilder concurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+      this.concurrencyLimiter = concurrencyLimiter;
+      return this;
+    }
+
+    /**
+     * Used to retry idempotent requests that fail transiently, e.g. with a 503 while PostgREST
+     * restarts or with a reset connection. Every retry goes through the concurrency limiter again.
+     *
+     * @param retryPolicy the retry policy to use
+     * @return a SupabaseClientBuilder with this configured
+     * @see RetryPolicy
+     */
+    public SupabaseClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    /**
+     * Used to hedge slow selects: once a select has been in flight for longer than the policy's
+     * latency percentile, it is sent a second time and whichever response arrives first is used.
+     * The other request is cancelled. Hedged selects are not retried, the hedge takes the place of
+     * the retry.
+     *
+     * @param hedgingPolicy the hedging policy to use
+     * @return a SupabaseClientBuilder with this configured
+     * @see HedgingPolicy
+     */
+    public SupabaseClientBuilder hedgingPolicy(HedgingPolicy hedgingPolicy) {
+      this.hedgingPolicy = hedgingPolicy;
+      return this;
+    }
+
+    /**
+     * Used to stop sending requests to tables whose requests keep failing or are slow. While the
+     * breaker of a table is open, its requests fail right away with a {@link
+     * com.skhanal5.exceptions.CircuitBreakerOpenException}. The breaker sees the outcome of a
+     * request after all its retries.
+     *
+     * @param circuitBreakers the registry holding the breaker of every table
+     * @return a SupabaseClientBuilder with this configured
+     * @see CircuitBreakerRegistry
+     */
+    public SupabaseClientBuilder circuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+      this.circuitBreakers = circuitBreakers;
+      return this;
+    }
+
+    /**
+     * Used to keep the rate of requests below the limits of a shared Supabase project, per table
+     * and for the whole client. Requests wait for a permit for at most the limiter's max wait, and
+     * fail with a {@link com.skhanal5.exceptions.RateLimitExceededException} after that. Retries do
+     * not take a permit of their own.
+     *
+     * @param rateLimiter the rate limiter to use
+     * @return a SupabaseClientBuilder with this configured
+     * @see RateLimiter
+     */
+    public SupabaseClientBuilder rateLimiter(RateLimiter rateLimiter) {
+      this.rateLimiter = rateLimiter;
+      return this;
+    }
+
+    /**
+     * Used to receive the timing of every phase of a request, from building it to deserializing its
+     * response, tagged with its table, method and status.
+     *
+     * @param metricsListener the listener to report to
+     * @return a SupabaseClientBuilder with this configured
+     * @see com.skhanal5.metrics.HistogramMetricsListener
+     * @see com.skhanal5.metrics.MicrometerMetricsListener
+     */
+    public SupabaseClientBuilder metricsListener(RequestMetricsListener metricsListener) {
+      this.metricsListener = metricsListener;
+      return this;
+    }
+
+    /**
+     * Used to build a SupabaseClient with all configurations.
+     *
+     * @return an instance of a SupabaseClient
+     */
+    public SupabaseClient build() {
+      return create(databaseUrl, serviceKey, mapper);
+    }
+
+    private SupabaseClient create(
+        @NonNull String databaseUrl, @NonNull String serviceKey, @NonNull ObjectMapper mapper) {
+      var baseUrl = databaseUrl + ENDPOINT_PATH;
+      if (virtualThreads && (executor != null || httpClient != null)) {
+        throw new IllegalStateException(
+            "virtualThreads cannot be combined with executor or httpClient");
+      }
+      var deserializationExecutor =
+          virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+      var sender =
+          new SupabaseHttpRequestSender(
+              buildHttpClient(deserializationExecutor), mapper, this, deserializationExecutor);
+      var clientHeaders = new HashMap<String, String>();
+      clientHeaders.put("apikey", serviceKey);
+      clientHeaders.put("Authorization", "Bearer " + serviceKey);
+      if (compression) {
+        clientHeaders.putAll(HeaderType.ACCEPT_COMPRESSED_RESPONSES);
+      }
+
+      var client = new SupabaseClient(sender, baseUrl, Map.copyOf(clientHeaders), this);
+      client.ownedExecutor = deserializationExecutor;
+      return client;
+    }
+
+    HttpClient buildHttpClient(Executor virtualThreadExecutor) {
+      if (httpClient != null) {
+        if (httpVersion != null || executor != null || connectTimeout != null) {
+          throw new IllegalStateException(
+              "httpVersion, executor and connectTimeout cannot be combined with httpClient");
+        }
+        return httpClient;
+      }
+      var builder = HttpClient.newBuilder();
+      if (httpVersion != null) {
+        builder.version(httpVersion);
+      }
+      if (executor != null) {
+        builder.executor(executor);
+      } else if (virtualThreadExecutor != null) {
+        builder.executor(virtualThreadExecutor);
+      }
+      if (connectTimeout != null) {
+        builder.connectTimeout(connectTimeout);
+      }
+      return builder.build();
+    }
   }
 
   /**
@@ -49,6 +447,33 @@ public class SupabaseClient {
     return this.execute(query, responseType, "GET");
   }
 
+  /**
+   * Executes a SelectQuery and returns the search response as a responseType, which can be a
+   * generic type such as {@code List<Doctor>}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelect(SelectQuery, Class)
+   */
+  public <T> T executeSelect(SelectQuery query, TypeReference<T> responseType) {
+    return this.execute(query, typeFactory.constructType(responseType), "GET");
+  }
+
+  /**
+   * Executes a SelectQuery and returns the search response as the responseType resolved by Jackson.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelect(SelectQuery, Class)
+   */
+  public <T> T executeSelect(SelectQuery query, JavaType responseType) {
+    return this.execute(query, responseType, "GET");
+  }
+
   /**
    * Executes a InsertQuery and returns the inserted row as a POJO of type responseType. The
    * responseType class definition should match the schema of your table.
@@ -65,6 +490,33 @@ public class SupabaseClient {
     return this.execute(query, responseType, "POST");
   }
 
+  /**
+   * Executes a InsertQuery and returns the inserted row as a responseType, which can be a generic
+   * type such as {@code List<Doctor>}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeInsert(InsertQuery, Class)
+   */
+  public <T> T executeInsert(InsertQuery query, TypeReference<T> responseType) {
+    return this.execute(query, typeFactory.constructType(responseType), "POST");
+  }
+
+  /**
+   * Executes a InsertQuery and returns the inserted row as the responseType resolved by Jackson.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeInsert(InsertQuery, Class)
+   */
+  public <T> T executeInsert(InsertQuery query, JavaType responseType) {
+    return this.execute(query, responseType, "POST");
+  }
+
   /**
    * Executes a UpdateQuery and returns the updated row as a POJO of type responseType. The
    * responseType class definition should match the schema of your table.
@@ -81,6 +533,33 @@ public class SupabaseClient {
     return this.execute(query, responseType, "PATCH");
   }
 
+  /**
+   * Executes a UpdateQuery and returns the updated row as a responseType, which can be a generic
+   * type such as {@code List<Doctor>}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeUpdate(UpdateQuery, Class)
+   */
+  public <T> T executeUpdate(UpdateQuery query, TypeReference<T> responseType) {
+    return this.execute(query, typeFactory.constructType(responseType), "PATCH");
+  }
+
+  /**
+   * Executes a UpdateQuery and returns the updated row as the responseType resolved by Jackson.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeUpdate(UpdateQuery, Class)
+   */
+  public <T> T executeUpdate(UpdateQuery query, JavaType responseType) {
+    return this.execute(query, responseType, "PATCH");
+  }
+
   /**
    * Executes a DeleteQuery and returns the deleted row as a POJO of type responseType. The
    * responseType class definition should match the schema of your table.
@@ -97,12 +576,543 @@ public class SupabaseClient {
     return this.execute(query, responseType, "DELETE");
   }
 
+  /**
+   * Executes a DeleteQuery and returns the deleted row as a responseType, which can be a generic
+   * type such as {@code List<Doctor>}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeDelete(DeleteQuery, Class)
+   */
+  public <T> T executeDelete(DeleteQuery query, TypeReference<T> responseType) {
+    return this.execute(query, typeFactory.constructType(responseType), "DELETE");
+  }
+
+  /**
+   * Executes a DeleteQuery and returns the deleted row as the responseType resolved by Jackson.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeDelete(DeleteQuery, Class)
+   */
+  public <T> T executeDelete(DeleteQuery query, JavaType responseType) {
+    return this.execute(query, responseType, "DELETE");
+  }
+
+  /**
+   * Executes a SelectQuery without blocking the calling thread. The returned future completes with
+   * the search response as a POJO of type responseType.
+   *
+   * <p>The future completes exceptionally with a {@link
+   * com.skhanal5.exceptions.SupabaseHttpException} if the server responds with a non-2xx status
+   * code, or a {@link SupabaseSerializationException} if the response cannot be deserialized.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a future of the response POJO
+   * @param <T> the type of the expected response POJO
+   */
+  public <T> CompletableFuture<T> executeSelectAsync(SelectQuery query, Class<T> responseType) {
+    return this.executeAsync(query, responseType, "GET");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeSelect(SelectQuery, TypeReference)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeSelectAsync(
+      SelectQuery query, TypeReference<T> responseType) {
+    return this.executeAsync(query, typeFactory.constructType(responseType), "GET");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeSelect(SelectQuery, JavaType)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeSelectAsync(SelectQuery query, JavaType responseType) {
+    return this.executeAsync(query, responseType, "GET");
+  }
+
+  /**
+   * Executes a InsertQuery without blocking the calling thread. The returned future completes with
+   * the inserted row as a POJO of type responseType, or null if select() is not invoked in your
+   * InsertQuery.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeInsertAsync(InsertQuery query, Class<T> responseType) {
+    return this.executeAsync(query, responseType, "POST");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeInsert(InsertQuery, TypeReference)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeInsertAsync(
+      InsertQuery query, TypeReference<T> responseType) {
+    return this.executeAsync(query, typeFactory.constructType(responseType), "POST");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeInsert(InsertQuery, JavaType)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeInsertAsync(InsertQuery query, JavaType responseType) {
+    return this.executeAsync(query, responseType, "POST");
+  }
+
+  /**
+   * Executes a UpdateQuery without blocking the calling thread. The returned future completes with
+   * the updated row as a POJO of type responseType, or null if select() is not invoked in your
+   * UpdateQuery.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeUpdateAsync(UpdateQuery query, Class<T> responseType) {
+    return this.executeAsync(query, responseType, "PATCH");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeUpdate(UpdateQuery, TypeReference)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeUpdateAsync(
+      UpdateQuery query, TypeReference<T> responseType) {
+    return this.executeAsync(query, typeFactory.constructType(responseType), "PATCH");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeUpdate(UpdateQuery, JavaType)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeUpdateAsync(UpdateQuery query, JavaType responseType) {
+    return this.executeAsync(query, responseType, "PATCH");
+  }
+
+  /**
+   * Executes a DeleteQuery without blocking the calling thread. The returned future completes with
+   * the deleted row as a POJO of type responseType, or null if select() is not invoked in your
+   * DeleteQuery.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeDeleteAsync(DeleteQuery query, Class<T> responseType) {
+    return this.executeAsync(query, responseType, "DELETE");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeDelete(DeleteQuery, TypeReference)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeDeleteAsync(
+      DeleteQuery query, TypeReference<T> responseType) {
+    return this.executeAsync(query, typeFactory.constructType(responseType), "DELETE");
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeDelete(DeleteQuery, JavaType)}.
+   *
+   * @param query The query to execute
+   * @param responseType The type that you want the response to be converted to
+   * @return a future of the response POJO or null
+   * @param <T> the type of the expected response POJO
+   * @see #executeSelectAsync(SelectQuery, Class) for the exceptions the future can complete with
+   */
+  public <T> CompletableFuture<T> executeDeleteAsync(DeleteQuery query, JavaType responseType) {
+    return this.executeAsync(query, responseType, "DELETE");
+  }
+
+  /**
+   * Executes a SelectQuery and streams the selected rows one at a time as POJOs of type rowType.
+   * The response body is parsed incrementally as the stream is consumed, so memory usage stays flat
+   * regardless of how many rows are returned. This method only blocks until the response headers
+   * arrive.
+   *
+   * <p>The returned stream holds on to the underlying connection and must be closed, ideally with a
+   * try-with-resources block:
+   *
+   * <pre>{@code
+   * try (var rows = client.executeSelectStream(query, Doctor.class)) {
+   *   rows.forEach(this::process);
+   * }
+   * }</pre>
+   *
+   * @param query The query to execute
+   * @param rowType The class of the POJO that each row should be converted to
+   * @return a lazy stream of the selected rows
+   * @param <T> the type of a single row POJO
+   */
+  public <T> Stream<T> executeSelectStream(SelectQuery query, Class<T> rowType) {
+    return await(executeSelectStreamAsync(query, rowType));
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeSelectStream(SelectQuery, Class)}. The future
+   * completes once the response headers arrive with a lazy stream of rows that must be closed.
+   *
+   * @param query The query to execute
+   * @param rowType The class of the POJO that each row should be converted to
+   * @return a future of a lazy stream of the selected rows
+   * @param <T> the type of a single row POJO
+   */
+  public <T> CompletableFuture<Stream<T>> executeSelectStreamAsync(
+      SelectQuery query, Class<T> rowType) {
+    try {
+      var request = newRequest(query, "GET");
+      return sender.streamRequest("GET", request, rowType);
+    } catch (JsonProcessingException e) {
+      return CompletableFuture.failedFuture(
+          new SupabaseSerializationException("Unable to serialize the request body", e));
+    }
+  }
+
+  /**
+   * Executes a SelectQuery page by page, walking the table in pages of pageSize rows. If the query
+   * has a range configured, paging starts at the beginning of that range. While the caller is
+   * processing one page, the request for the next page is already in flight.
+   *
+   * <p>Each call to {@link Iterator#next()} blocks until its page has arrived. Iteration ends after
+   * the first page with fewer than pageSize rows. Range based paging relies on the table returning
+   * rows in a stable order.
+   *
+   * @param query The query to execute
+   * @param pageSize The number of rows to request per page
+   * @param rowType The class of the POJO that each row should be converted to
+   * @return an iterator over the pages of rows
+   * @param <T> the type of a single row POJO
+   */
+  public <T> Iterator<List<T>> executeSelectPages(
+      SelectQuery query, int pageSize, Class<T> rowType) {
+    return new SelectPageIterator<>(query, pageSize, pageFetcher(rowType));
+  }
+
+  /**
+   * Executes a SelectQuery by splitting it into consecutive ranges of partitionSize rows that are
+   * fetched concurrently, then merged back in order. At most parallelism requests are in flight at
+   * once. If the query has a range configured, only rows within that range are fetched.
+   *
+   * <p>The rows are sorted by orderColumn so that every partition is deterministic. This should be
+   * a unique column such as the primary key. An order already set on the query is kept, orderColumn
+   * then only breaks its ties.
+   *
+   * <p>No partitions are requested past the first one that comes back short, but the partitions
+   * already in flight by then still complete. Without a configured range up to parallelism - 1 of
+   * those may lie past the last row and come back empty, so a range or a parallelism that fits the
+   * expected number of rows avoids the wasted requests.
+   *
+   * @param query The query to execute
+   * @param orderColumn The column that gives every row a stable position
+   * @param partitionSize The number of rows requested by each sub-request
+   * @param parallelism The maximum number of sub-requests in flight at once
+   * @param rowType The class of the POJO that each row should be converted to
+   * @return all selected rows, in order
+   * @param <T> the type of a single row POJO
+   */
+  public <T> List<T> executeSelectPartitioned(
+      SelectQuery query, String orderColumn, int partitionSize, int parallelism, Class<T> rowType) {
+    return await(
+        executeSelectPartitionedAsync(query, orderColumn, partitionSize, parallelism, rowType));
+  }
+
+  /**
+   * The non-blocking variant of {@link #executeSelectPartitioned(SelectQuery, String, int, int,
+   * Class)}.
+   *
+   * @param query The query to execute
+   * @param orderColumn The column that gives every row a stable position
+   * @param partitionSize The number of rows requested by each sub-request
+   * @param parallelism The maximum number of sub-requests in flight at once
+   * @param rowType The class of the POJO that each row should be converted to
+   * @return a future of all selected rows, in order
+   * @param <T> the type of a single row POJO
+   */
+  public <T> CompletableFuture<List<T>> executeSelectPartitionedAsync(
+      SelectQuery query, String orderColumn, int partitionSize, int parallelism, Class<T> rowType) {
+    var orderedQuery = query.withOrder(orderColumn);
+    return new PartitionedSelect<>(orderedQuery, partitionSize, parallelism, pageFetcher(rowType))
+        .execute();
+  }
+
+  /**
+   * Compiles the shape of a SelectQuery once so it can be executed repeatedly with different filter
+   * values. The URI, headers and body are encoded up front, so each execution only binds the
+   * values.
+   *
+   * @param query The query whose shape is compiled, its filter values act as defaults
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a PreparedQuery that binds values to the query's filter columns
+   * @param <T> the type of the expected response POJO
+   * @see PreparedQuery
+   */
+  public <T> PreparedQuery<T> prepareSelect(SelectQuery query, Class<T> responseType) {
+    return new PreparedQuery<>(
+        this, query, "GET", typeFactory.constructType(responseType), baseURI, defaultHeaders);
+  }
+
+  /**
+   * Compiles the shape of an UpdateQuery once so it can be executed repeatedly with different
+   * filter values. The values to update stay fixed.
+   *
+   * @param query The query whose shape is compiled, its filter values act as defaults
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a PreparedQuery that binds values to the query's filter columns
+   * @param <T> the type of the expected response POJO
+   * @see PreparedQuery
+   */
+  public <T> PreparedQuery<T> prepareUpdate(UpdateQuery query, Class<T> responseType) {
+    return new PreparedQuery<>(
+        this, query, "PATCH", typeFactory.constructType(responseType), baseURI, defaultHeaders);
+  }
+
+  /**
+   * Compiles the shape of a DeleteQuery once so it can be executed repeatedly with different filter
+   * values.
+   *
+   * @param query The query whose shape is compiled, its filter values act as defaults
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a PreparedQuery that binds values to the query's filter columns
+   * @param <T> the type of the expected response POJO
+   * @see PreparedQuery
+   */
+  public <T> PreparedQuery<T> prepareDelete(DeleteQuery query, Class<T> responseType) {
+    return new PreparedQuery<>(
+        this, query, "DELETE", typeFactory.constructType(responseType), baseURI, defaultHeaders);
+  }
+
+  /**
+   * Creates an {@link InsertBatcher} that collects single rows for table from many threads and
+   * inserts them with one multi-row request. A batch is sent once it holds maxBatchSize rows or
+   * once linger has passed since its first row was added.
+   *
+   * @param table The table the rows are inserted into
+   * @param maxBatchSize The number of rows that triggers sending a batch
+   * @param linger The longest time a row waits in the buffer before its batch is sent
+   * @return a new InsertBatcher, which should be closed when no longer needed
+   */
+  public InsertBatcher newInsertBatcher(
+      @NonNull String table, int maxBatchSize, @NonNull Duration linger) {
+    return new InsertBatcher(this, table, maxBatchSize, linger);
+  }
+
+  /**
+   * Shuts down the virtual threads this client runs on if it was built with {@link
+   * SupabaseClientBuilder#virtualThreads}, once the requests in flight have completed. The client
+   * cannot send requests afterwards. An executor or HttpClient passed to the builder belongs to the
+   * caller and is left running, and a client that did not create an executor holds nothing that
+   * needs closing.
+   */
+  @Override
+  public void close() {
+    if (ownedExecutor != null) {
+      // the HttpClient was built on the executor, so it is closed first to let its exchanges finish
+      sender.client.close();
+      ownedExecutor.close();
+    }
+  }
+
   <T> T execute(Query query, Class<T> responseType, String requestMethod) {
+    return await(executeAsync(query, responseType, requestMethod));
+  }
+
+  <T> T execute(Query query, JavaType responseType, String requestMethod) {
+    return await(executeAsync(query, responseType, requestMethod));
+  }
+
+  <T> CompletableFuture<T> executeAsync(Query query, Class<T> responseType, String requestMethod) {
+    return executeAsync(query, typeFactory.constructType(responseType), requestMethod);
+  }
+
+  <T> CompletableFuture<T> executeAsync(Query query, JavaType responseType, String requestMethod) {
+    var request = newRequest(query, requestMethod);
+    if (!"GET".equals(requestMethod)) {
+      return executeWriteAsync(query.getTable(), request, responseType, requestMethod);
+    }
+    return executeSelectAsync(
+        query.getTable(), () -> SelectCache.keyOf(query), request, responseType);
+  }
+
+  /**
+   * Executes a select through the select cache and the in-flight selects, if the client has them.
+   *
+   * @param keyOf supplies the canonical key of the select, only called if the select may be shared
+   */
+  <T> CompletableFuture<T> executeSelectAsync(
+      String table, Supplier<String> keyOf, SupabaseHttpRequest request, JavaType responseType) {
+    var cacheable = selectCache != null && selectCache.isCacheable(table);
+    if (!cacheable && inFlightSelects == null) {
+      return executeRequestAsync(request, responseType, "GET");
+    }
+    return executeSharedSelectAsync(table, keyOf.get(), request, responseType, cacheable);
+  }
+
+  private SupabaseHttpRequest newRequest(Query query, String requestMethod) {
+    var metricsListener = sender.metricsListener;
+    if (metricsListener == null) {
+      return new SupabaseHttpRequest(baseURI, defaultHeaders, query);
+    }
+    var startNanos = System.nanoTime();
+    var request = new SupabaseHttpRequest(baseURI, defaultHeaders, query);
+    metricsListener.onPhase(
+        RequestPhase.BUILD,
+        query.getTable(),
+        requestMethod,
+        RequestMetricsListener.NO_STATUS,
+        System.nanoTime() - startNanos);
+    return request;
+  }
+
+  <T> CompletableFuture<T> executeWriteAsync(
+      String table, SupabaseHttpRequest request, JavaType responseType, String requestMethod) {
+    if (selectCache == null && inFlightSelects == null) {
+      return executeRequestAsync(request, responseType, requestMethod);
+    }
+    // invalidate on both ends, selects sent while the write is in flight may see either state
+    invalidateSelects(table);
+    return this.<T>executeRequestAsync(request, responseType, requestMethod)
+        .whenComplete((response, error) -> invalidateSelects(table));
+  }
+
+  private void invalidateSelects(String table) {
+    if (selectCache != null) {
+      selectCache.invalidate(table);
+    }
+    if (inFlightSelects != null) {
+      inFlightSelects.forget(table);
+    }
+  }
+
+  /**
+   * Executes a select whose raw response body may be shared, either through the cache or with
+   * identical selects in flight. Every caller deserializes its own copy of the body.
+   */
+  private <T> CompletableFuture<T> executeSharedSelectAsync(
+      String table,
+      String key,
+      SupabaseHttpRequest request,
+      JavaType responseType,
+      boolean cacheable) {
+    if (cacheable) {
+      var cachedBody = selectCache.getIfPresent(key);
+      if (cachedBody != null) {
+        try {
+          return CompletableFuture.completedFuture(
+              sender.deserialize(cachedBody, responseType, table, "GET"));
+        } catch (SupabaseSerializationException e) {
+          return CompletableFuture.failedFuture(e);
+        }
+      }
+    }
+    Supplier<CompletableFuture<ResponseBody>> fetch =
+        cacheable ? () -> fetchAndCacheBody(key, table, request) : () -> fetchBody(request);
+    var body = inFlightSelects == null ? fetch.get() : inFlightSelects.join(key, fetch);
+    return sender.deserializeAsync(body, responseType, table, "GET");
+  }
+
+  private CompletableFuture<ResponseBody> fetchAndCacheBody(
+      String key, String table, SupabaseHttpRequest request) {
+    var generation = selectCache.generation(table);
+    return fetchBody(request)
+        .thenApply(
+            body -> {
+              selectCache.put(key, table, body, generation);
+              return body;
+            });
+  }
+
+  private CompletableFuture<ResponseBody> fetchBody(SupabaseHttpRequest request) {
     try {
-      var request = new SupabaseHttpRequest(baseURI, defaultHeaders, query);
-      return sender.invokeRequest(requestMethod, request, responseType).get();
-    } catch (InterruptedException | ExecutionException | JsonProcessingException e) {
-      throw new RuntimeException(e);
+      return sender.fetchBody("GET", request);
+    } catch (JsonProcessingException e) {
+      return CompletableFuture.failedFuture(
+          new SupabaseSerializationException("Unable to serialize the request body", e));
+    }
+  }
+
+  <T> CompletableFuture<T> executeRequestAsync(
+      SupabaseHttpRequest request, JavaType responseType, String requestMethod) {
+    try {
+      return sender.invokeRequest(requestMethod, request, responseType);
+    } catch (JsonProcessingException e) {
+      return CompletableFuture.failedFuture(
+          new SupabaseSerializationException("Unable to serialize the request body", e));
+    }
+  }
+
+  private <T> Function<SelectQuery, CompletableFuture<List<T>>> pageFetcher(Class<T> rowType) {
+    // pages are read straight into a List, resolved once for all pages
+    var pageType = typeFactory.constructCollectionType(List.class, rowType);
+    return page ->
+        this.<List<T>>executeAsync(page, pageType, "GET")
+            .thenApply(rows -> rows == null ? List.of() : rows);
+  }
+
+  /**
+   * Blocks on the future and surfaces {@link SupabaseException}s as they were raised, so blocking
+   * callers see the same exception types as the async API.
+   */
+  static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SupabaseException("Interrupted while waiting for a response from Supabase", e);
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof SupabaseException supabaseException) {
+        throw supabaseException;
+      }
+      throw new SupabaseException("Unable to execute the request against Supabase", cause);
     }
   }
 
@@ -133,12 +1143,10 @@ public class SupabaseClient {
    */
   public static SupabaseClient newInstance(
       @NonNull String databaseUrl, @NonNull String serviceKey, @NonNull ObjectMapper mapper) {
-    var baseUrl = databaseUrl + ENDPOINT_PATH;
-    var sender = new SupabaseHttpRequestSender(mapper);
-    var clientHeaders =
-        Map.ofEntries(
-            Map.entry("apikey", serviceKey), Map.entry("Authorization", "Bearer " + serviceKey));
-
-    return new SupabaseClient(sender, baseUrl, clientHeaders);
+    return new SupabaseClientBuilder()
+        .databaseUrl(databaseUrl)
+        .serviceKey(serviceKey)
+        .mapper(mapper)
+        .build();
   }
 }
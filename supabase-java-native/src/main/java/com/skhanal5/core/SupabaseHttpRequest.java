@@ -3,13 +3,21 @@ package com.skhanal5.core;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skhanal5.models.Query;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.time.Duration;
 import java.util.*;
 import java.util.Map.Entry;
 
 class SupabaseHttpRequest {
 
+  // the table the request is made for, which scopes its breaker, rate limit, metrics and caching
+  String table;
+
   URI uri;
 
   Map<String, String> queryParameters;
@@ -18,51 +26,120 @@ class SupabaseHttpRequest {
 
   Map<String, String> headers;
 
-  private static final ObjectMapper requestMapper = new ObjectMapper();
+  // bodies with at least this many rows are streamed instead of serialized up front
+  static final int STREAMING_THRESHOLD_ROWS = 1_000;
+
+  static final int STREAMING_CHUNK_BYTES = 16 * 1024;
 
   SupabaseHttpRequest(String baseURI, Map<String, String> defaultHeaders, Query query) {
+    this.table = query.getTable();
     this.queryParameters = query.buildQueryParams().orElse(Map.of());
     this.uri = buildURI(baseURI, query.getTable(), queryParameters);
     this.requestBody = query.buildRequestBody().orElse(List.of());
     this.headers = mergeHeaders(defaultHeaders, query.buildAdditionalHeaders());
   }
 
-  HttpRequest buildRequest(String methodName) throws JsonProcessingException {
-    var requestBuilder = HttpRequest.newBuilder();
-    headers.put(
-        "Content-Type",
-        "application/json"); // move this inside of the query's buildHeaders method as needed
+  SupabaseHttpRequest(
+      String table, URI uri, Map<String, String> headers, List<Map<String, Object>> requestBody) {
+    this.table = Objects.requireNonNull(table);
+    this.queryParameters = Map.of();
+    this.uri = uri;
+    this.requestBody = requestBody;
+    this.headers = headers;
+  }
+
+  /**
+   * Builds the HttpRequest that is sent to Supabase. Requests without rows to send, such as selects
+   * and deletes, go out without a body and without a Content-Type.
+   *
+   * @param methodName the HTTP method of the request
+   * @param mapper the mapper used to serialize the request body
+   */
+  HttpRequest buildRequest(String methodName, ObjectMapper mapper) throws JsonProcessingException {
+    return buildRequest(methodName, mapper, null);
+  }
+
+  HttpRequest buildRequest(String methodName, ObjectMapper mapper, Duration timeout)
+      throws JsonProcessingException {
+    var requestBuilder = HttpRequest.newBuilder(uri);
+    if (timeout != null) {
+      requestBuilder.timeout(timeout);
+    }
     headers.forEach(requestBuilder::setHeader);
-    String requestBodyToJsonString = requestMapper.writeValueAsString(requestBody);
-    return requestBuilder
-        .uri(uri)
-        .method(methodName, HttpRequest.BodyPublishers.ofString(requestBodyToJsonString))
-        .build();
+    if (requestBody.isEmpty()) {
+      return requestBuilder.method(methodName, BodyPublishers.noBody()).build();
+    }
+    // set on the builder rather than the map, which may be shared between requests
+    requestBuilder.setHeader("Content-Type", "application/json");
+    return requestBuilder.method(methodName, buildBodyPublisher(mapper)).build();
   }
 
+  /**
+   * Small bodies are serialized up front so the request carries a Content-Length. Bulk bodies are
+   * serialized chunk by chunk while the HttpClient sends them, so the whole JSON payload is never
+   * held in memory at once.
+   */
+  BodyPublisher buildBodyPublisher(ObjectMapper mapper) throws JsonProcessingException {
+    if (requestBody.size() < STREAMING_THRESHOLD_ROWS) {
+      return BodyPublishers.ofByteArray(mapper.writeValueAsBytes(requestBody));
+    }
+    return BodyPublishers.ofInputStream(
+        () -> {
+          try {
+            return new JsonArrayInputStream(mapper, requestBody, STREAMING_CHUNK_BYTES);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  /**
+   * Adds the query specific headers on top of the client's headers. The client's headers are
+   * immutable, so they are reused as is when the query has nothing to add.
+   */
   static Map<String, String> mergeHeaders(
       Map<String, String> headers, Optional<Map<String, String>> headersToAdd) {
-    var mergedHeaders = new HashMap<>(headers);
-    headersToAdd.ifPresent(mergedHeaders::putAll);
+    Objects.requireNonNull(headers);
+    if (headersToAdd.isEmpty() || headersToAdd.get().isEmpty()) {
+      return headers;
+    }
+    var additionalHeaders = headersToAdd.get();
+    var mergedHeaders =
+        HashMap.<String, String>newHashMap(headers.size() + additionalHeaders.size());
+    mergedHeaders.putAll(headers);
+    mergedHeaders.putAll(additionalHeaders);
     return mergedHeaders;
   }
 
   static URI buildURI(String baseURI, String path, Map<String, String> queryParameters) {
-    String fullURI = baseURI + path + "?" + serializeQueryParameters(queryParameters);
-    return URI.create(fullURI);
+    var fullURI = new StringBuilder(String.valueOf(baseURI).length() + 64);
+    fullURI.append(baseURI).append(path).append('?');
+    appendQueryParameters(fullURI, queryParameters);
+    return URI.create(fullURI.toString());
   }
 
   static String serializeQueryParameters(Map<String, String> queryParameters) {
+    var stringifyPathParams = new StringBuilder();
+    appendQueryParameters(stringifyPathParams, queryParameters);
+    return stringifyPathParams.toString();
+  }
+
+  private static void appendQueryParameters(
+      StringBuilder builder, Map<String, String> queryParameters) {
     if (queryParameters == null || queryParameters.isEmpty()) {
-      return "";
+      return;
     }
-
-    StringJoiner stringifyPathParams = new StringJoiner("&");
+    var first = true;
     for (Entry<String, String> keyValuePair : queryParameters.entrySet()) {
-      String currPathParam = keyValuePair.getKey() + "=" + encodeSpaces(keyValuePair.getValue());
-      stringifyPathParams.add(currPathParam);
+      if (!first) {
+        builder.append('&');
+      }
+      first = false;
+      builder
+          .append(keyValuePair.getKey())
+          .append('=')
+          .append(encodeSpaces(keyValuePair.getValue()));
     }
-    return stringifyPathParams.toString();
   }
 
   static String encodeSpaces(String URI) {
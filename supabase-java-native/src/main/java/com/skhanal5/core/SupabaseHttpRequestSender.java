@@ -1,11 +1,46 @@
 package com.skhanal5.core;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.skhanal5.exceptions.CircuitBreakerOpenException;
+import com.skhanal5.exceptions.SupabaseException;
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.exceptions.SupabaseSerializationException;
+import com.skhanal5.metrics.RequestMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
+import com.skhanal5.metrics.SupabaseRequestEvent;
+import com.skhanal5.resilience.CircuitBreaker;
+import com.skhanal5.resilience.CircuitBreakerRegistry;
+import com.skhanal5.resilience.ConcurrencyLimiter;
+import com.skhanal5.resilience.HedgingPolicy;
+import com.skhanal5.resilience.RateLimiter;
+import com.skhanal5.resilience.RetryPolicy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 class SupabaseHttpRequestSender {
 
@@ -13,42 +48,546 @@ class SupabaseHttpRequestSender {
 
   ObjectMapper mapper;
 
+  Duration requestTimeout;
+
+  // when set, responses are deserialized on this executor instead of the completing thread
+  Executor deserializationExecutor;
+
+  ConcurrencyLimiter concurrencyLimiter;
+
+  RetryPolicy retryPolicy;
+
+  HedgingPolicy hedgingPolicy;
+
+  CircuitBreakerRegistry circuitBreakers;
+
+  RateLimiter rateLimiter;
+
+  RequestMetricsListener metricsListener;
+
+  // when set, Content-Encoding is honoured and compressed bodies are inflated while they are read
+  boolean compression;
+
+  // readers are immutable and thread-safe, so each response type is resolved into one only once
+  private final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
   SupabaseHttpRequestSender(ObjectMapper mapper) {
-    this.client = HttpClient.newHttpClient();
-    this.mapper = mapper;
+    this(HttpClient.newHttpClient(), mapper);
   }
 
   SupabaseHttpRequestSender(HttpClient client, ObjectMapper mapper) {
+    this(client, mapper, new SupabaseClient.SupabaseClientBuilder(), null);
+  }
+
+  SupabaseHttpRequestSender(
+      HttpClient client,
+      ObjectMapper mapper,
+      SupabaseClient.SupabaseClientBuilder options,
+      Executor deserializationExecutor) {
     this.client = client;
     this.mapper = mapper;
+    this.requestTimeout = options.requestTimeout;
+    this.concurrencyLimiter = options.concurrencyLimiter;
+    this.retryPolicy = options.retryPolicy;
+    this.hedgingPolicy = options.hedgingPolicy;
+    this.circuitBreakers = options.circuitBreakers;
+    this.rateLimiter = options.rateLimiter;
+    this.metricsListener = options.metricsListener;
+    this.compression = options.compression;
+    this.deserializationExecutor = deserializationExecutor;
   }
 
   <T> CompletableFuture<T> invokeRequest(
-      String requestMethod, SupabaseHttpRequest request, Class<T> responseType)
+      String requestMethod, SupabaseHttpRequest request, JavaType responseType)
+      throws JsonProcessingException {
+    return deserializeAsync(
+        fetchBody(requestMethod, request), responseType, request.table, requestMethod);
+  }
+
+  /** Deserializes the body once it arrives, on the deserialization executor if one is set. */
+  <T> CompletableFuture<T> deserializeAsync(
+      CompletableFuture<ResponseBody> responseBody,
+      JavaType responseType,
+      String table,
+      String requestMethod) {
+    if (deserializationExecutor == null) {
+      return responseBody.thenApply(body -> deserialize(body, responseType, table, requestMethod));
+    }
+    return responseBody.thenApplyAsync(
+        body -> deserialize(body, responseType, table, requestMethod), deserializationExecutor);
+  }
+
+  /**
+   * Sends the request and completes with the validated, not yet deserialized response body. Used
+   * where the raw body outlives the call, e.g. when it is cached. The body is kept as the bytes
+   * received, still compressed if it was, Jackson parses UTF-8 directly so decoding it into a
+   * String first would be wasted.
+   */
+  CompletableFuture<ResponseBody> fetchBody(String requestMethod, SupabaseHttpRequest request)
+      throws JsonProcessingException {
+    var event = new SupabaseRequestEvent();
+    event.begin();
+    var httpRequest = buildHttpRequest(requestMethod, request);
+    var handler = timed(BodyHandlers.ofByteArray(), request, requestMethod);
+    var hedged = hedgingPolicy != null && "GET".equals(requestMethod);
+    var response =
+        sendThroughBreaker(
+            request,
+            () ->
+                hedged
+                    ? sendRateLimited(request, () -> sendHedged(httpRequest, handler))
+                    : sendRateLimited(request, () -> send(httpRequest, handler)));
+    if (event.isEnabled()) {
+      response =
+          response.whenComplete(
+              (completed, error) ->
+                  commitEvent(
+                      event,
+                      request,
+                      httpRequest,
+                      completed,
+                      completed == null ? -1 : lengthOf(completed.body())));
+    }
+    return typed(response.thenApply(this::validateStatusCode).thenApply(this::responseBody));
+  }
+
+  /**
+   * Sends the request and exposes the JSON array in the response body as a lazy {@link Stream},
+   * reading the body straight off the wire instead of buffering it. The future completes once the
+   * response headers have arrived; rows are deserialized as the stream is consumed.
+   */
+  <T> CompletableFuture<Stream<T>> streamRequest(
+      String requestMethod, SupabaseHttpRequest request, Class<T> rowType)
       throws JsonProcessingException {
-    var httpRequest = request.buildRequest(requestMethod);
-    return client
-        .sendAsync(httpRequest, BodyHandlers.ofString())
-        .thenApply(this::validateStatusCode)
-        .thenApply(e -> deserialize(e.body(), responseType));
+    var event = new SupabaseRequestEvent();
+    event.begin();
+    var httpRequest = buildHttpRequest(requestMethod, request);
+    var handler = timed(BodyHandlers.ofInputStream(), request, requestMethod);
+    var response =
+        sendThroughBreaker(
+            request, () -> sendRateLimited(request, () -> send(httpRequest, handler)));
+    if (event.isEnabled()) {
+      // the body is still to be read, so the event ends with the headers
+      response =
+          response.whenComplete(
+              (completed, error) ->
+                  commitEvent(
+                      event,
+                      request,
+                      httpRequest,
+                      completed,
+                      completed == null
+                          ? -1
+                          : completed.headers().firstValueAsLong("Content-Length").orElse(-1)));
+    }
+    return typed(
+        response
+            .thenApply(this::validateStreamStatusCode)
+            .thenApply(
+                validated -> streamRows(validated.body(), contentEncoding(validated), rowType)));
+  }
+
+  /**
+   * Completes with the same exception types the blocking API throws, transport and serialization
+   * failures would otherwise surface as raw {@link IOException}s. Applied after the circuit breaker
+   * so it still sees the original failure.
+   */
+  private static <T> CompletableFuture<T> typed(CompletableFuture<T> future) {
+    return future.exceptionallyCompose(
+        error -> CompletableFuture.failedFuture(toSupabaseException(unwrap(error))));
+  }
+
+  private static Throwable toSupabaseException(Throwable error) {
+    var cause = error instanceof UncheckedIOException unchecked ? unchecked.getCause() : error;
+    if (error instanceof SupabaseException || error instanceof CancellationException) {
+      return error;
+    }
+    if (cause instanceof JsonProcessingException) {
+      return new SupabaseSerializationException("Unable to serialize the request body", cause);
+    }
+    if (cause instanceof IOException) {
+      return new SupabaseException("Unable to send the request to Supabase", cause);
+    }
+    return new SupabaseException("Unable to execute the request against Supabase", cause);
+  }
+
+  private static void commitEvent(
+      SupabaseRequestEvent event,
+      SupabaseHttpRequest request,
+      HttpRequest httpRequest,
+      HttpResponse<?> response,
+      long responseBytes) {
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    event.table = request.table;
+    event.method = httpRequest.method();
+    event.uriLength = httpRequest.uri().toString().length();
+    event.requestBytes = httpRequest.bodyPublisher().map(BodyPublisher::contentLength).orElse(0L);
+    event.status = response == null ? 0 : response.statusCode();
+    event.responseBytes = responseBytes;
+    event.commit();
+  }
+
+  private static long lengthOf(byte[] body) {
+    return body == null ? 0 : body.length;
+  }
+
+  private ResponseBody responseBody(HttpResponse<byte[]> response) {
+    return new ResponseBody(response.body(), contentEncoding(response), response.statusCode());
+  }
+
+  /**
+   * @return the Content-Encoding of the response, or null if compression is disabled, in which case
+   *     no Accept-Encoding was sent and the body is taken as is
+   */
+  private String contentEncoding(HttpResponse<?> response) {
+    return compression ? response.headers().firstValue("Content-Encoding").orElse(null) : null;
+  }
+
+  private HttpRequest buildHttpRequest(String requestMethod, SupabaseHttpRequest request)
+      throws JsonProcessingException {
+    if (metricsListener == null) {
+      return request.buildRequest(requestMethod, mapper, requestTimeout);
+    }
+    var startNanos = System.nanoTime();
+    var httpRequest = request.buildRequest(requestMethod, mapper, requestTimeout);
+    metricsListener.onPhase(
+        RequestPhase.SERIALIZE,
+        request.table,
+        requestMethod,
+        RequestMetricsListener.NO_STATUS,
+        System.nanoTime() - startNanos);
+    return httpRequest;
+  }
+
+  private <B> BodyHandler<B> timed(
+      BodyHandler<B> handler, SupabaseHttpRequest request, String requestMethod) {
+    if (metricsListener == null) {
+      return handler;
+    }
+    return new PhaseTimingBodyHandler<>(handler, metricsListener, request.table, requestMethod);
+  }
+
+  /**
+   * Sends the request if the circuit breaker of its table, if one is configured, lets it through
+   * and reports its outcome back to the breaker. Requests the client rejected itself, e.g. over the
+   * concurrency limit, say nothing about the endpoint and are not counted.
+   */
+  private <B> CompletableFuture<HttpResponse<B>> sendThroughBreaker(
+      SupabaseHttpRequest request, Supplier<CompletableFuture<HttpResponse<B>>> sendRequest) {
+    if (circuitBreakers == null) {
+      return sendRequest.get();
+    }
+    CircuitBreaker.Permit permit;
+    try {
+      permit = circuitBreakers.forTable(request.table).acquire();
+    } catch (CircuitBreakerOpenException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return sendRequest
+        .get()
+        .whenComplete(
+            (response, error) -> {
+              var cause = error == null ? null : unwrap(error);
+              if (response != null) {
+                permit.onResponse(response.statusCode());
+              } else if (cause instanceof SupabaseException
+                  || cause instanceof CancellationException) {
+                permit.onIgnore();
+              } else {
+                permit.onFailure();
+              }
+            });
+  }
+
+  /**
+   * Waits for a permit of the rate limiter, if one is configured, before sending the request. A
+   * request takes a single permit, however many attempts its retries or hedges make.
+   */
+  private <B> CompletableFuture<HttpResponse<B>> sendRateLimited(
+      SupabaseHttpRequest request, Supplier<CompletableFuture<HttpResponse<B>>> sendRequest) {
+    if (rateLimiter == null) {
+      return sendRequest.get();
+    }
+    return rateLimiter.acquire(request.table).thenCompose(ignored -> sendRequest.get());
   }
 
-  HttpResponse<String> validateStatusCode(HttpResponse<String> response) {
+  /**
+   * The single point through which every request leaves the client. Idempotent requests that fail
+   * transiently are retried according to the retry policy, if one is configured.
+   */
+  <B> CompletableFuture<HttpResponse<B>> send(HttpRequest httpRequest, BodyHandler<B> handler) {
+    if (retryPolicy == null || !retryPolicy.isRetryableMethod(httpRequest.method())) {
+      return sendAttempt(httpRequest, handler);
+    }
+    retryPolicy.onRequest();
+    return sendWithRetries(httpRequest, handler, 1, 0);
+  }
+
+  private <B> CompletableFuture<HttpResponse<B>> sendWithRetries(
+      HttpRequest httpRequest, BodyHandler<B> handler, int attempts, long previousDelayNanos) {
+    return sendAttempt(httpRequest, handler)
+        .handle(
+            (response, error) -> {
+              var retryable =
+                  error != null
+                      ? retryPolicy.isRetryableError(error)
+                      : retryPolicy.isRetryableStatus(response.statusCode());
+              if (!retryable || !retryPolicy.tryRetry(attempts)) {
+                return error != null
+                    ? CompletableFuture.<HttpResponse<B>>failedFuture(unwrap(error))
+                    : CompletableFuture.completedFuture(response);
+              }
+              var delayNanos =
+                  response != null
+                      ? retryPolicy.nextDelayNanos(
+                          previousDelayNanos,
+                          response.statusCode(),
+                          response.headers().firstValue("Retry-After").orElse(null))
+                      : retryPolicy.nextDelayNanos(previousDelayNanos);
+              discard(response);
+              var delayed = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS);
+              return CompletableFuture.runAsync(() -> {}, delayed)
+                  .thenCompose(
+                      ignored -> sendWithRetries(httpRequest, handler, attempts + 1, delayNanos));
+            })
+        .thenCompose(Function.identity());
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause()
+        : error;
+  }
+
+  // a response that is retried is never read, release its body if it holds a connection
+  private static void discard(HttpResponse<?> response) {
+    if (response != null && response.body() instanceof AutoCloseable body) {
+      try {
+        body.close();
+      } catch (Exception ignored) {
+        // nothing left to do with a response that is thrown away
+      }
+    }
+  }
+
+  /**
+   * Sends a select and, if it is still in flight after the hedge delay, sends it a second time.
+   * Whichever attempt responds first wins and the other one is cancelled, which aborts its exchange
+   * in the HttpClient. The request only fails if every attempt it made failed.
+   */
+  <B> CompletableFuture<HttpResponse<B>> sendHedged(
+      HttpRequest httpRequest, BodyHandler<B> handler) {
+    hedgingPolicy.onRequest();
+    var result = new CompletableFuture<HttpResponse<B>>();
+    var pendingAttempts = new AtomicInteger(1);
+    var cancelPrimary = new CompletableFuture<Void>();
+    var cancelHedge = new CompletableFuture<Void>();
+    var startNanos = System.nanoTime();
+    sendAttempt(httpRequest, handler, cancelPrimary)
+        .whenComplete(
+            (response, error) -> {
+              // a primary that lost to the hedge still counts, as a lower bound of its latency,
+              // otherwise the slowest selects drop out of the histogram and the delay keeps
+              // shrinking
+              if (response != null || cancelPrimary.isDone()) {
+                hedgingPolicy.recordLatency(System.nanoTime() - startNanos);
+              }
+              settleHedged(result, response, error, pendingAttempts, cancelHedge);
+            });
+    var delayNanos = hedgingPolicy.hedgeDelayNanos();
+    if (delayNanos >= 0) {
+      var delayed = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS);
+      delayed.execute(
+          () -> {
+            if (result.isDone() || !hedgingPolicy.tryHedge()) {
+              return;
+            }
+            // once the primary failed there is nothing left to race against
+            if (pendingAttempts.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+              return;
+            }
+            sendAttempt(httpRequest, handler, cancelHedge)
+                .whenComplete(
+                    (response, error) ->
+                        settleHedged(result, response, error, pendingAttempts, cancelPrimary));
+          });
+    }
+    return result;
+  }
+
+  private static <B> void settleHedged(
+      CompletableFuture<HttpResponse<B>> result,
+      HttpResponse<B> response,
+      Throwable error,
+      AtomicInteger pendingAttempts,
+      CompletableFuture<Void> cancelOther) {
+    var remaining = pendingAttempts.decrementAndGet();
+    if (response != null) {
+      if (result.complete(response)) {
+        cancelOther.complete(null);
+      } else {
+        discard(response);
+      }
+    } else if (remaining == 0) {
+      result.completeExceptionally(unwrap(error));
+    }
+  }
+
+  private <B> CompletableFuture<HttpResponse<B>> sendAttempt(
+      HttpRequest httpRequest, BodyHandler<B> handler) {
+    return sendAttempt(httpRequest, handler, null);
+  }
+
+  /**
+   * Sends a single attempt of a request. Attempts wait for a permit of the concurrency limiter, if
+   * one is configured, which is returned once the HttpClient completes the response. For buffered
+   * bodies that is after the whole body has been read, only streamed selects, whose body is read
+   * later from an InputStream, return it once the response headers arrive. Completing the
+   * cancellation future aborts the exchange, which the future returned here would not do since it
+   * is not the HttpClient's own.
+   */
+  private <B> CompletableFuture<HttpResponse<B>> sendAttempt(
+      HttpRequest httpRequest, BodyHandler<B> handler, CompletableFuture<Void> cancellation) {
+    if (concurrencyLimiter == null) {
+      return cancellable(client.sendAsync(httpRequest, startAttempt(handler)), cancellation);
+    }
+    return concurrencyLimiter
+        .acquire()
+        .thenCompose(
+            permit ->
+                cancellable(client.sendAsync(httpRequest, startAttempt(handler)), cancellation)
+                    .whenComplete(
+                        (response, error) -> {
+                          if (response != null) {
+                            permit.onResponse(response.statusCode());
+                          } else if (error instanceof HttpTimeoutException
+                              || error.getCause() instanceof HttpTimeoutException) {
+                            permit.onDropped();
+                          } else {
+                            permit.onIgnore();
+                          }
+                        }));
+  }
+
+  private static <B> BodyHandler<B> startAttempt(BodyHandler<B> handler) {
+    return handler instanceof PhaseTimingBodyHandler<B> timing ? timing.startAttempt() : handler;
+  }
+
+  private static <B> CompletableFuture<HttpResponse<B>> cancellable(
+      CompletableFuture<HttpResponse<B>> exchange, CompletableFuture<Void> cancellation) {
+    if (cancellation != null) {
+      cancellation.thenRun(() -> exchange.cancel(true));
+    }
+    return exchange;
+  }
+
+  HttpResponse<byte[]> validateStatusCode(HttpResponse<byte[]> response) {
     var statusCode = response.statusCode();
-    var isStatusCodeValue = statusCode >= 200 && statusCode < 300;
-    if (isStatusCodeValue) {
+    if (isSuccessful(statusCode)) {
       return response;
     }
-    throw new RuntimeException(
-        "Received an invalid status code from the server: "
-            + response.statusCode()); // replace with an actual exception
+    var body = response.body();
+    if (body == null) {
+      throw new SupabaseHttpException(statusCode, null);
+    }
+    try (var decoded =
+        ResponseBody.decode(new ByteArrayInputStream(body), contentEncoding(response))) {
+      throw new SupabaseHttpException(
+          statusCode, new String(decoded.readAllBytes(), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new SupabaseHttpException(statusCode, null);
+    }
   }
 
-  <T> T deserialize(String responseBody, Class<T> responseType) {
+  HttpResponse<InputStream> validateStreamStatusCode(HttpResponse<InputStream> response) {
+    var statusCode = response.statusCode();
+    if (isSuccessful(statusCode)) {
+      return response;
+    }
+    if (response.body() == null) {
+      throw new SupabaseHttpException(statusCode, null);
+    }
+    // error bodies are small, so it is fine to read them fully for the exception
+    try (var body = ResponseBody.decode(response.body(), contentEncoding(response))) {
+      throw new SupabaseHttpException(
+          statusCode, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new SupabaseHttpException(statusCode, null);
+    }
+  }
+
+  <T> Stream<T> streamRows(InputStream responseBody, Class<T> rowType) {
+    return streamRows(responseBody, null, rowType);
+  }
+
+  <T> Stream<T> streamRows(InputStream responseBody, String contentEncoding, Class<T> rowType) {
     try {
-      return this.mapper.readValue(responseBody, responseType);
-    } catch (JsonProcessingException e) {
-      throw new RuntimeException(e);
+      var body = ResponseBody.decode(responseBody, contentEncoding);
+      var parser = this.mapper.getFactory().createParser(body);
+      var reader = readerFor(this.mapper.getTypeFactory().constructType(rowType));
+      return new JsonArrayIterator<T>(parser, reader).toStream();
+    } catch (IOException e) {
+      throw new SupabaseSerializationException("Unable to read the streamed response body", e);
+    }
+  }
+
+  private static boolean isSuccessful(int statusCode) {
+    return statusCode >= 200 && statusCode < 300;
+  }
+
+  <T> T deserialize(
+      ResponseBody responseBody, JavaType responseType, String table, String requestMethod) {
+    if (metricsListener == null) {
+      return deserialize(responseBody, responseType);
     }
+    var startNanos = System.nanoTime();
+    try {
+      return deserialize(responseBody, responseType);
+    } finally {
+      metricsListener.onPhase(
+          RequestPhase.DESERIALIZE,
+          table,
+          requestMethod,
+          responseBody == null ? RequestMetricsListener.NO_STATUS : responseBody.status(),
+          System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Converts the response body into the responseType. An empty body, which is what PostgREST sends
+   * back for writes without select(), is mapped to null.
+   */
+  <T> T deserialize(ResponseBody responseBody, JavaType responseType) {
+    if (responseBody == null || responseBody.isEmpty()) {
+      return null;
+    }
+    try {
+      if (!responseBody.isEncoded()) {
+        return readerFor(responseType).readValue(responseBody.bytes());
+      }
+      // inflate straight into the parser instead of into another buffer first
+      try (var body = responseBody.open()) {
+        return readerFor(responseType).readValue(body);
+      }
+    } catch (IOException e) {
+      throw new SupabaseSerializationException(
+          "Unable to deserialize the response body into " + responseType.toCanonical(), e);
+    }
+  }
+
+  <T> T deserialize(byte[] responseBody, JavaType responseType) {
+    return deserialize(ResponseBody.of(responseBody), responseType);
+  }
+
+  <T> T deserialize(byte[] responseBody, Class<T> responseType) {
+    return deserialize(responseBody, this.mapper.getTypeFactory().constructType(responseType));
+  }
+
+  ObjectReader readerFor(JavaType type) {
+    var reader = readers.get(type);
+    return reader != null ? reader : readers.computeIfAbsent(type, this.mapper::readerFor);
   }
 }
@@ -0,0 +1,99 @@
+package com.skhanal5.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class InFlightSelectsTest {
+
+  private static final ResponseBody BODY = ResponseBody.of("[]".getBytes(StandardCharsets.UTF_8));
+
+  @Test
+  void testJoinSharesInFlightRequest() {
+    var inFlight = new InFlightSelects();
+    var response = new CompletableFuture<ResponseBody>();
+    var fetches = new AtomicInteger();
+
+    var first = inFlight.join("foo?", () -> countingFetch(fetches, response));
+    var second = inFlight.join("foo?", () -> countingFetch(fetches, response));
+    response.complete(BODY);
+
+    Assertions.assertEquals(1, fetches.get());
+    Assertions.assertSame(BODY, first.join());
+    Assertions.assertSame(BODY, second.join());
+    Assertions.assertEquals(0, inFlight.size());
+  }
+
+  @Test
+  void testJoinDoesNotShareDifferentKeys() {
+    var inFlight = new InFlightSelects();
+    var fetches = new AtomicInteger();
+
+    inFlight.join("foo?a=1&", () -> countingFetch(fetches, new CompletableFuture<>()));
+    inFlight.join("foo?a=2&", () -> countingFetch(fetches, new CompletableFuture<>()));
+
+    Assertions.assertEquals(2, fetches.get());
+  }
+
+  @Test
+  void testJoinStartsNewRequestOnceCompleted() {
+    var inFlight = new InFlightSelects();
+    var fetches = new AtomicInteger();
+
+    inFlight.join("foo?", () -> countingFetch(fetches, CompletableFuture.completedFuture(BODY)));
+    inFlight.join("foo?", () -> countingFetch(fetches, CompletableFuture.completedFuture(BODY)));
+
+    Assertions.assertEquals(2, fetches.get());
+  }
+
+  @Test
+  void testJoinPropagatesFailureToEveryCaller() {
+    var inFlight = new InFlightSelects();
+    var response = new CompletableFuture<ResponseBody>();
+
+    var first = inFlight.join("foo?", () -> response);
+    var second = inFlight.join("foo?", () -> response);
+    response.completeExceptionally(new IllegalStateException());
+
+    Assertions.assertTrue(first.isCompletedExceptionally());
+    Assertions.assertTrue(second.isCompletedExceptionally());
+    Assertions.assertEquals(0, inFlight.size());
+  }
+
+  @Test
+  void testJoinCompletesExceptionallyWhenFetchThrows() {
+    var inFlight = new InFlightSelects();
+
+    var result =
+        inFlight.join(
+            "foo?",
+            () -> {
+              throw new IllegalStateException();
+            });
+
+    Assertions.assertTrue(result.isCompletedExceptionally());
+    Assertions.assertEquals(0, inFlight.size());
+  }
+
+  @Test
+  void testForgetDetachesOnlyThatTable() {
+    var inFlight = new InFlightSelects();
+    var fetches = new AtomicInteger();
+    inFlight.join("foo?", () -> countingFetch(fetches, new CompletableFuture<>()));
+    inFlight.join("foobar?", () -> countingFetch(fetches, new CompletableFuture<>()));
+
+    inFlight.forget("foo");
+    inFlight.join("foo?", () -> countingFetch(fetches, new CompletableFuture<>()));
+    inFlight.join("foobar?", () -> countingFetch(fetches, new CompletableFuture<>()));
+
+    Assertions.assertEquals(3, fetches.get());
+  }
+
+  private static CompletableFuture<ResponseBody> countingFetch(
+      AtomicInteger fetches, CompletableFuture<ResponseBody> response) {
+    fetches.incrementAndGet();
+    return response;
+  }
+}
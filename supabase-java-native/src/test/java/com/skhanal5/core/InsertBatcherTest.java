@@ -0,0 +1,109 @@
+package com.skhanal5.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.models.InsertQuery;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class InsertBatcherTest {
+
+  private static SupabaseClient mockClientReturning(CompletableFuture<Void> result) {
+    var client = mock(SupabaseClient.class);
+    when(client.executeInsertAsync(any(), eq(Void.class))).thenReturn(result);
+    return client;
+  }
+
+  @Test
+  void testFlushesWhenBatchIsFull() {
+    var client = mockClientReturning(CompletableFuture.completedFuture(null));
+    try (var batcher = new InsertBatcher(client, "foo", 2, Duration.ofHours(1))) {
+      var first = batcher.add(Map.of("id", 1));
+      Assertions.assertFalse(first.isDone());
+      var second = batcher.add(Map.of("id", 2));
+
+      var captor = ArgumentCaptor.forClass(InsertQuery.class);
+      verify(client).executeInsertAsync(captor.capture(), eq(Void.class));
+      Assertions.assertEquals("foo", captor.getValue().getTable());
+      Assertions.assertEquals(
+          List.of(Map.of("id", 1), Map.of("id", 2)), captor.getValue().getValuesToInsert());
+      Assertions.assertTrue(first.isDone());
+      Assertions.assertTrue(second.isDone());
+    }
+  }
+
+  @Test
+  void testFlushesAfterLinger() throws Exception {
+    var client = mockClientReturning(CompletableFuture.completedFuture(null));
+    try (var batcher = new InsertBatcher(client, "foo", 100, Duration.ofMillis(10))) {
+      var row = batcher.add(Map.of("id", 1));
+      row.get(5, TimeUnit.SECONDS);
+      verify(client, timeout(5000)).executeInsertAsync(any(), eq(Void.class));
+    }
+  }
+
+  @Test
+  void testCloseFlushesBufferedRows() {
+    var client = mockClientReturning(CompletableFuture.completedFuture(null));
+    var batcher = new InsertBatcher(client, "foo", 100, Duration.ofHours(1));
+    var row = batcher.add(Map.of("id", 1));
+    verify(client, never()).executeInsertAsync(any(), eq(Void.class));
+
+    batcher.close();
+
+    Assertions.assertTrue(row.isDone());
+    Assertions.assertThrows(IllegalStateException.class, () -> batcher.add(Map.of("id", 2)));
+  }
+
+  @Test
+  void testBatchThatCannotBeSentFailsEveryRow() {
+    var failure = new IllegalStateException("oops");
+    var client = mock(SupabaseClient.class);
+    when(client.executeInsertAsync(any(), eq(Void.class))).thenThrow(failure);
+    try (var batcher = new InsertBatcher(client, "foo", 2, Duration.ofHours(1))) {
+      var first = batcher.add(Map.of("id", 1));
+      var second = Assertions.assertDoesNotThrow(() -> batcher.add(Map.of("id", 2)));
+
+      for (var row : List.of(first, second)) {
+        var exception = Assertions.assertThrows(ExecutionException.class, row::get);
+        Assertions.assertSame(failure, exception.getCause());
+      }
+    }
+  }
+
+  @Test
+  void testFailedBatchFailsEveryRow() {
+    var failure = new SupabaseHttpException(400, "");
+    var client = mockClientReturning(CompletableFuture.failedFuture(failure));
+    try (var batcher = new InsertBatcher(client, "foo", 2, Duration.ofHours(1))) {
+      var first = batcher.add(Map.of("id", 1));
+      var second = batcher.add(Map.of("id", 2));
+      for (var row : List.of(first, second)) {
+        var exception = Assertions.assertThrows(ExecutionException.class, row::get);
+        Assertions.assertSame(failure, exception.getCause());
+      }
+    }
+  }
+
+  @Test
+  void testRejectsNonPositiveBatchSize() {
+    var client = mockClientReturning(CompletableFuture.completedFuture(null));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new InsertBatcher(client, "foo", 0, Duration.ofMillis(1)));
+  }
+}
@@ -0,0 +1,62 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JsonArrayInputStreamTest {
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private static List<Map<String, Object>> rows(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> Map.<String, Object>of("id", i, "name", "row " + i))
+        .toList();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 16, 1024})
+  void testProducesSameJsonAsObjectMapper(int chunkSize) throws IOException {
+    var rows = rows(200);
+    try (var stream = new JsonArrayInputStream(mapper, rows, chunkSize)) {
+      var json = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+      Assertions.assertEquals(mapper.writeValueAsString(rows), json);
+    }
+  }
+
+  @Test
+  void testEmptyRows() throws IOException {
+    try (var stream = new JsonArrayInputStream(mapper, List.of(), 16)) {
+      Assertions.assertEquals("[]", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void testSingleByteReads() throws IOException {
+    var rows = rows(3);
+    var expected = mapper.writeValueAsBytes(rows);
+    try (var stream = new JsonArrayInputStream(mapper, rows, 8)) {
+      for (byte expectedByte : expected) {
+        Assertions.assertEquals(expectedByte & 0xFF, stream.read());
+      }
+      Assertions.assertEquals(-1, stream.read());
+    }
+  }
+
+  @Test
+  void testSerializesLazily() throws IOException {
+    var rows = rows(10_000);
+    try (var stream = new JsonArrayInputStream(mapper, rows, 64)) {
+      stream.read(new byte[1]);
+      // only the first chunk has been produced, not the whole payload
+      Assertions.assertTrue(stream.available() < 128);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.skhanal5.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skhanal5.exceptions.SupabaseSerializationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class JsonArrayIteratorTest {
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  private JsonArrayIterator<Map> iteratorOver(String json) throws IOException {
+    var parser = mapper.getFactory().createParser(json);
+    return new JsonArrayIterator<>(parser, mapper.readerFor(Map.class));
+  }
+
+  @Test
+  void testIteratesEachElement() throws IOException {
+    var iterator = iteratorOver("[{\"foo\":\"bar\"},{\"foo\":\"baz\"}]");
+    Assertions.assertEquals(Map.of("foo", "bar"), iterator.next());
+    Assertions.assertTrue(iterator.hasNext());
+    Assertions.assertEquals(Map.of("foo", "baz"), iterator.next());
+    Assertions.assertFalse(iterator.hasNext());
+    Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  void testEmptyArray() throws IOException {
+    Assertions.assertFalse(iteratorOver("[]").hasNext());
+  }
+
+  @Test
+  void testEmptyBody() throws IOException {
+    Assertions.assertFalse(iteratorOver("").hasNext());
+  }
+
+  @Test
+  void testNonArrayBodyThrows() {
+    Assertions.assertThrows(
+        SupabaseSerializationException.class, () -> iteratorOver("{\"foo\":\"bar\"}"));
+  }
+
+  @Test
+  void testMalformedElementThrows() throws IOException {
+    var iterator = iteratorOver("[{\"foo\":}]");
+    Assertions.assertThrows(SupabaseSerializationException.class, iterator::next);
+  }
+
+  @Test
+  void testToStreamClosesSource() throws IOException {
+    var closed = new AtomicBoolean(false);
+    var body =
+        new ByteArrayInputStream("[{\"a\":1},{\"a\":2}]".getBytes(StandardCharsets.UTF_8)) {
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        };
+    var parser = mapper.getFactory().createParser(body);
+    try (var stream = new JsonArrayIterator<Map>(parser, mapper.readerFor(Map.class)).toStream()) {
+      Assertions.assertEquals(List.of(Map.of("a", 1), Map.of("a", 2)), stream.toList());
+    }
+    Assertions.assertTrue(closed.get());
+  }
+}
@@ -0,0 +1,125 @@
+package com.skhanal5.core;
+
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.models.SelectQuery;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PartitionedSelectTest {
+
+  private static final SelectQuery query =
+      new SelectQuery.SelectQueryBuilder().from("foo").select("*").order("id").build();
+
+  /** Serves the rows 0 until rowCount, honoring the Range header of each partition query. */
+  private static CompletableFuture<List<Integer>> serveRows(SelectQuery partition, int rowCount) {
+    var range = partition.buildAdditionalHeaders().orElseThrow().get("Range").split("-");
+    var start = Integer.parseInt(range[0]);
+    var end = Math.min(Integer.parseInt(range[1]), rowCount - 1);
+    return CompletableFuture.completedFuture(
+        start > end ? List.of() : IntStream.rangeClosed(start, end).boxed().toList());
+  }
+
+  @Test
+  void testMergesPartitionsInOrder() {
+    var select =
+        new PartitionedSelect<Integer>(query, 10, 4, partition -> serveRows(partition, 95));
+    var expected = IntStream.range(0, 95).boxed().toList();
+    Assertions.assertEquals(expected, select.execute().join());
+  }
+
+  @Test
+  void testMergesOutOfOrderCompletions() {
+    var pending = Collections.synchronizedList(new ArrayList<Runnable>());
+    var select =
+        new PartitionedSelect<Integer>(
+            query,
+            10,
+            3,
+            partition -> {
+              var future = new CompletableFuture<List<Integer>>();
+              pending.add(() -> future.complete(serveRows(partition, 25).join()));
+              return future;
+            });
+
+    var result = select.execute();
+    while (!result.isDone()) {
+      // complete the most recently sent partition first
+      pending.removeLast().run();
+    }
+    Assertions.assertEquals(IntStream.range(0, 25).boxed().toList(), result.join());
+  }
+
+  @Test
+  void testBoundsConcurrency() {
+    var inFlight = new AtomicInteger();
+    var maxInFlight = new AtomicInteger();
+    var pending = Collections.synchronizedList(new ArrayList<Runnable>());
+    var select =
+        new PartitionedSelect<Integer>(
+            query,
+            5,
+            2,
+            partition -> {
+              maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+              var future = new CompletableFuture<List<Integer>>();
+              pending.add(
+                  () -> {
+                    inFlight.decrementAndGet();
+                    future.complete(serveRows(partition, 40).join());
+                  });
+              return future;
+            });
+
+    var result = select.execute();
+    while (!result.isDone()) {
+      pending.removeFirst().run();
+    }
+    Assertions.assertEquals(40, result.join().size());
+    Assertions.assertEquals(2, maxInFlight.get());
+  }
+
+  @Test
+  void testManySynchronousPartitionsDoNotOverflowTheStack() {
+    var select =
+        new PartitionedSelect<Integer>(query, 1, 1, partition -> serveRows(partition, 100_000));
+    Assertions.assertEquals(100_000, select.execute().join().size());
+  }
+
+  @Test
+  void testRespectsConfiguredRange() {
+    var rangedQuery = query.withRange(10, 34);
+    var select =
+        new PartitionedSelect<Integer>(rangedQuery, 10, 4, partition -> serveRows(partition, 100));
+    Assertions.assertEquals(
+        IntStream.rangeClosed(10, 34).boxed().toList(), select.execute().join());
+  }
+
+  @Test
+  void testFailedPartitionFailsSelect() {
+    var select =
+        new PartitionedSelect<Integer>(
+            query,
+            10,
+            2,
+            partition -> CompletableFuture.failedFuture(new SupabaseHttpException(500, "")));
+    var exception = Assertions.assertThrows(ExecutionException.class, select.execute()::get);
+    Assertions.assertInstanceOf(SupabaseHttpException.class, exception.getCause());
+  }
+
+  @Test
+  void testRejectsInvalidSizes() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new PartitionedSelect<Integer>(query, 0, 1, partition -> null));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new PartitionedSelect<Integer>(query, 1, 0, partition -> null));
+  }
+}
@@ -0,0 +1,48 @@
+package com.skhanal5.core;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.skhanal5.metrics.RequestMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PhaseTimingBodyHandlerTest {
+
+  @Test
+  void testReportsHeadersAndTransfer() {
+    var listener = mock(RequestMetricsListener.class);
+    var responseInfo = mock(ResponseInfo.class);
+    when(responseInfo.statusCode()).thenReturn(200);
+    when(responseInfo.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+    var handler =
+        new PhaseTimingBodyHandler<>(BodyHandlers.ofString(), listener, "foo", "GET")
+            .startAttempt();
+
+    var subscriber = handler.apply(responseInfo);
+
+    verify(listener).onPhase(eq(RequestPhase.HEADERS), eq("foo"), eq("GET"), eq(200), anyLong());
+    verify(listener, never())
+        .onPhase(eq(RequestPhase.TRANSFER), eq("foo"), eq("GET"), eq(200), anyLong());
+
+    subscriber.onSubscribe(mock(Flow.Subscription.class));
+    subscriber.onNext(List.of(ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8))));
+    subscriber.onComplete();
+
+    Assertions.assertEquals("[]", subscriber.getBody().toCompletableFuture().join());
+    verify(listener).onPhase(eq(RequestPhase.TRANSFER), eq("foo"), eq("GET"), eq(200), anyLong());
+  }
+}
@@ -0,0 +1,253 @@
+package com.skhanal5.core;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.skhanal5.exceptions.RateLimitExceededException;
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.metrics.HistogramMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
+import com.skhanal5.metrics.SupabaseRequestEvent;
+import com.skhanal5.models.DeleteQuery;
+import com.skhanal5.models.Filter;
+import com.skhanal5.models.SelectQuery;
+import com.skhanal5.models.UpdateQuery;
+import com.skhanal5.resilience.CircuitBreaker;
+import com.skhanal5.resilience.CircuitBreakerRegistry;
+import com.skhanal5.resilience.RateLimiter;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class PreparedQueryTest {
+
+  private static final String baseURI = "http://localhost/rest/v1/";
+
+  private static final SelectQuery selectQuery =
+      new SelectQuery.SelectQueryBuilder()
+          .from("doctors")
+          .select("id", "full_name")
+          .order("id")
+          .filter(
+              new Filter.FilterBuilder()
+                  .equals("full_name", "John")
+                  .greaterThan("rating", 3)
+                  .in("state", List.of("VA"))
+                  .build())
+          .build();
+
+  private static JavaType type(Class<?> type) {
+    return TypeFactory.defaultInstance().constructType(type);
+  }
+
+  private static PreparedQuery<String> prepare(SupabaseClient client) {
+    return new PreparedQuery<>(client, selectQuery, "GET", type(String.class), baseURI, Map.of());
+  }
+
+  @Test
+  void testParameterNamesAreFilterColumns() {
+    var prepared = prepare(null);
+    Assertions.assertEquals(List.of("full_name", "rating", "state"), prepared.getParameterNames());
+  }
+
+  @Test
+  void testBindWithoutValuesUsesQueryDefaults() {
+    var prepared = prepare(null);
+    Assertions.assertEquals(
+        baseURI
+            + "doctors?full_name=eq.John&order=id.asc&rating=gt.3&select=id,full_name&state=in.(VA)",
+        prepared.bind(Map.of()).toString());
+  }
+
+  @Test
+  void testBindReplacesValues() {
+    var prepared = prepare(null);
+    var uri =
+        prepared.bind(Map.of("full_name", "Jane Doe", "rating", 4L, "state", List.of("MD", "DC")));
+    Assertions.assertEquals(
+        baseURI
+            + "doctors?full_name=eq.Jane%20Doe&order=id.asc&rating=gt.4&select=id,full_name&state=in.(MD,DC)",
+        uri.toString());
+  }
+
+  @Test
+  void testBindMatchesUnpreparedURI() {
+    var query =
+        new SelectQuery.SelectQueryBuilder()
+            .from("doctors")
+            .select("*")
+            .filter(new Filter.FilterBuilder().equals("id", "0").build())
+            .build();
+    var prepared = new PreparedQuery<>(null, query, "GET", type(String.class), baseURI, Map.of());
+
+    var boundQuery =
+        new SelectQuery.SelectQueryBuilder()
+            .from("doctors")
+            .select("*")
+            .filter(new Filter.FilterBuilder().equals("id", "42").build())
+            .build();
+    var expected = new SupabaseHttpRequest(baseURI, Map.of(), boundQuery).uri;
+    var actual = prepared.bind(Map.of("id", "42"));
+    Assertions.assertEquals(expected.getPath(), actual.getPath());
+    Assertions.assertEquals(
+        Set.of(expected.getRawQuery().split("&")), Set.of(actual.getRawQuery().split("&")));
+  }
+
+  @Test
+  void testBindRejectsUnknownParameter() {
+    var prepared = prepare(null);
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> prepared.bind(Map.of("unknown", "value")));
+  }
+
+  @Test
+  void testBindRejectsWrongType() {
+    var prepared = prepare(null);
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> prepared.bind(Map.of("rating", "high")));
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> prepared.bind(Map.of("full_name", 1)));
+  }
+
+  @Test
+  void testExecuteSendsBoundRequest() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, baseURI, Map.of("apikey", "key"));
+    when(sender.<String>invokeRequest(eq("DELETE"), any(), eq(type(String.class))))
+        .thenReturn(CompletableFuture.completedFuture("deleted"));
+    var query =
+        new DeleteQuery.DeleteQueryBuilder()
+            .from("doctors")
+            .delete()
+            .filter(new Filter.FilterBuilder().equals("id", "0").build())
+            .select()
+            .build();
+
+    var prepared = client.prepareDelete(query, String.class);
+    Assertions.assertEquals("deleted", prepared.execute(Map.of("id", "7")));
+
+    var captor = ArgumentCaptor.forClass(SupabaseHttpRequest.class);
+    verify(sender).invokeRequest(eq("DELETE"), captor.capture(), any());
+    Assertions.assertEquals("doctors", captor.getValue().table);
+    Assertions.assertEquals(baseURI + "doctors?id=eq.7", captor.getValue().uri.toString());
+    Assertions.assertEquals(
+        Map.of("apikey", "key", "Prefer", "return=representation"), captor.getValue().headers);
+  }
+
+  @Test
+  void testPreparedQueriesUseTheBreakerOfTheirTable() {
+    var httpClient = mock(HttpClient.class);
+    HttpResponse<byte[]> unavailable = mock(HttpResponse.class);
+    when(unavailable.statusCode()).thenReturn(503);
+    when(httpClient.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(CompletableFuture.completedFuture(unavailable));
+    var circuitBreakers =
+        new CircuitBreakerRegistry.CircuitBreakerRegistryBuilder()
+            .defaults(new CircuitBreaker.CircuitBreakerBuilder().slidingWindow(1, 1))
+            .build();
+    var options = new SupabaseClient.SupabaseClientBuilder().circuitBreakers(circuitBreakers);
+    var sender = new SupabaseHttpRequestSender(httpClient, new ObjectMapper(), options, null);
+    var client = new SupabaseClient(sender, baseURI, Map.of(), options);
+
+    var prepared = client.prepareSelect(selectQuery, String.class);
+    Assertions.assertThrows(SupabaseHttpException.class, () -> prepared.execute(Map.of()));
+
+    Assertions.assertEquals(
+        CircuitBreaker.State.OPEN, circuitBreakers.forTable("doctors").getState());
+    Assertions.assertEquals(
+        CircuitBreaker.State.CLOSED, circuitBreakers.forTable("patients").getState());
+  }
+
+  @Test
+  void testPreparedQueriesAreRateLimitedPerTable() {
+    var httpClient = mock(HttpClient.class);
+    when(httpClient.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(new CompletableFuture<>());
+    var rateLimiter =
+        new RateLimiter.RateLimiterBuilder().table("doctors", 1, 1).maxWait(Duration.ZERO).build();
+    var options = new SupabaseClient.SupabaseClientBuilder().rateLimiter(rateLimiter);
+    var sender = new SupabaseHttpRequestSender(httpClient, new ObjectMapper(), options, null);
+    var client = new SupabaseClient(sender, baseURI, Map.of(), options);
+
+    var prepared = client.prepareSelect(selectQuery, String.class);
+    prepared.executeAsync(Map.of());
+    var limited = prepared.executeAsync(Map.of());
+
+    var exception = Assertions.assertThrows(ExecutionException.class, limited::get);
+    Assertions.assertInstanceOf(RateLimitExceededException.class, exception.getCause());
+    Assertions.assertEquals(1, rateLimiter.getRejectedCount());
+  }
+
+  @Test
+  void testPreparedQueriesReportTheirTable() throws Exception {
+    var httpClient = mock(HttpClient.class);
+    HttpResponse<Object> response = mock(HttpResponse.class);
+    when(response.statusCode()).thenReturn(200);
+    when(response.body()).thenReturn("\"ok\"".getBytes(StandardCharsets.UTF_8));
+    // the metrics listener wraps the body handler to time it, so any handler is accepted
+    when(httpClient.sendAsync(any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var listener = new HistogramMetricsListener(Duration.ofMinutes(1));
+    var options = new SupabaseClient.SupabaseClientBuilder().metricsListener(listener);
+    var sender = new SupabaseHttpRequestSender(httpClient, new ObjectMapper(), options, null);
+    var client = new SupabaseClient(sender, baseURI, Map.of(), options);
+    var prepared = client.prepareSelect(selectQuery, String.class);
+    var file = Files.createTempFile("supabase", ".jfr");
+    try (var recording = new Recording()) {
+      recording.enable(SupabaseRequestEvent.NAME);
+      recording.start();
+      Assertions.assertEquals("ok", prepared.execute(Map.of()));
+      recording.stop();
+      recording.dump(file);
+
+      var tables =
+          RecordingFile.readAllEvents(file).stream()
+              .filter(event -> event.getEventType().getName().equals(SupabaseRequestEvent.NAME))
+              .map(event -> event.getString("table"))
+              .toList();
+      Assertions.assertEquals(List.of("doctors"), tables);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+    Assertions.assertEquals(
+        1, listener.getHistogram(RequestPhase.SERIALIZE, "doctors", "GET").count());
+    Assertions.assertEquals(
+        1, listener.getHistogram(RequestPhase.DESERIALIZE, "doctors", "GET", 200).count());
+    Assertions.assertTrue(
+        listener.getHistograms().keySet().stream().allMatch(key -> key.getTable() != null));
+  }
+
+  @Test
+  void testPreparedUpdateKeepsBody() {
+    var query =
+        new UpdateQuery.UpdateQueryBuilder()
+            .from("doctors")
+            .update(Map.of("rating", 5))
+            .filter(new Filter.FilterBuilder().equals("id", "0").build())
+            .build();
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, baseURI, Map.of());
+    var prepared = client.prepareUpdate(query, String.class);
+    Assertions.assertEquals(List.of("id"), prepared.getParameterNames());
+  }
+}
@@ -0,0 +1,49 @@
+package com.skhanal5.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ResponseBodyTest {
+
+  private static final byte[] JSON = "[{\"a\":1}]".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testOpenInflatesGzip() throws IOException {
+    var compressed = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(compressed)) {
+      out.write(JSON);
+    }
+    var body = new ResponseBody(compressed.toByteArray(), "gzip", 200);
+
+    Assertions.assertTrue(body.isEncoded());
+    Assertions.assertArrayEquals(JSON, body.open().readAllBytes());
+  }
+
+  @Test
+  void testOpenInflatesDeflate() throws IOException {
+    var compressed = new ByteArrayOutputStream();
+    try (var out = new DeflaterOutputStream(compressed)) {
+      out.write(JSON);
+    }
+    var body = new ResponseBody(compressed.toByteArray(), "Deflate", 200);
+
+    Assertions.assertArrayEquals(JSON, body.open().readAllBytes());
+  }
+
+  @Test
+  void testOpenPassesIdentityThrough() throws IOException {
+    Assertions.assertFalse(ResponseBody.of(JSON).isEncoded());
+    Assertions.assertFalse(new ResponseBody(JSON, "identity", 200).isEncoded());
+    Assertions.assertArrayEquals(JSON, ResponseBody.of(JSON).open().readAllBytes());
+  }
+
+  @Test
+  void testOpenRejectsUnsupportedEncoding() {
+    Assertions.assertThrows(IOException.class, () -> new ResponseBody(JSON, "br", 200).open());
+  }
+}
@@ -0,0 +1,207 @@
+package com.skhanal5.core;
+
+import com.skhanal5.models.Filter;
+import com.skhanal5.models.SelectQuery;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SelectCacheTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private SelectCache newCache(Duration defaultTtl, Map<String, Duration> ttls, long weight) {
+    return new SelectCache(defaultTtl, ttls, weight, clock::get);
+  }
+
+  @Test
+  void testBuilderDefaults() {
+    var cache = new SelectCache.SelectCacheBuilder().ttl("foo", Duration.ofSeconds(1)).build();
+    Assertions.assertTrue(cache.isCacheable("foo"));
+    Assertions.assertFalse(cache.isCacheable("bar"));
+    Assertions.assertEquals(0, cache.getWeightedSize());
+  }
+
+  @Test
+  void testDefaultTtlMakesEveryTableCacheable() {
+    var cache = new SelectCache.SelectCacheBuilder().defaultTtl(Duration.ofSeconds(1)).build();
+    Assertions.assertTrue(cache.isCacheable("foo"));
+    Assertions.assertTrue(cache.isCacheable("bar"));
+  }
+
+  @Test
+  void testKeyOfIgnoresFilterOrder() {
+    var first =
+        new SelectQuery.SelectQueryBuilder()
+            .from("foo")
+            .select("id")
+            .filter(new Filter.FilterBuilder().equals("a", "1").greaterThan("b", 2).build())
+            .range(0, 9)
+            .build();
+    var second =
+        new SelectQuery.SelectQueryBuilder()
+            .from("foo")
+            .select("id")
+            .filter(new Filter.FilterBuilder().greaterThan("b", 2).equals("a", "1").build())
+            .range(0, 9)
+            .build();
+    var otherRange = first.withRange(10, 19);
+
+    Assertions.assertEquals(SelectCache.keyOf(first), SelectCache.keyOf(second));
+    Assertions.assertNotEquals(SelectCache.keyOf(first), SelectCache.keyOf(otherRange));
+  }
+
+  @Test
+  void testGetIfPresentCountsHitsAndMisses() {
+    var cache = newCache(null, Map.of("foo", Duration.ofSeconds(1)), 1024);
+
+    Assertions.assertNull(cache.getIfPresent("key"));
+    cache.put("key", "foo", ResponseBody.of(bytes("[]")), cache.generation("foo"));
+    Assertions.assertArrayEquals(bytes("[]"), cache.getIfPresent("key").bytes());
+
+    Assertions.assertEquals(1, cache.getHitCount());
+    Assertions.assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void testEntriesExpireAfterTheirTableTtl() {
+    var cache =
+        newCache(Duration.ofSeconds(10), Map.of("short", Duration.ofSeconds(1)), 1024 * 1024);
+    cache.put("a", "short", ResponseBody.of(bytes("[]")), cache.generation("short"));
+    cache.put("b", "long", ResponseBody.of(bytes("[]")), cache.generation("long"));
+
+    clock.addAndGet(Duration.ofSeconds(2).toNanos());
+
+    Assertions.assertNull(cache.getIfPresent("a"));
+    Assertions.assertArrayEquals(bytes("[]"), cache.getIfPresent("b").bytes());
+  }
+
+  @Test
+  void testPutIgnoresTablesWithoutTtl() {
+    var cache = newCache(null, Map.of("foo", Duration.ofSeconds(1)), 1024);
+    cache.put("key", "bar", ResponseBody.of(bytes("[]")), cache.generation("bar"));
+    Assertions.assertNull(cache.getIfPresent("key"));
+    Assertions.assertEquals(0, cache.getWeightedSize());
+  }
+
+  @Test
+  void testWeightStaysWithinMaximum() {
+    var body = bytes("x".repeat(400));
+    var cache = newCache(Duration.ofMinutes(1), Map.of(), 1200);
+
+    for (int i = 0; i < 10; i++) {
+      var key = "key" + i;
+      // each key is requested more often than the one before, so it wins admission
+      for (int request = 0; request <= i; request++) {
+        cache.getIfPresent(key);
+      }
+      cache.put(key, "foo", ResponseBody.of(body), cache.generation("foo"));
+      Assertions.assertTrue(cache.getWeightedSize() <= 1200);
+    }
+    Assertions.assertTrue(cache.getEvictionCount() > 0);
+  }
+
+  @Test
+  void testFrequentlyRequestedEntriesAreNotEvictedByOneOffs() {
+    var body = bytes("x".repeat(400));
+    var cache = newCache(Duration.ofMinutes(1), Map.of(), 1100);
+    for (int i = 0; i < 5; i++) {
+      cache.getIfPresent("hot1");
+      cache.getIfPresent("hot2");
+    }
+    cache.put("hot1", "foo", ResponseBody.of(body), cache.generation("foo"));
+    cache.put("hot2", "foo", ResponseBody.of(body), cache.generation("foo"));
+
+    for (int i = 0; i < 20; i++) {
+      cache.getIfPresent("cold" + i);
+      cache.put("cold" + i, "foo", ResponseBody.of(body), cache.generation("foo"));
+    }
+
+    Assertions.assertArrayEquals(body, cache.getIfPresent("hot1").bytes());
+    Assertions.assertArrayEquals(body, cache.getIfPresent("hot2").bytes());
+    Assertions.assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  void testRejectedPutEvictsNothing() {
+    var body = bytes("x".repeat(400));
+    var cache = newCache(Duration.ofMinutes(1), Map.of(), 1100);
+    cache.getIfPresent("cold");
+    cache.put("cold", "foo", ResponseBody.of(body), cache.generation("foo"));
+    for (int i = 0; i < 5; i++) {
+      cache.getIfPresent("hot");
+    }
+    cache.put("hot", "foo", ResponseBody.of(body), cache.generation("foo"));
+
+    // more popular than cold but not than hot, and only fits if both were evicted
+    for (int i = 0; i < 3; i++) {
+      cache.getIfPresent("large");
+    }
+    cache.put("large", "foo", ResponseBody.of(bytes("x".repeat(900))), cache.generation("foo"));
+
+    Assertions.assertNull(cache.getIfPresent("large"));
+    Assertions.assertArrayEquals(body, cache.getIfPresent("cold").bytes());
+    Assertions.assertArrayEquals(body, cache.getIfPresent("hot").bytes());
+    Assertions.assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  void testExpiredEntriesAreDroppedBeforeEvictingLiveOnes() {
+    var body = bytes("x".repeat(400));
+    var cache = newCache(Duration.ofSeconds(1), Map.of(), 1100);
+    for (int i = 0; i < 5; i++) {
+      cache.getIfPresent("old");
+    }
+    cache.put("old", "foo", ResponseBody.of(body), cache.generation("foo"));
+    cache.put("other", "foo", ResponseBody.of(body), cache.generation("foo"));
+    clock.addAndGet(Duration.ofSeconds(2).toNanos());
+
+    cache.put("new", "foo", ResponseBody.of(body), cache.generation("foo"));
+
+    Assertions.assertArrayEquals(body, cache.getIfPresent("new").bytes());
+    Assertions.assertEquals(0, cache.getEvictionCount());
+  }
+
+  @Test
+  void testInvalidateOnlyDropsThatTable() {
+    var cache = newCache(Duration.ofMinutes(1), Map.of(), 1024 * 1024);
+    cache.put("a", "foo", ResponseBody.of(bytes("[1]")), cache.generation("foo"));
+    cache.put("b", "bar", ResponseBody.of(bytes("[2]")), cache.generation("bar"));
+
+    cache.invalidate("foo");
+
+    Assertions.assertNull(cache.getIfPresent("a"));
+    Assertions.assertArrayEquals(bytes("[2]"), cache.getIfPresent("b").bytes());
+  }
+
+  @Test
+  void testInvalidateAllDropsEverything() {
+    var cache = newCache(Duration.ofMinutes(1), Map.of(), 1024 * 1024);
+    cache.put("a", "foo", ResponseBody.of(bytes("[1]")), cache.generation("foo"));
+    cache.put("b", "bar", ResponseBody.of(bytes("[2]")), cache.generation("bar"));
+
+    cache.invalidateAll();
+
+    Assertions.assertNull(cache.getIfPresent("a"));
+    Assertions.assertNull(cache.getIfPresent("b"));
+    Assertions.assertEquals(0, cache.getWeightedSize());
+  }
+
+  @Test
+  void testPutAfterInvalidationIsDiscarded() {
+    var cache = newCache(Duration.ofMinutes(1), Map.of(), 1024 * 1024);
+    var generation = cache.generation("foo");
+
+    cache.invalidate("foo");
+    cache.put("a", "foo", ResponseBody.of(bytes("[1]")), generation);
+
+    Assertions.assertNull(cache.getIfPresent("a"));
+  }
+
+  private static byte[] bytes(String body) {
+    return body.getBytes(StandardCharsets.UTF_8);
+  }
+}
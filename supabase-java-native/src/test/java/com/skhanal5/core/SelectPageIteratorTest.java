@@ -0,0 +1,107 @@
+package com.skhanal5.core;
+
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.models.SelectQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SelectPageIteratorTest {
+
+  private static final SelectQuery query =
+      new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+
+  private static String rangeOf(SelectQuery query) {
+    return query.buildAdditionalHeaders().orElseThrow().get("Range");
+  }
+
+  @Test
+  void testWalksUntilShortPage() {
+    var requestedRanges = new ArrayList<String>();
+    var iterator =
+        new SelectPageIterator<Integer>(
+            query,
+            2,
+            page -> {
+              requestedRanges.add(rangeOf(page));
+              var rows = requestedRanges.size() < 3 ? List.of(1, 2) : List.of(3);
+              return CompletableFuture.completedFuture(rows);
+            });
+
+    var pages = new ArrayList<List<Integer>>();
+    iterator.forEachRemaining(pages::add);
+
+    Assertions.assertEquals(List.of(List.of(1, 2), List.of(1, 2), List.of(3)), pages);
+    Assertions.assertEquals(List.of("0-1", "2-3", "4-5"), requestedRanges);
+    Assertions.assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  void testStopsAtEndOfConfiguredRange() {
+    var requestedRanges = new ArrayList<String>();
+    var iterator =
+        new SelectPageIterator<Integer>(
+            query.withRange(0, 4),
+            2,
+            page -> {
+              requestedRanges.add(rangeOf(page));
+              // the table has more rows than the range, so every page comes back full
+              return CompletableFuture.completedFuture(List.of(1, 2));
+            });
+
+    var pages = new ArrayList<List<Integer>>();
+    iterator.forEachRemaining(pages::add);
+
+    Assertions.assertEquals(3, pages.size());
+    Assertions.assertEquals(List.of("0-1", "2-3", "4-4"), requestedRanges);
+  }
+
+  @Test
+  void testPrefetchesNextPageBeforeItIsConsumed() {
+    var requestedRanges = new ArrayList<String>();
+    var iterator =
+        new SelectPageIterator<Integer>(
+            query,
+            1,
+            page -> {
+              requestedRanges.add(rangeOf(page));
+              return CompletableFuture.completedFuture(List.of(1));
+            });
+
+    Assertions.assertEquals(List.of("0-0"), requestedRanges);
+    iterator.next();
+    Assertions.assertEquals(List.of("0-0", "1-1"), requestedRanges);
+  }
+
+  @Test
+  void testEmptyTableHasNoPages() {
+    var iterator =
+        new SelectPageIterator<Integer>(
+            query, 10, page -> CompletableFuture.completedFuture(List.of()));
+    Assertions.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  void testExactMultipleOfPageSizeStopsOnEmptyPage() {
+    var calls = new int[] {0};
+    var iterator =
+        new SelectPageIterator<Integer>(
+            query,
+            2,
+            page -> CompletableFuture.completedFuture(calls[0]++ == 0 ? List.of(1, 2) : List.of()));
+
+    Assertions.assertEquals(List.of(1, 2), iterator.next());
+    Assertions.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  void testFailedPageSurfacesTypedException() {
+    var iterator =
+        new SelectPageIterator<Integer>(
+            query, 2, page -> CompletableFuture.failedFuture(new SupabaseHttpException(500, "")));
+    Assertions.assertThrows(SupabaseHttpException.class, iterator::hasNext);
+  }
+}
@@ -6,10 +6,25 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.skhanal5.exceptions.SupabaseException;
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.exceptions.SupabaseSerializationException;
+import com.skhanal5.metrics.HistogramMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
 import com.skhanal5.models.*;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -19,6 +34,13 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 class SupabaseClientTest {
 
+  private static final ResponseBody FOO_BODY =
+      ResponseBody.of("[\"foo\"]".getBytes(StandardCharsets.UTF_8));
+
+  private static JavaType type(Class<?> type) {
+    return TypeFactory.defaultInstance().constructType(type);
+  }
+
   @Test
   void testNewInstanceGivenNullInputs() {
     Assertions.assertThrows(
@@ -49,6 +71,297 @@ class SupabaseClientTest {
     Assertions.assertEquals(expectedHeaders, client.defaultHeaders);
   }
 
+  @Test
+  void testBuilderWithCompressionAcceptsCompressedResponses() {
+    var client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .compression(true)
+            .build();
+    Assertions.assertEquals("gzip, deflate", client.defaultHeaders.get("Accept-Encoding"));
+    Assertions.assertTrue(client.sender.compression);
+  }
+
+  @Test
+  void testBuilderGivenMissingUrl() {
+    var builder = new SupabaseClient.SupabaseClientBuilder().serviceKey("");
+    Assertions.assertThrows(NullPointerException.class, builder::build);
+  }
+
+  @Test
+  void testBuilderSetsSelectCache() {
+    var cache = new SelectCache.SelectCacheBuilder().defaultTtl(Duration.ofSeconds(1)).build();
+    var client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .selectCache(cache)
+            .build();
+    Assertions.assertEquals("/rest/v1/", client.baseURI);
+    Assertions.assertSame(cache, client.selectCache);
+  }
+
+  @Test
+  void testBuilderConfiguresHttpClient() {
+    var executor = Executors.newSingleThreadExecutor();
+    var client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .httpVersion(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(3))
+            .requestTimeout(Duration.ofSeconds(5))
+            .build();
+    var httpClient = client.sender.client;
+    Assertions.assertEquals(HttpClient.Version.HTTP_1_1, httpClient.version());
+    Assertions.assertEquals(Optional.of(executor), httpClient.executor());
+    Assertions.assertEquals(Optional.of(Duration.ofSeconds(3)), httpClient.connectTimeout());
+    Assertions.assertEquals(Duration.ofSeconds(5), client.sender.requestTimeout);
+    executor.shutdown();
+  }
+
+  @Test
+  void testBuilderUsesGivenHttpClient() {
+    var httpClient = HttpClient.newHttpClient();
+    var client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .httpClient(httpClient)
+            .build();
+    Assertions.assertSame(httpClient, client.sender.client);
+  }
+
+  @Test
+  void testBuilderRejectsHttpSettingsWithGivenHttpClient() {
+    var builder =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .httpClient(HttpClient.newHttpClient())
+            .httpVersion(HttpClient.Version.HTTP_2);
+    Assertions.assertThrows(IllegalStateException.class, builder::build);
+  }
+
+  @Test
+  void testBuilderWithVirtualThreads() {
+    var client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .virtualThreads(true)
+            .build();
+    var deserializationExecutor = client.sender.deserializationExecutor;
+    Assertions.assertNotNull(deserializationExecutor);
+    Assertions.assertEquals(Optional.of(deserializationExecutor), client.sender.client.executor());
+  }
+
+  @Test
+  void testCloseShutsDownOwnedExecutor() {
+    var client =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .virtualThreads(true)
+            .build();
+    client.close();
+    Assertions.assertTrue(client.ownedExecutor.isTerminated());
+  }
+
+  @Test
+  void testCloseLeavesCallerExecutorRunning() {
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var client =
+          new SupabaseClient.SupabaseClientBuilder()
+              .databaseUrl("")
+              .serviceKey("")
+              .executor(executor)
+              .build();
+      client.close();
+      Assertions.assertFalse(executor.isShutdown());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testBuilderRejectsVirtualThreadsWithExecutor() {
+    var builder =
+        new SupabaseClient.SupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .executor(Runnable::run)
+            .virtualThreads(true);
+    Assertions.assertThrows(IllegalStateException.class, builder::build);
+  }
+
+  private SupabaseHttpRequestSender setupCachingSender() throws JsonProcessingException {
+    var sender = spy(new SupabaseHttpRequestSender(mock(HttpClient.class), new ObjectMapper()));
+    doReturn(CompletableFuture.completedFuture(FOO_BODY)).when(sender).fetchBody(eq("GET"), any());
+    doReturn(CompletableFuture.completedFuture(null))
+        .when(sender)
+        .invokeRequest(eq("POST"), any(), any());
+    return sender;
+  }
+
+  @Test
+  void testExecuteSelectServesRepeatedQueriesFromCache() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    var cache = new SelectCache.SelectCacheBuilder().ttl("foo", Duration.ofMinutes(1)).build();
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().selectCache(cache));
+    var query = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+
+    var first = client.executeSelect(query, String[].class);
+    var second = client.executeSelect(query, String[].class);
+
+    Assertions.assertArrayEquals(new String[] {"foo"}, first);
+    Assertions.assertArrayEquals(new String[] {"foo"}, second);
+    Assertions.assertNotSame(first, second);
+    verify(sender, times(1)).fetchBody(eq("GET"), any());
+    Assertions.assertEquals(1, cache.getHitCount());
+    Assertions.assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  void testExecuteSelectBypassesCacheForTablesWithoutTtl() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    doReturn(CompletableFuture.completedFuture(new String[] {"bar"}))
+        .when(sender)
+        .invokeRequest(eq("GET"), any(), eq(type(String[].class)));
+    var cache = new SelectCache.SelectCacheBuilder().ttl("foo", Duration.ofMinutes(1)).build();
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().selectCache(cache));
+    var query = new SelectQuery.SelectQueryBuilder().from("bar").select("*").build();
+
+    client.executeSelect(query, String[].class);
+    client.executeSelect(query, String[].class);
+
+    verify(sender, times(2)).invokeRequest(eq("GET"), any(), eq(type(String[].class)));
+    verify(sender, never()).fetchBody(any(), any());
+  }
+
+  @Test
+  void testExecuteInsertInvalidatesCachedSelects() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    var cache = new SelectCache.SelectCacheBuilder().ttl("foo", Duration.ofMinutes(1)).build();
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().selectCache(cache));
+    var select = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+    var insert =
+        new InsertQuery.InsertQueryBuilder().from("foo").insert(Map.of("a", (Object) 1)).build();
+
+    client.executeSelect(select, String[].class);
+    client.executeInsert(insert, Void.class);
+    client.executeSelect(select, String[].class);
+
+    verify(sender, times(2)).fetchBody(eq("GET"), any());
+    Assertions.assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  void testPreparedUpdateInvalidatesCachedSelects() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    doReturn(CompletableFuture.completedFuture(null))
+        .when(sender)
+        .invokeRequest(eq("PATCH"), any(), any());
+    var cache = new SelectCache.SelectCacheBuilder().ttl("foo", Duration.ofMinutes(1)).build();
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().selectCache(cache));
+    var select = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+    var update =
+        client.prepareUpdate(
+            new UpdateQuery.UpdateQueryBuilder()
+                .from("foo")
+                .update(Map.of("a", 1))
+                .filter(new Filter.FilterBuilder().equals("id", "0").build())
+                .build(),
+            Void.class);
+
+    client.executeSelect(select, String[].class);
+    update.execute(Map.of("id", "7"));
+    client.executeSelect(select, String[].class);
+
+    verify(sender, times(2)).fetchBody(eq("GET"), any());
+    Assertions.assertEquals(0, cache.getHitCount());
+  }
+
+  @Test
+  void testPreparedSelectsShareTheCacheWithUnpreparedSelects() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    var cache = new SelectCache.SelectCacheBuilder().ttl("foo", Duration.ofMinutes(1)).build();
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().selectCache(cache));
+    var byName =
+        client.prepareSelect(
+            new SelectQuery.SelectQueryBuilder()
+                .from("foo")
+                .select("*")
+                .filter(new Filter.FilterBuilder().equals("name", "").build())
+                .build(),
+            String[].class);
+    var select =
+        new SelectQuery.SelectQueryBuilder()
+            .from("foo")
+            .select("*")
+            .filter(new Filter.FilterBuilder().equals("name", "John Doe").build())
+            .build();
+
+    client.executeSelect(select, String[].class);
+    var prepared = byName.execute(Map.of("name", "John Doe"));
+    byName.execute(Map.of("name", "Jane Doe"));
+    byName.execute(Map.of("name", "Jane Doe"));
+
+    Assertions.assertArrayEquals(new String[] {"foo"}, prepared);
+    verify(sender, times(2)).fetchBody(eq("GET"), any());
+    Assertions.assertEquals(2, cache.getHitCount());
+  }
+
+  @Test
+  void testExecuteSelectAsyncCoalescesIdenticalSelects() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    var response = new CompletableFuture<ResponseBody>();
+    doReturn(response).when(sender).fetchBody(eq("GET"), any());
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().coalesceSelects(true));
+    var query = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+
+    var first = client.executeSelectAsync(query, String[].class);
+    var second = client.executeSelectAsync(query, String[].class);
+    response.complete(FOO_BODY);
+
+    verify(sender, times(1)).fetchBody(eq("GET"), any());
+    Assertions.assertArrayEquals(new String[] {"foo"}, first.join());
+    Assertions.assertNotSame(first.join(), second.join());
+  }
+
+  @Test
+  void testCancellingOneCoalescedSelectDoesNotAffectOthers() throws JsonProcessingException {
+    var sender = setupCachingSender();
+    var response = new CompletableFuture<ResponseBody>();
+    doReturn(response).when(sender).fetchBody(eq("GET"), any());
+    var client =
+        new SupabaseClient(
+            sender, "", Map.of(), new SupabaseClient.SupabaseClientBuilder().coalesceSelects(true));
+    var query = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+
+    var first = client.executeSelectAsync(query, String[].class);
+    var second = client.executeSelectAsync(query, String[].class);
+    first.cancel(true);
+    response.complete(FOO_BODY);
+
+    Assertions.assertArrayEquals(new String[] {"foo"}, second.join());
+  }
+
   private static Stream<Arguments> provideDifferentQueryTypes() {
     return Stream.of(
         arguments(mock(SelectQuery.class)),
@@ -64,7 +377,8 @@ class SupabaseClientTest {
     var client = new SupabaseClient(sender, "", Map.of());
 
     var expectedResult = CompletableFuture.completedFuture("");
-    when(sender.invokeRequest(any(), any(), eq(String.class))).thenReturn(expectedResult);
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class))))
+        .thenReturn(expectedResult);
 
     var result = client.execute(query, String.class, "");
     Assertions.assertEquals("", result);
@@ -77,7 +391,8 @@ class SupabaseClientTest {
     var client = new SupabaseClient(sender, "", Map.of());
     var expectedException = JsonProcessingException.class;
 
-    when(sender.invokeRequest(any(), any(), eq(String.class))).thenThrow(expectedException);
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class))))
+        .thenThrow(expectedException);
 
     var exception =
         Assertions.assertThrows(
@@ -86,33 +401,166 @@ class SupabaseClientTest {
   }
 
   private static Stream<Arguments> provideExceptions() {
+    var interrupted = new InterruptedException();
+    var failed = new ExecutionException(new IllegalStateException());
     return Stream.of(
-        arguments(mock(SelectQuery.class), InterruptedException.class),
-        arguments(mock(SelectQuery.class), ExecutionException.class),
-        arguments(mock(InsertQuery.class), InterruptedException.class),
-        arguments(mock(InsertQuery.class), ExecutionException.class),
-        arguments(mock(UpdateQuery.class), InterruptedException.class),
-        arguments(mock(UpdateQuery.class), ExecutionException.class),
-        arguments(mock(DeleteQuery.class), InterruptedException.class),
-        arguments(mock(DeleteQuery.class), ExecutionException.class));
+        arguments(mock(SelectQuery.class), interrupted, InterruptedException.class),
+        arguments(mock(SelectQuery.class), failed, IllegalStateException.class),
+        arguments(mock(InsertQuery.class), interrupted, InterruptedException.class),
+        arguments(mock(InsertQuery.class), failed, IllegalStateException.class),
+        arguments(mock(UpdateQuery.class), interrupted, InterruptedException.class),
+        arguments(mock(UpdateQuery.class), failed, IllegalStateException.class),
+        arguments(mock(DeleteQuery.class), interrupted, InterruptedException.class),
+        arguments(mock(DeleteQuery.class), failed, IllegalStateException.class));
   }
 
   @MethodSource("provideExceptions")
   @ParameterizedTest
-  void testExecuteThrowsOtherExceptions(Query query, Class<Throwable> throwableClass)
+  void testExecuteThrowsOtherExceptions(Query query, Throwable thrown, Class<Throwable> causeClass)
       throws JsonProcessingException, ExecutionException, InterruptedException {
     var sender = mock(SupabaseHttpRequestSender.class);
     var client = new SupabaseClient(sender, "", Map.of());
     CompletableFuture<String> future = mock(CompletableFuture.class);
 
-    when(sender.invokeRequest(any(), any(), eq(String.class))).thenReturn(future);
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class)))).thenReturn(future);
 
-    when(future.get()).thenThrow(throwableClass);
+    when(future.get()).thenThrow(thrown);
 
     var exception =
         Assertions.assertThrows(
-            RuntimeException.class, () -> client.execute(query, String.class, ""));
-    Assertions.assertEquals(throwableClass, exception.getCause().getClass());
+            SupabaseException.class, () -> client.execute(query, String.class, ""));
+    // the cause is what failed the future, not the ExecutionException around it
+    Assertions.assertEquals(causeClass, exception.getCause().getClass());
+  }
+
+  @Test
+  void testExecuteRethrowsSupabaseExceptionsUnwrapped() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    var expectedException = new SupabaseHttpException(503, "");
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class))))
+        .thenReturn(CompletableFuture.failedFuture(expectedException));
+
+    var exception =
+        Assertions.assertThrows(
+            SupabaseHttpException.class,
+            () -> client.execute(mock(SelectQuery.class), String.class, "GET"));
+    Assertions.assertSame(expectedException, exception);
+  }
+
+  @MethodSource("provideDifferentQueryTypes")
+  @ParameterizedTest
+  void testExecuteAsyncHappyPath(Query query) throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class))))
+        .thenReturn(CompletableFuture.completedFuture("foo"));
+
+    var result = client.executeAsync(query, String.class, "GET");
+    Assertions.assertEquals("foo", result.join());
+  }
+
+  @Test
+  void testExecuteSelectWithTypeReferenceResolvesGenericType() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    var listType = TypeFactory.defaultInstance().constructCollectionType(List.class, String.class);
+    when(sender.<List<String>>invokeRequest(eq("GET"), any(), eq(listType)))
+        .thenReturn(CompletableFuture.completedFuture(List.of("foo")));
+    var query = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+
+    List<String> result = client.executeSelect(query, new TypeReference<List<String>>() {});
+
+    Assertions.assertEquals(List.of("foo"), result);
+  }
+
+  @Test
+  void testExecuteDeleteAsyncWithJavaType() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    when(sender.<String>invokeRequest(eq("DELETE"), any(), eq(type(String.class))))
+        .thenReturn(CompletableFuture.completedFuture("foo"));
+
+    var result = client.<String>executeDeleteAsync(mock(DeleteQuery.class), type(String.class));
+
+    Assertions.assertEquals("foo", result.join());
+  }
+
+  @Test
+  void testExecuteAsyncCompletesExceptionallyOnJsonException() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class))))
+        .thenThrow(JsonProcessingException.class);
+
+    var result = client.executeAsync(mock(InsertQuery.class), String.class, "POST");
+    var exception = Assertions.assertThrows(ExecutionException.class, result::get);
+    Assertions.assertInstanceOf(SupabaseSerializationException.class, exception.getCause());
+  }
+
+  @Test
+  void testExecuteSelectAsyncInvokesExecuteAsync() throws JsonProcessingException {
+    var query = mock(SelectQuery.class);
+    var client = setupMockedClient();
+
+    client.executeSelectAsync(query, String.class);
+    verify(client, times(1)).executeAsync(query, String.class, "GET");
+  }
+
+  @Test
+  void testExecuteInsertAsyncInvokesExecuteAsync() throws JsonProcessingException {
+    var query = mock(InsertQuery.class);
+    var client = setupMockedClient();
+
+    client.executeInsertAsync(query, String.class);
+    verify(client, times(1)).executeAsync(query, String.class, "POST");
+  }
+
+  @Test
+  void testExecuteUpdateAsyncInvokesExecuteAsync() throws JsonProcessingException {
+    var query = mock(UpdateQuery.class);
+    var client = setupMockedClient();
+
+    client.executeUpdateAsync(query, String.class);
+    verify(client, times(1)).executeAsync(query, String.class, "PATCH");
+  }
+
+  @Test
+  void testExecuteDeleteAsyncInvokesExecuteAsync() throws JsonProcessingException {
+    var query = mock(DeleteQuery.class);
+    var client = setupMockedClient();
+
+    client.executeDeleteAsync(query, String.class);
+    verify(client, times(1)).executeAsync(query, String.class, "DELETE");
+  }
+
+  @Test
+  void testExecuteSelectStreamReturnsSenderStream() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    when(sender.streamRequest(eq("GET"), any(), eq(String.class)))
+        .thenReturn(CompletableFuture.completedFuture(Stream.of("foo", "bar")));
+
+    try (var rows = client.executeSelectStream(mock(SelectQuery.class), String.class)) {
+      Assertions.assertEquals(List.of("foo", "bar"), rows.toList());
+    }
+  }
+
+  @Test
+  void testExecuteSelectPagesDeserializesPagesAsLists() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var client = new SupabaseClient(sender, "", Map.of());
+    var pageType = TypeFactory.defaultInstance().constructCollectionType(List.class, String.class);
+    when(sender.<List<String>>invokeRequest(eq("GET"), any(), eq(pageType)))
+        .thenReturn(CompletableFuture.completedFuture(List.of("foo", "bar")))
+        .thenReturn(CompletableFuture.completedFuture(List.of("baz")));
+    var query = new SelectQuery.SelectQueryBuilder().from("foo").select("*").build();
+
+    var pages = client.executeSelectPages(query, 2, String.class);
+
+    Assertions.assertEquals(List.of("foo", "bar"), pages.next());
+    Assertions.assertEquals(List.of("baz"), pages.next());
+    Assertions.assertFalse(pages.hasNext());
   }
 
   @Test
@@ -153,9 +601,26 @@ class SupabaseClientTest {
 
   private SupabaseClient setupMockedClient() throws JsonProcessingException {
     var sender = mock(SupabaseHttpRequestSender.class);
-    when(sender.invokeRequest(any(), any(), eq(String.class)))
+    when(sender.<String>invokeRequest(any(), any(), eq(type(String.class))))
         .thenReturn(CompletableFuture.completedFuture(""));
 
     return spy(new SupabaseClient(sender, "", Map.of()));
   }
+
+  @Test
+  void testExecuteReportsBuildPhase() throws JsonProcessingException {
+    var sender = mock(SupabaseHttpRequestSender.class);
+    var listener = new HistogramMetricsListener(Duration.ofMinutes(1));
+    sender.metricsListener = listener;
+    doReturn(CompletableFuture.completedFuture(null))
+        .when(sender)
+        .invokeRequest(eq("POST"), any(), any());
+    var client = new SupabaseClient(sender, "", Map.of());
+    var query =
+        new InsertQuery.InsertQueryBuilder().from("foo").insert(Map.of("bar", "baz")).build();
+
+    client.executeInsert(query, String.class);
+
+    Assertions.assertEquals(1, listener.getHistogram(RequestPhase.BUILD, "foo", "POST").count());
+  }
 }
@@ -2,26 +2,103 @@ package com.skhanal5.core;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.skhanal5.exceptions.CircuitBreakerOpenException;
+import com.skhanal5.exceptions.ConcurrencyLimitExceededException;
+import com.skhanal5.exceptions.RateLimitExceededException;
+import com.skhanal5.exceptions.SupabaseException;
+import com.skhanal5.exceptions.SupabaseHttpException;
+import com.skhanal5.exceptions.SupabaseSerializationException;
+import com.skhanal5.metrics.HistogramMetricsListener;
+import com.skhanal5.metrics.RequestPhase;
+import com.skhanal5.metrics.SupabaseRequestEvent;
+import com.skhanal5.resilience.CircuitBreaker;
+import com.skhanal5.resilience.CircuitBreakerRegistry;
+import com.skhanal5.resilience.ConcurrencyLimiter;
+import com.skhanal5.resilience.HedgingPolicy;
+import com.skhanal5.resilience.LimitStrategy;
+import com.skhanal5.resilience.RateLimiter;
+import com.skhanal5.resilience.RetryPolicy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import lombok.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 
 public class SupabaseHttpRequestSenderTest {
 
   private static ObjectMapper objectMapper = new ObjectMapper();
 
+  private static JavaType type(Class<?> type) {
+    return objectMapper.getTypeFactory().constructType(type);
+  }
+
+  private static byte[] bytes(String body) {
+    return body.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gzip(String body) {
+    var compressed = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(compressed)) {
+      out.write(bytes(body));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static HttpHeaders gzipHeaders() {
+    return HttpHeaders.of(Map.of("Content-Encoding", List.of("gzip")), (name, value) -> true);
+  }
+
+  private static SupabaseHttpRequestSender newCompressingSender(HttpClient client) {
+    var options = new SupabaseClient.SupabaseClientBuilder().compression(true);
+    return new SupabaseHttpRequestSender(client, objectMapper, options, null);
+  }
+
   @Test
   void testConstructorMinimal() {
     var sender = new SupabaseHttpRequestSender(null);
@@ -54,15 +131,463 @@ public class SupabaseHttpRequestSenderTest {
     var request = mock(SupabaseHttpRequest.class);
     var expectedResponse = new Data("foo", 1);
     when(response.statusCode()).thenReturn(200);
-    when(response.body()).thenReturn(" { \"message\": \"foo\", \"value\": 1 }");
-    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+    when(response.body()).thenReturn(bytes(" { \"message\": \"foo\", \"value\": 1 }"));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
         .thenReturn(CompletableFuture.completedFuture(response));
 
     var sender = new SupabaseHttpRequestSender(client, objectMapper);
-    var res = sender.invokeRequest("", request, Data.class).get();
+    var res = sender.invokeRequest("", request, type(Data.class)).get();
     Assertions.assertEquals(expectedResponse, res);
   }
 
+  @Test
+  void testInvokeRequestFailsWithSupabaseExceptionOnTransportErrors()
+      throws JsonProcessingException {
+    var client = mock(HttpClient.class);
+    var request = mock(SupabaseHttpRequest.class);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(CompletableFuture.failedFuture(new ConnectException("refused")));
+
+    var sender = new SupabaseHttpRequestSender(client, objectMapper);
+    var result = sender.invokeRequest("GET", request, type(Data.class));
+
+    var exception = Assertions.assertThrows(ExecutionException.class, result::get);
+    var cause = Assertions.assertInstanceOf(SupabaseException.class, exception.getCause());
+    Assertions.assertInstanceOf(ConnectException.class, cause.getCause());
+  }
+
+  @Test
+  void testInvokeRequestDeserializesOnVirtualThread()
+      throws JsonProcessingException, ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    var response = mock(HttpResponse.class);
+    var request = mock(SupabaseHttpRequest.class);
+    when(response.statusCode()).thenReturn(200);
+    when(response.body()).thenReturn(bytes(" { \"message\": \"foo\", \"value\": 1 }"));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var deserializedOnVirtualThread = new AtomicBoolean();
+    var mapper =
+        new ObjectMapper()
+            .registerModule(
+                new SimpleModule()
+                    .addDeserializer(
+                        Data.class,
+                        new JsonDeserializer<>() {
+                          @Override
+                          public Data deserialize(JsonParser parser, DeserializationContext context)
+                              throws IOException {
+                            deserializedOnVirtualThread.set(Thread.currentThread().isVirtual());
+                            JsonNode node = parser.readValueAsTree();
+                            return new Data(
+                                node.get("message").asText(), node.get("value").asInt());
+                          }
+                        }));
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      var sender =
+          new SupabaseHttpRequestSender(
+              client, mapper, new SupabaseClient.SupabaseClientBuilder(), executor);
+      var res = sender.invokeRequest("", request, type(Data.class)).get();
+      Assertions.assertEquals(new Data("foo", 1), res);
+    }
+    Assertions.assertTrue(deserializedOnVirtualThread.get());
+  }
+
+  @Test
+  void testInvokeRequestIsBoundedByConcurrencyLimiter() throws JsonProcessingException {
+    var client = mock(HttpClient.class);
+    var response = mock(HttpResponse.class);
+    var request = mock(SupabaseHttpRequest.class);
+    when(response.statusCode()).thenReturn(200);
+    when(response.body()).thenReturn(bytes(""));
+    var pendingResponse = new CompletableFuture<HttpResponse<Object>>();
+    when(client.sendAsync(any(), any())).thenReturn(pendingResponse);
+    var limiter =
+        new ConcurrencyLimiter.ConcurrencyLimiterBuilder().strategy(LimitStrategy.fixed(1)).build();
+    var options = new SupabaseClient.SupabaseClientBuilder().concurrencyLimiter(limiter);
+    var sender = new SupabaseHttpRequestSender(client, objectMapper, options, null);
+
+    var first = sender.invokeRequest("GET", request, type(Data.class));
+    var second = sender.invokeRequest("GET", request, type(Data.class));
+
+    var exception = Assertions.assertThrows(ExecutionException.class, second::get);
+    Assertions.assertInstanceOf(ConcurrencyLimitExceededException.class, exception.getCause());
+    Assertions.assertEquals(1, limiter.getInFlight());
+
+    pendingResponse.complete(response);
+    Assertions.assertTrue(first.isDone());
+    Assertions.assertEquals(0, limiter.getInFlight());
+  }
+
+  private static SupabaseHttpRequestSender newHedgingSender(
+      HttpClient client, HedgingPolicy hedgingPolicy) {
+    // warm up the latency histogram, so that selects are hedged after about a millisecond
+    for (int i = 0; i < 100; i++) {
+      hedgingPolicy.recordLatency(Duration.ofMillis(1).toNanos());
+    }
+    var options = new SupabaseClient.SupabaseClientBuilder().hedgingPolicy(hedgingPolicy);
+    return new SupabaseHttpRequestSender(client, objectMapper, options, null);
+  }
+
+  @Test
+  void testSendHedgedUsesFasterAttemptAndCancelsTheOther()
+      throws ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> response = mock(HttpResponse.class);
+    var slowResponse = new CompletableFuture<HttpResponse<String>>();
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(slowResponse)
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var hedgingPolicy = new HedgingPolicy.HedgingPolicyBuilder().build();
+    var sender = newHedgingSender(client, hedgingPolicy);
+
+    var res = sender.sendHedged(newHttpRequest("GET"), BodyHandlers.ofString()).get();
+
+    Assertions.assertSame(response, res);
+    // the loser is cancelled right after the winner completed the result
+    Assertions.assertThrows(
+        CancellationException.class, () -> slowResponse.get(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(1, hedgingPolicy.getHedgeCount());
+    verify(client, times(2)).sendAsync(any(), eq(BodyHandlers.ofString()));
+  }
+
+  @Test
+  void testSendHedgedRecordsLatencyOfCancelledPrimary()
+      throws ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> response = mock(HttpResponse.class);
+    var slowResponse = new CompletableFuture<HttpResponse<String>>();
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(slowResponse)
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var hedgingPolicy = spy(new HedgingPolicy.HedgingPolicyBuilder().build());
+    var sender = newHedgingSender(client, hedgingPolicy);
+
+    sender.sendHedged(newHttpRequest("GET"), BodyHandlers.ofString()).get();
+
+    // the 100 warm up latencies and the cancelled primary, which ran for at least the hedge delay
+    var latencies = ArgumentCaptor.forClass(Long.class);
+    verify(hedgingPolicy, timeout(5_000).times(101)).recordLatency(latencies.capture());
+    Assertions.assertTrue(latencies.getValue() >= Duration.ofMillis(1).toNanos());
+  }
+
+  @Test
+  void testSendHedgedFailsOnlyWhenEveryAttemptFailed() {
+    var client = mock(HttpClient.class);
+    var slowFailure = new CompletableFuture<HttpResponse<String>>();
+    var failure = new CompletableFuture<HttpResponse<String>>();
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(slowFailure)
+        .thenReturn(failure);
+    var hedgingPolicy = new HedgingPolicy.HedgingPolicyBuilder().build();
+    var sender = newHedgingSender(client, hedgingPolicy);
+
+    var result = sender.sendHedged(newHttpRequest("GET"), BodyHandlers.ofString());
+    verify(client, timeout(5_000).times(2)).sendAsync(any(), eq(BodyHandlers.ofString()));
+    failure.completeExceptionally(new ConnectException("refused"));
+    Assertions.assertFalse(result.isDone());
+    slowFailure.completeExceptionally(new ConnectException("refused"));
+
+    var exception = Assertions.assertThrows(ExecutionException.class, result::get);
+    Assertions.assertInstanceOf(ConnectException.class, exception.getCause());
+  }
+
+  @Test
+  void testSendHedgedDoesNotHedgeFastResponses() throws ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> response = mock(HttpResponse.class);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var hedgingPolicy = new HedgingPolicy.HedgingPolicyBuilder().build();
+    var sender = newHedgingSender(client, hedgingPolicy);
+
+    Assertions.assertSame(
+        response, sender.sendHedged(newHttpRequest("GET"), BodyHandlers.ofString()).get());
+    Thread.sleep(20);
+
+    Assertions.assertEquals(0, hedgingPolicy.getHedgeCount());
+    verify(client, times(1)).sendAsync(any(), eq(BodyHandlers.ofString()));
+  }
+
+  @Test
+  void testFetchBodyHedgesOnlySelects() throws JsonProcessingException {
+    var client = mock(HttpClient.class);
+    var request = mock(SupabaseHttpRequest.class);
+    when(request.buildRequest(any(), any(), any())).thenReturn(newHttpRequest("POST"));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(new CompletableFuture<>());
+    var hedgingPolicy = new HedgingPolicy.HedgingPolicyBuilder().build();
+    var sender = newHedgingSender(client, hedgingPolicy);
+
+    sender.fetchBody("POST", request);
+
+    verify(client, after(50).times(1)).sendAsync(any(), eq(BodyHandlers.ofByteArray()));
+    Assertions.assertEquals(0, hedgingPolicy.getHedgeCount());
+  }
+
+  @Test
+  void testFetchBodyFailsFastWhenCircuitBreakerIsOpen() throws JsonProcessingException {
+    var client = mock(HttpClient.class);
+    HttpResponse<byte[]> unavailable = mock(HttpResponse.class);
+    when(unavailable.statusCode()).thenReturn(503);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(CompletableFuture.completedFuture(unavailable));
+    var request = mock(SupabaseHttpRequest.class);
+    request.table = "foo";
+    when(request.buildRequest(any(), any(), any())).thenReturn(newHttpRequest("GET"));
+    var circuitBreakers =
+        new CircuitBreakerRegistry.CircuitBreakerRegistryBuilder()
+            .defaults(new CircuitBreaker.CircuitBreakerBuilder().slidingWindow(2, 2))
+            .build();
+    var options = new SupabaseClient.SupabaseClientBuilder().circuitBreakers(circuitBreakers);
+    var sender = new SupabaseHttpRequestSender(client, objectMapper, options, null);
+
+    for (int i = 0; i < 2; i++) {
+      var exception =
+          Assertions.assertThrows(
+              ExecutionException.class, () -> sender.fetchBody("GET", request).get());
+      Assertions.assertInstanceOf(SupabaseHttpException.class, exception.getCause());
+    }
+    var exception =
+        Assertions.assertThrows(
+            ExecutionException.class, () -> sender.fetchBody("GET", request).get());
+
+    Assertions.assertInstanceOf(CircuitBreakerOpenException.class, exception.getCause());
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.forTable("foo").getState());
+    Assertions.assertEquals(
+        CircuitBreaker.State.CLOSED, circuitBreakers.forTable("bar").getState());
+    verify(client, times(2)).sendAsync(any(), eq(BodyHandlers.ofByteArray()));
+  }
+
+  @Test
+  void testFetchBodyIsRateLimitedPerTable() throws JsonProcessingException {
+    var client = mock(HttpClient.class);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(new CompletableFuture<>());
+    var fooRequest = mock(SupabaseHttpRequest.class);
+    fooRequest.table = "foo";
+    when(fooRequest.buildRequest(any(), any(), any())).thenReturn(newHttpRequest("GET"));
+    var barRequest = mock(SupabaseHttpRequest.class);
+    barRequest.table = "bar";
+    when(barRequest.buildRequest(any(), any(), any())).thenReturn(newHttpRequest("GET"));
+    var rateLimiter =
+        new RateLimiter.RateLimiterBuilder().perTable(1, 1).maxWait(Duration.ZERO).build();
+    var options = new SupabaseClient.SupabaseClientBuilder().rateLimiter(rateLimiter);
+    var sender = new SupabaseHttpRequestSender(client, objectMapper, options, null);
+
+    sender.fetchBody("GET", fooRequest);
+    var limited = sender.fetchBody("GET", fooRequest);
+    sender.fetchBody("GET", barRequest);
+
+    var exception = Assertions.assertThrows(ExecutionException.class, limited::get);
+    Assertions.assertInstanceOf(RateLimitExceededException.class, exception.getCause());
+    verify(client, times(2)).sendAsync(any(), eq(BodyHandlers.ofByteArray()));
+  }
+
+  @Test
+  void testInvokeRequestReportsPhases()
+      throws JsonProcessingException, ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<byte[]> response = mock(HttpResponse.class);
+    when(response.statusCode()).thenReturn(200);
+    when(response.body()).thenReturn(bytes("{ \"message\": \"foo\", \"value\": 1 }"));
+    var responseInfo = mock(HttpResponse.ResponseInfo.class);
+    when(responseInfo.statusCode()).thenReturn(200);
+    when(responseInfo.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+    when(client.sendAsync(any(), any()))
+        .thenAnswer(
+            invocation -> {
+              // the HttpClient hands the headers to the handler before the response completes
+              HttpResponse.BodyHandler<?> handler = invocation.getArgument(1);
+              handler.apply(responseInfo);
+              return CompletableFuture.completedFuture(response);
+            });
+    var request = mock(SupabaseHttpRequest.class);
+    request.table = "foo";
+    when(request.buildRequest(any(), any(), any())).thenReturn(newHttpRequest("GET"));
+    var listener = new HistogramMetricsListener(Duration.ofMinutes(1));
+    var options = new SupabaseClient.SupabaseClientBuilder().metricsListener(listener);
+    var sender = new SupabaseHttpRequestSender(client, objectMapper, options, null);
+
+    Assertions.assertEquals(
+        new Data("foo", 1), sender.invokeRequest("GET", request, type(Data.class)).get());
+
+    Assertions.assertEquals(1, listener.getHistogram(RequestPhase.SERIALIZE, "foo", "GET").count());
+    Assertions.assertEquals(
+        1, listener.getHistogram(RequestPhase.HEADERS, "foo", "GET", 200).count());
+    Assertions.assertEquals(
+        1, listener.getHistogram(RequestPhase.DESERIALIZE, "foo", "GET", 200).count());
+  }
+
+  @Test
+  void testInvokeRequestInflatesGzipBody()
+      throws JsonProcessingException, ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<byte[]> response = mock(HttpResponse.class);
+    when(response.statusCode()).thenReturn(200);
+    when(response.headers()).thenReturn(gzipHeaders());
+    when(response.body()).thenReturn(gzip("{ \"message\": \"foo\", \"value\": 1 }"));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var sender = newCompressingSender(client);
+
+    var body = sender.fetchBody("GET", mock(SupabaseHttpRequest.class)).get();
+
+    Assertions.assertEquals("gzip", body.contentEncoding());
+    Assertions.assertEquals(new Data("foo", 1), sender.deserialize(body, type(Data.class)));
+  }
+
+  @Test
+  void testValidateStatusCodeInflatesGzipErrorBody() {
+    HttpResponse<byte[]> response = mock(HttpResponse.class);
+    when(response.statusCode()).thenReturn(404);
+    when(response.headers()).thenReturn(gzipHeaders());
+    when(response.body()).thenReturn(gzip("{\"message\":\"missing\"}"));
+    var sender = newCompressingSender(mock(HttpClient.class));
+
+    var exception =
+        Assertions.assertThrows(
+            SupabaseHttpException.class, () -> sender.validateStatusCode(response));
+    Assertions.assertEquals("{\"message\":\"missing\"}", exception.getResponseBody());
+  }
+
+  @Test
+  void testFetchBodyEmitsJfrEvent() throws Exception {
+    var client = mock(HttpClient.class);
+    HttpResponse<byte[]> response = mock(HttpResponse.class);
+    when(response.statusCode()).thenReturn(200);
+    when(response.body()).thenReturn(bytes("[\"\u00e9\"]"));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+    var request = mock(SupabaseHttpRequest.class);
+    request.table = "foo";
+    var httpRequest = newHttpRequest("GET");
+    when(request.buildRequest(any(), any(), any())).thenReturn(httpRequest);
+    var sender = new SupabaseHttpRequestSender(client, objectMapper);
+    var file = Files.createTempFile("supabase", ".jfr");
+    try (var recording = new Recording()) {
+      recording.enable(SupabaseRequestEvent.NAME);
+      recording.start();
+      sender.fetchBody("GET", request).get();
+      recording.stop();
+      recording.dump(file);
+
+      var events =
+          RecordingFile.readAllEvents(file).stream()
+              .filter(event -> event.getEventType().getName().equals(SupabaseRequestEvent.NAME))
+              .toList();
+
+      Assertions.assertEquals(1, events.size());
+      var event = events.get(0);
+      Assertions.assertEquals("foo", event.getString("table"));
+      Assertions.assertEquals("GET", event.getString("method"));
+      Assertions.assertEquals(200, event.getInt("status"));
+      Assertions.assertEquals(httpRequest.uri().toString().length(), event.getInt("uriLength"));
+      Assertions.assertEquals(6, event.getLong("responseBytes"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static SupabaseHttpRequestSender newRetryingSender(HttpClient client) {
+    var retryPolicy =
+        new RetryPolicy.RetryPolicyBuilder()
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+            .build();
+    var options = new SupabaseClient.SupabaseClientBuilder().retryPolicy(retryPolicy);
+    return new SupabaseHttpRequestSender(client, objectMapper, options, null);
+  }
+
+  private static HttpRequest newHttpRequest(String method) {
+    return HttpRequest.newBuilder(URI.create("http://localhost/foo"))
+        .method(method, HttpRequest.BodyPublishers.noBody())
+        .build();
+  }
+
+  @Test
+  void testSendRetriesRetryableStatus() {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> unavailable = mock(HttpResponse.class);
+    HttpResponse<String> ok = mock(HttpResponse.class);
+    when(unavailable.statusCode()).thenReturn(503);
+    when(unavailable.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+    when(ok.statusCode()).thenReturn(200);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(CompletableFuture.completedFuture(unavailable))
+        .thenReturn(CompletableFuture.completedFuture(ok));
+    var sender = newRetryingSender(client);
+
+    var response = sender.send(newHttpRequest("GET"), BodyHandlers.ofString()).join();
+
+    Assertions.assertSame(ok, response);
+    verify(client, times(2)).sendAsync(any(), eq(BodyHandlers.ofString()));
+  }
+
+  @Test
+  void testSendWaitsForRetryAfter() {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> tooManyRequests = mock(HttpResponse.class);
+    HttpResponse<String> ok = mock(HttpResponse.class);
+    when(tooManyRequests.statusCode()).thenReturn(429);
+    when(tooManyRequests.headers())
+        .thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("1")), (name, value) -> true));
+    when(ok.statusCode()).thenReturn(200);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(CompletableFuture.completedFuture(tooManyRequests))
+        .thenReturn(CompletableFuture.completedFuture(ok));
+    var sender = newRetryingSender(client);
+
+    var start = System.nanoTime();
+    var response = sender.send(newHttpRequest("GET"), BodyHandlers.ofString()).join();
+
+    Assertions.assertSame(ok, response);
+    Assertions.assertTrue(System.nanoTime() - start >= Duration.ofSeconds(1).toNanos());
+  }
+
+  @Test
+  void testSendRetriesIOErrorsUpToMaxAttempts() {
+    var client = mock(HttpClient.class);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(CompletableFuture.failedFuture(new ConnectException()));
+    var sender = newRetryingSender(client);
+
+    var result = sender.send(newHttpRequest("DELETE"), BodyHandlers.ofString());
+
+    var exception = Assertions.assertThrows(CompletionException.class, result::join);
+    Assertions.assertInstanceOf(ConnectException.class, exception.getCause());
+    verify(client, times(3)).sendAsync(any(), eq(BodyHandlers.ofString()));
+  }
+
+  @Test
+  void testSendDoesNotRetryInserts() {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> unavailable = mock(HttpResponse.class);
+    when(unavailable.statusCode()).thenReturn(503);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(CompletableFuture.completedFuture(unavailable));
+    var sender = newRetryingSender(client);
+
+    var response = sender.send(newHttpRequest("POST"), BodyHandlers.ofString()).join();
+
+    Assertions.assertEquals(503, response.statusCode());
+    verify(client, times(1)).sendAsync(any(), eq(BodyHandlers.ofString()));
+  }
+
+  @Test
+  void testSendDoesNotRetryClientErrors() {
+    var client = mock(HttpClient.class);
+    HttpResponse<String> badRequest = mock(HttpResponse.class);
+    when(badRequest.statusCode()).thenReturn(400);
+    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+        .thenReturn(CompletableFuture.completedFuture(badRequest));
+    var sender = newRetryingSender(client);
+
+    sender.send(newHttpRequest("GET"), BodyHandlers.ofString()).join();
+
+    verify(client, times(1)).sendAsync(any(), eq(BodyHandlers.ofString()));
+  }
+
   @Test
   void testInvokeRequestUnhappyPath()
       throws JsonProcessingException, ExecutionException, InterruptedException {
@@ -70,12 +595,70 @@ public class SupabaseHttpRequestSenderTest {
     var response = mock(HttpResponse.class);
     var request = mock(SupabaseHttpRequest.class);
     when(response.statusCode()).thenReturn(400);
-    when(client.sendAsync(any(), eq(BodyHandlers.ofString())))
+    when(client.sendAsync(any(), eq(BodyHandlers.ofByteArray())))
         .thenReturn(CompletableFuture.completedFuture(response));
 
     var sender = new SupabaseHttpRequestSender(client, objectMapper);
-    var result = sender.invokeRequest("", request, Data.class);
-    Assertions.assertThrows(ExecutionException.class, () -> result.get());
+    var result = sender.invokeRequest("", request, type(Data.class));
+    var exception = Assertions.assertThrows(ExecutionException.class, () -> result.get());
+    Assertions.assertInstanceOf(SupabaseHttpException.class, exception.getCause());
+  }
+
+  @Test
+  void testStreamRequestHappyPath()
+      throws JsonProcessingException, ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<InputStream> response = mock(HttpResponse.class);
+    var request = mock(SupabaseHttpRequest.class);
+    var body = "[{ \"message\": \"foo\", \"value\": 1 }, { \"message\": \"bar\", \"value\": 2 }]";
+    when(response.statusCode()).thenReturn(200);
+    when(response.body())
+        .thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofInputStream())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+
+    var sender = new SupabaseHttpRequestSender(client, objectMapper);
+    try (var rows = sender.streamRequest("GET", request, Data.class).get()) {
+      Assertions.assertEquals(List.of(new Data("foo", 1), new Data("bar", 2)), rows.toList());
+    }
+  }
+
+  @Test
+  void testStreamRequestInflatesGzipBody()
+      throws JsonProcessingException, ExecutionException, InterruptedException {
+    var client = mock(HttpClient.class);
+    HttpResponse<InputStream> response = mock(HttpResponse.class);
+    var body = "[{ \"message\": \"foo\", \"value\": 1 }, { \"message\": \"bar\", \"value\": 2 }]";
+    when(response.statusCode()).thenReturn(200);
+    when(response.headers()).thenReturn(gzipHeaders());
+    when(response.body()).thenReturn(new ByteArrayInputStream(gzip(body)));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofInputStream())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+
+    var sender = newCompressingSender(client);
+    try (var rows =
+        sender.streamRequest("GET", mock(SupabaseHttpRequest.class), Data.class).get()) {
+      Assertions.assertEquals(List.of(new Data("foo", 1), new Data("bar", 2)), rows.toList());
+    }
+  }
+
+  @Test
+  void testStreamRequestUnhappyPath() throws JsonProcessingException {
+    var client = mock(HttpClient.class);
+    HttpResponse<InputStream> response = mock(HttpResponse.class);
+    var request = mock(SupabaseHttpRequest.class);
+    when(response.statusCode()).thenReturn(500);
+    when(response.body())
+        .thenReturn(new ByteArrayInputStream("oops".getBytes(StandardCharsets.UTF_8)));
+    when(client.sendAsync(any(), eq(BodyHandlers.ofInputStream())))
+        .thenReturn(CompletableFuture.completedFuture(response));
+
+    var sender = new SupabaseHttpRequestSender(client, objectMapper);
+    var result = sender.streamRequest("GET", request, Data.class);
+    var exception = Assertions.assertThrows(ExecutionException.class, result::get);
+    var httpException =
+        Assertions.assertInstanceOf(SupabaseHttpException.class, exception.getCause());
+    Assertions.assertEquals("oops", httpException.getResponseBody());
   }
 
   @ParameterizedTest
@@ -99,9 +682,22 @@ public class SupabaseHttpRequestSenderTest {
         exception.getMessage(), "Received an invalid status code from the server: " + statusCode);
   }
 
+  @Test
+  void testValidateStatusCodeKeepsStatusAndBody() {
+    HttpResponse<byte[]> response = mock(HttpResponse.class);
+    var sender = new SupabaseHttpRequestSender(objectMapper);
+    when(response.statusCode()).thenReturn(404);
+    when(response.body()).thenReturn(bytes("{\"message\":\"missing\"}"));
+    var exception =
+        Assertions.assertThrows(
+            SupabaseHttpException.class, () -> sender.validateStatusCode(response));
+    Assertions.assertEquals(404, exception.getStatusCode());
+    Assertions.assertEquals("{\"message\":\"missing\"}", exception.getResponseBody());
+  }
+
   @Test
   void testDeserializeHappyPath() {
-    var body = " { \"message\": \"foo\", \"value\": 1 }";
+    var body = bytes(" { \"message\": \"foo\", \"value\": 1 }");
     var sender = new SupabaseHttpRequestSender(objectMapper);
     var result = sender.deserialize(body, Data.class);
     Assertions.assertEquals("foo", result.message);
@@ -110,8 +706,32 @@ public class SupabaseHttpRequestSenderTest {
 
   @Test
   void testDeserializeUnhappyPath() {
-    var body = " { \"message\": \"foo\", \"value\": 1 }";
+    var body = bytes(" { \"message\": \"foo\", \"value\": 1 }");
+    var sender = new SupabaseHttpRequestSender(objectMapper);
+    Assertions.assertThrows(
+        SupabaseSerializationException.class, () -> sender.deserialize(body, String.class));
+  }
+
+  @Test
+  void testDeserializeIntoGenericType() {
+    var body = bytes("[{\"message\":\"foo\",\"value\":1}]");
+    var sender = new SupabaseHttpRequestSender(objectMapper);
+    var listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Data.class);
+    List<Data> result = sender.deserialize(body, listType);
+    Assertions.assertEquals(List.of(new Data("foo", 1)), result);
+  }
+
+  @Test
+  void testReaderForIsCachedPerType() {
+    var sender = new SupabaseHttpRequestSender(objectMapper);
+    var reader = sender.readerFor(type(Data.class));
+    Assertions.assertSame(reader, sender.readerFor(type(Data.class)));
+    Assertions.assertNotSame(reader, sender.readerFor(type(String.class)));
+  }
+
+  @Test
+  void testDeserializeEmptyBodyReturnsNull() {
     var sender = new SupabaseHttpRequestSender(objectMapper);
-    Assertions.assertThrows(RuntimeException.class, () -> sender.deserialize(body, String.class));
+    Assertions.assertNull(sender.deserialize(new byte[0], Data.class));
   }
 }
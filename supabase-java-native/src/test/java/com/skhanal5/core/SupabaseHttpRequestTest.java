@@ -1,12 +1,18 @@
 package com.skhanal5.core;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skhanal5.models.Filter;
+import com.skhanal5.models.InsertQuery;
 import com.skhanal5.models.Query;
 import com.skhanal5.models.SelectQuery;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -18,6 +24,8 @@ import org.mockito.Mockito;
 
 class SupabaseHttpRequestTest {
 
+  private static final ObjectMapper mapper = new ObjectMapper();
+
   @Test
   void testSupabaseConstructorMinimal() {
     var query = Mockito.mock(Query.class);
@@ -27,6 +35,14 @@ class SupabaseHttpRequestTest {
     Assertions.assertEquals(List.of(), request.requestBody);
     Assertions.assertEquals(Map.of(), request.queryParameters);
     Assertions.assertEquals("nullnull?", request.uri.toString());
+    Assertions.assertNull(request.table);
+  }
+
+  @Test
+  void testSupabaseConstructorKeepsTable() {
+    var query = new SelectQuery.SelectQueryBuilder().select("*").from("foo").build();
+    var request = new SupabaseHttpRequest("http://localhost/rest/v1/", Map.of(), query);
+    Assertions.assertEquals("foo", request.table);
   }
 
   @Test
@@ -53,7 +69,7 @@ class SupabaseHttpRequestTest {
     var query = Mockito.mock(Query.class);
     var expectedMethod = "GET";
     var supabaseRequest = new SupabaseHttpRequest("http://localhost", Map.of(), query);
-    var httpRequest = supabaseRequest.buildRequest(expectedMethod);
+    var httpRequest = supabaseRequest.buildRequest(expectedMethod, mapper);
     Assertions.assertEquals(expectedMethod, httpRequest.method());
   }
 
@@ -62,17 +78,105 @@ class SupabaseHttpRequestTest {
     var query = new SelectQuery.SelectQueryBuilder().from("foo").select("2").build();
     var expectedURI = "http://localhost/foo?select=2";
     var supabaseRequest = new SupabaseHttpRequest("http://localhost/", Map.of(), query);
-    var httpRequest = supabaseRequest.buildRequest("GET");
+    var httpRequest = supabaseRequest.buildRequest("GET", mapper);
     Assertions.assertEquals(expectedURI, httpRequest.uri().toString());
   }
 
   @Test
-  void testBuildRequestSetsDefaultHeaders() throws JsonProcessingException {
-    var expectedHeaders = Map.of("Content-Type", List.of("application/json"));
+  void testBuildRequestSetsTimeout() throws JsonProcessingException {
     var query = Mockito.mock(Query.class);
     var supabaseRequest = new SupabaseHttpRequest("http://localhost", Map.of(), query);
-    var httpRequest = supabaseRequest.buildRequest("GET");
+    Assertions.assertEquals(
+        Optional.of(Duration.ofSeconds(2)),
+        supabaseRequest.buildRequest("GET", mapper, Duration.ofSeconds(2)).timeout());
+    Assertions.assertEquals(
+        Optional.empty(), supabaseRequest.buildRequest("GET", mapper).timeout());
+  }
+
+  @Test
+  void testBuildRequestWithoutBodySkipsBodyAndContentType() throws JsonProcessingException {
+    var query = Mockito.mock(Query.class);
+    var supabaseRequest = new SupabaseHttpRequest("http://localhost", Map.of(), query);
+    var httpRequest = supabaseRequest.buildRequest("GET", mapper);
+    Assertions.assertEquals(Map.of(), httpRequest.headers().map());
+    Assertions.assertEquals(0, httpRequest.bodyPublisher().orElseThrow().contentLength());
+  }
+
+  @Test
+  void testBuildRequestWithBodySetsContentType() throws JsonProcessingException {
+    var expectedHeaders =
+        Map.of("Content-Type", List.of("application/json"), "apikey", List.of("key"));
+    var query =
+        new InsertQuery.InsertQueryBuilder().from("foo").insert(Map.of("bar", "baz")).build();
+    var supabaseRequest =
+        new SupabaseHttpRequest("http://localhost/", Map.of("apikey", "key"), query);
+    var httpRequest = supabaseRequest.buildRequest("POST", mapper);
     Assertions.assertEquals(expectedHeaders, httpRequest.headers().map());
+    Assertions.assertEquals(
+        "[{\"bar\":\"baz\"}]".length(), httpRequest.bodyPublisher().orElseThrow().contentLength());
+  }
+
+  @Test
+  void testBuildBodyPublisherUsesGivenMapper() throws JsonProcessingException {
+    var query =
+        new InsertQuery.InsertQueryBuilder().from("foo").insert(Map.of("bar", "baz")).build();
+    var supabaseRequest = new SupabaseHttpRequest("http://localhost/", Map.of(), query);
+    var customMapper = Mockito.spy(new ObjectMapper());
+    supabaseRequest.buildBodyPublisher(customMapper);
+    Mockito.verify(customMapper).writeValueAsBytes(query.getValuesToInsert());
+  }
+
+  @Test
+  void testMergeHeadersReusesHeadersWhenNothingToAdd() {
+    var clientHeaders = Map.of("foo", "bar");
+    Assertions.assertSame(
+        clientHeaders, SupabaseHttpRequest.mergeHeaders(clientHeaders, Optional.empty()));
+    Assertions.assertSame(
+        clientHeaders, SupabaseHttpRequest.mergeHeaders(clientHeaders, Optional.of(Map.of())));
+  }
+
+  @Test
+  void testBuildRequestForTypicalSelect() throws JsonProcessingException {
+    var query =
+        new SelectQuery.SelectQueryBuilder()
+            .from("doctors")
+            .select("id", "full_name")
+            .filter(new Filter.FilterBuilder().equals("full_name", "John Doe").build())
+            .build();
+    var headers = Map.of("apikey", "key", "Authorization", "Bearer key");
+    var httpRequest =
+        new SupabaseHttpRequest("http://localhost/rest/v1/", headers, query)
+            .buildRequest("GET", mapper);
+    var uri = httpRequest.uri();
+    Assertions.assertEquals("/rest/v1/doctors", uri.getPath());
+    Assertions.assertEquals(
+        Set.of("select=id,full_name", "full_name=eq.John%20Doe"),
+        Set.of(uri.getRawQuery().split("&")));
+    Assertions.assertEquals(
+        Map.of("apikey", List.of("key"), "Authorization", List.of("Bearer key")),
+        httpRequest.headers().map());
+    Assertions.assertEquals(0, httpRequest.bodyPublisher().orElseThrow().contentLength());
+  }
+
+  @Test
+  void testBuildBodyPublisherSmallBodyHasContentLength() throws JsonProcessingException {
+    var query =
+        new InsertQuery.InsertQueryBuilder().from("foo").insert(Map.of("bar", "baz")).build();
+    var supabaseRequest = new SupabaseHttpRequest("http://localhost/", Map.of(), query);
+    var publisher = supabaseRequest.buildBodyPublisher(mapper);
+    Assertions.assertEquals("[{\"bar\":\"baz\"}]".length(), publisher.contentLength());
+  }
+
+  @Test
+  void testBuildBodyPublisherStreamsBulkBody() throws JsonProcessingException {
+    List<Map<String, Object>> rows =
+        IntStream.range(0, SupabaseHttpRequest.STREAMING_THRESHOLD_ROWS)
+            .mapToObj(i -> Map.<String, Object>of("id", i))
+            .toList();
+    var query = new InsertQuery.InsertQueryBuilder().from("foo").insert(rows).build();
+    var supabaseRequest = new SupabaseHttpRequest("http://localhost/", Map.of(), query);
+    var publisher = supabaseRequest.buildBodyPublisher(mapper);
+    Assertions.assertTrue(publisher.contentLength() < 0);
   }
 
   @Test
@@ -4,33 +4,180 @@ import com.skhanal5.models.DeleteQuery;
 import com.skhanal5.models.InsertQuery;
 import com.skhanal5.models.SelectQuery;
 import com.skhanal5.models.UpdateQuery;
+import com.skhanal5.resilience.CircuitBreaker;
+import com.skhanal5.resilience.CircuitBreakerRegistry;
+import com.skhanal5.resilience.ConcurrencyLimiter;
+import com.skhanal5.resilience.RateLimiter;
+import com.skhanal5.resilience.RetryPolicy;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import lombok.*;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClient.ResponseSpec;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 /**
  * The main entry point to instantiation an instance of SupabaseClient and interact with Supabase
  * Database via REST. Utilizes WebClient and Jackson under the hood to handle sending requests to
  * Supabase Database API and serializing responses. <br>
+ * Each operation comes in a blocking form (e.g. {@link #executeSelect(SelectQuery, Class)}) and a
+ * reactive form (e.g. {@link #executeSelectFlux(SelectQuery, Class)}) that never calls block() and
+ * is safe to compose on a Reactor Netty event-loop thread. <br>
  * We expose one way of initializing an instance of SupabaseClient to consumers .
  *
  * @see #newInstance(String, String) Using the database url and service key
+ * @see SpringSupabaseClientBuilder for further configuration, such as a {@link ConcurrencyLimiter}
  */
 public class SpringSupabaseClient {
 
   @NonNull WebClient client;
 
+  ConcurrencyLimiter concurrencyLimiter;
+
+  RetryPolicy retryPolicy;
+
+  CircuitBreakerRegistry circuitBreakers;
+
+  RateLimiter rateLimiter;
+
   private static final String ENDPOINT_PATH = "/rest/v1/";
 
   SpringSupabaseClient(WebClient client) {
+    this(client, new SpringSupabaseClientBuilder());
+  }
+
+  SpringSupabaseClient(WebClient client, SpringSupabaseClientBuilder options) {
     this.client = client;
+    this.concurrencyLimiter = options.concurrencyLimiter;
+    this.retryPolicy = options.retryPolicy;
+    this.circuitBreakers = options.circuitBreakers;
+    this.rateLimiter = options.rateLimiter;
+  }
+
+  /** The main entrypoint to configure a SpringSupabaseClient beyond {@link #newInstance}. */
+  public static class SpringSupabaseClientBuilder {
+
+    String databaseUrl;
+
+    String serviceKey;
+
+    ConcurrencyLimiter concurrencyLimiter;
+
+    RetryPolicy retryPolicy;
+
+    CircuitBreakerRegistry circuitBreakers;
+
+    RateLimiter rateLimiter;
+
+    /**
+     * @param databaseUrl Represents the Supabase Database API base URL.
+     * @return a SpringSupabaseClientBuilder with this configured
+     */
+    public SpringSupabaseClientBuilder databaseUrl(String databaseUrl) {
+      this.databaseUrl = databaseUrl;
+      return this;
+    }
+
+    /**
+     * @param serviceKey Represents the Supabase Database service key. Note, this should not be
+     *     exposed to clients.
+     * @return a SpringSupabaseClientBuilder with this configured
+     */
+    public SpringSupabaseClientBuilder serviceKey(String serviceKey) {
+      this.serviceKey = serviceKey;
+      return this;
+    }
+
+    /**
+     * Used to bound how many requests this client has in flight at once. Requests over the limit
+     * wait or fail with a {@link com.skhanal5.exceptions.ConcurrencyLimitExceededException},
+     * depending on how the limiter's queue is configured. A permit is held until the response has
+     * been fully consumed.
+     *
+     * @param concurrencyLimiter the limiter to use
+     * @return a SpringSupabaseClientBuilder with this configured
+     */
+    public SpringSupabaseClientBuilder concurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+      this.concurrencyLimiter = concurrencyLimiter;
+      return this;
+    }
+
+    /**
+     * Used to retry idempotent requests that fail transiently, e.g. with a 503 while PostgREST
+     * restarts or with a refused connection. Every retry goes through the concurrency limiter
+     * again.
+     *
+     * @param retryPolicy the retry policy to use
+     * @return a SpringSupabaseClientBuilder with this configured
+     */
+    public SpringSupabaseClientBuilder retryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    /**
+     * Used to stop sending requests to tables whose requests keep failing or are slow. While the
+     * breaker of a table is open, its requests fail right away with a {@link
+     * com.skhanal5.exceptions.CircuitBreakerOpenException}. A call is timed until its response has
+     * been fully consumed.
+     *
+     * @param circuitBreakers the registry holding the breaker of every table
+     * @return a SpringSupabaseClientBuilder with this configured
+     */
+    public SpringSupabaseClientBuilder circuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+      this.circuitBreakers = circuitBreakers;
+      return this;
+    }
+
+    /**
+     * Used to keep the rate of requests below the limits of a shared Supabase project, per table
+     * and for the whole client. Requests wait for a permit for at most the limiter's max wait, and
+     * fail with a {@link com.skhanal5.exceptions.RateLimitExceededException} after that. Retries do
+     * not take a permit of their own.
+     *
+     * @param rateLimiter the rate limiter to use
+     * @return a SpringSupabaseClientBuilder with this configured
+     */
+    public SpringSupabaseClientBuilder rateLimiter(RateLimiter rateLimiter) {
+      this.rateLimiter = rateLimiter;
+      return this;
+    }
+
+    /**
+     * Used to build a SpringSupabaseClient with all configurations.
+     *
+     * @return an instance of a SpringSupabaseClient
+     */
+    public SpringSupabaseClient build() {
+      return create(databaseUrl, serviceKey);
+    }
+
+    private SpringSupabaseClient create(@NonNull String databaseUrl, @NonNull String serviceKey) {
+      var baseUrl = databaseUrl + ENDPOINT_PATH;
+      var client =
+          WebClient.builder()
+              .baseUrl(baseUrl)
+              .defaultHeader("apikey", serviceKey)
+              .defaultHeader("Authorization", "Bearer " + serviceKey)
+              .filter(new SupabaseRequestEventFilter())
+              .build();
+
+      return new SpringSupabaseClient(client, this);
+    }
   }
 
   /**
@@ -45,7 +192,11 @@ public class SpringSupabaseClient {
   public <T> T executeSelect(SelectQuery query, Class<T> responseType) {
     var queryParams = toMultiValueMap(query.buildQueryParams());
     var headers = constructHttpHeaders(query.buildAdditionalHeaders());
-    return this.makeSelectAPICall(query.getTable(), queryParams, headers, responseType);
+    return guard(
+            this.makeSelectAPICall(query.getTable(), queryParams, headers).bodyToMono(responseType),
+            HttpMethod.GET,
+            query.getTable())
+        .block();
   }
 
   /**
@@ -61,9 +212,7 @@ public class SpringSupabaseClient {
    * @param <T> the type of the expected response POJO
    */
   public <T> T executeInsert(InsertQuery query, Class<T> responseType) {
-    var requestBody = query.getValuesToInsert();
-    var headers = constructHttpHeaders(query.buildAdditionalHeaders());
-    return this.makeInsertDBCall(query.getTable(), requestBody, headers, responseType);
+    return this.executeInsertMono(query, responseType).block();
   }
 
   /**
@@ -79,10 +228,7 @@ public class SpringSupabaseClient {
    * @param <T> the type of the expected response POJO
    */
   public <T> T executeUpdate(UpdateQuery query, Class<T> responseType) {
-    var requestBody = query.getValuesToUpdate();
-    var headers = constructHttpHeaders(query.buildAdditionalHeaders());
-    var queryParams = toMultiValueMap(query.buildQueryParams());
-    return this.makeUpdateDBCall(query.getTable(), headers, queryParams, requestBody, responseType);
+    return this.executeUpdateMono(query, responseType).block();
   }
 
   /**
@@ -98,70 +244,299 @@ public class SpringSupabaseClient {
    * @param <T> the type of the expected response POJO
    */
   public <T> T executeDelete(DeleteQuery query, Class<T> responseType) {
+    return this.executeDeleteMono(query, responseType).block();
+  }
+
+  /**
+   * Executes a SelectQuery without blocking and emits each row of the search response as a POJO of
+   * type rowType. The JSON array returned by Supabase is decoded element by element, so rows are
+   * emitted as they arrive. The rowType class definition should match the schema of your table.
+   *
+   * @param query The query to execute
+   * @param rowType The class of the POJO that each row should be converted to
+   * @return a Flux of the selected rows
+   * @param <T> the type of a single row POJO
+   */
+  public <T> Flux<T> executeSelectFlux(SelectQuery query, Class<T> rowType) {
+    var queryParams = toMultiValueMap(query.buildQueryParams());
+    var headers = constructHttpHeaders(query.buildAdditionalHeaders());
+    return guard(
+        this.makeSelectAPICall(query.getTable(), queryParams, headers).bodyToFlux(rowType),
+        HttpMethod.GET,
+        query.getTable());
+  }
+
+  /**
+   * Executes a InsertQuery without blocking. The returned Mono emits the inserted row as a POJO of
+   * type responseType, or completes empty if select() is not explicitly invoked in your
+   * InsertQuery.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a Mono of the response POJO
+   * @param <T> the type of the expected response POJO
+   */
+  public <T> Mono<T> executeInsertMono(InsertQuery query, Class<T> responseType) {
+    var requestBody = query.getValuesToInsert();
+    var headers = constructHttpHeaders(query.buildAdditionalHeaders());
+    return guard(
+        this.makeInsertDBCall(query.getTable(), requestBody, headers).bodyToMono(responseType),
+        HttpMethod.POST,
+        query.getTable());
+  }
+
+  /**
+   * Executes a UpdateQuery without blocking. The returned Mono emits the updated row as a POJO of
+   * type responseType, or completes empty if select() is not explicitly invoked in your
+   * UpdateQuery.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a Mono of the response POJO
+   * @param <T> the type of the expected response POJO
+   */
+  public <T> Mono<T> executeUpdateMono(UpdateQuery query, Class<T> responseType) {
+    var requestBody = query.getValuesToUpdate();
+    var headers = constructHttpHeaders(query.buildAdditionalHeaders());
+    var queryParams = toMultiValueMap(query.buildQueryParams());
+    return guard(
+        this.makeUpdateDBCall(query.getTable(), headers, queryParams, requestBody)
+            .bodyToMono(responseType),
+        HttpMethod.PATCH,
+        query.getTable());
+  }
+
+  /**
+   * Executes a DeleteQuery without blocking. The returned Mono emits the deleted row as a POJO of
+   * type responseType, or completes empty if select() is not explicitly invoked in your
+   * DeleteQuery.
+   *
+   * @param query The query to execute
+   * @param responseType The class of the POJO that you want the response to be converted to
+   * @return a Mono of the response POJO
+   * @param <T> the type of the expected response POJO
+   */
+  public <T> Mono<T> executeDeleteMono(DeleteQuery query, Class<T> responseType) {
     var headers = constructHttpHeaders(query.buildAdditionalHeaders());
     var queryParams = toMultiValueMap(query.buildQueryParams());
-    return this.makeDeleteAPICall(query.getTable(), headers, queryParams, responseType);
+    return guard(
+        this.makeDeleteAPICall(query.getTable(), headers, queryParams).bodyToMono(responseType),
+        HttpMethod.DELETE,
+        query.getTable());
+  }
+
+  /**
+   * Applies the configured concurrency limiter, retry policy, rate limiter and circuit breaker to a
+   * call. The breaker sees the outcome of the call after all its retries.
+   */
+  private <T> Mono<T> guard(Mono<T> call, HttpMethod method, String table) {
+    return breaker(rateLimit(retry(limit(call), method), table), table);
+  }
+
+  private <T> Flux<T> guard(Flux<T> call, HttpMethod method, String table) {
+    return breaker(rateLimit(retry(limit(call), method), table), table);
+  }
+
+  /** Subscribes to the call once the rate limiter, if one is configured, hands out a permit. */
+  private <T> Mono<T> rateLimit(Mono<T> call, String table) {
+    if (rateLimiter == null) {
+      return call;
+    }
+    return Mono.fromFuture(() -> rateLimiter.acquire(table)).then(call);
+  }
+
+  private <T> Flux<T> rateLimit(Flux<T> call, String table) {
+    if (rateLimiter == null) {
+      return call;
+    }
+    return Mono.fromFuture(() -> rateLimiter.acquire(table)).thenMany(call);
   }
 
-  private <T> T makeSelectAPICall(
+  private <T> Mono<T> retry(Mono<T> call, HttpMethod method) {
+    if (retryPolicy == null || !retryPolicy.isRetryableMethod(method.name())) {
+      return call;
+    }
+    return Mono.defer(
+        () -> {
+          retryPolicy.onRequest();
+          return call.retryWhen(retrySpec());
+        });
+  }
+
+  private <T> Flux<T> retry(Flux<T> call, HttpMethod method) {
+    if (retryPolicy == null || !retryPolicy.isRetryableMethod(method.name())) {
+      return call;
+    }
+    return Flux.defer(
+        () -> {
+          retryPolicy.onRequest();
+          return call.retryWhen(retrySpec());
+        });
+  }
+
+  /**
+   * Retries with decorrelated jitter while the retry policy allows it. Only failures that happen
+   * before a response body is read are retried: refused or reset connections, and retryable status
+   * codes. A Flux of rows is therefore never retried halfway through. The Retry-After header of a
+   * failed response is honored as the shortest delay.
+   */
+  private Retry retrySpec() {
+    return Retry.from(
+        signals -> {
+          var previousDelayNanos = new AtomicLong();
+          return signals.concatMap(
+              signal -> {
+                var error = signal.failure();
+                var attempts = (int) signal.totalRetries() + 1;
+                if (!isRetryable(error) || !retryPolicy.tryRetry(attempts)) {
+                  return Mono.error(error);
+                }
+                var delayNanos =
+                    error instanceof WebClientResponseException responseException
+                        ? retryPolicy.nextDelayNanos(
+                            previousDelayNanos.get(),
+                            responseException.getStatusCode().value(),
+                            responseException.getHeaders().getFirst("Retry-After"))
+                        : retryPolicy.nextDelayNanos(previousDelayNanos.get());
+                previousDelayNanos.set(delayNanos);
+                return Mono.delay(Duration.ofNanos(delayNanos));
+              });
+        });
+  }
+
+  private boolean isRetryable(Throwable error) {
+    if (error instanceof WebClientResponseException responseException) {
+      return retryPolicy.isRetryableStatus(responseException.getStatusCode().value());
+    }
+    return error instanceof WebClientRequestException && retryPolicy.isRetryableError(error);
+  }
+
+  /**
+   * Holds a permit of the concurrency limiter, if one is configured, from subscription until the
+   * response has been consumed.
+   */
+  private <T> Mono<T> limit(Mono<T> call) {
+    if (concurrencyLimiter == null) {
+      return call;
+    }
+    return Mono.usingWhen(
+        Mono.fromFuture(concurrencyLimiter::acquire),
+        permit -> call,
+        permit -> Mono.fromRunnable(permit::onSuccess),
+        (permit, error) -> Mono.fromRunnable(() -> release(permit, error)),
+        permit -> Mono.fromRunnable(permit::onIgnore));
+  }
+
+  private <T> Flux<T> limit(Flux<T> call) {
+    if (concurrencyLimiter == null) {
+      return call;
+    }
+    return Flux.usingWhen(
+        Mono.fromFuture(concurrencyLimiter::acquire),
+        permit -> call,
+        permit -> Mono.fromRunnable(permit::onSuccess),
+        (permit, error) -> Mono.fromRunnable(() -> release(permit, error)),
+        permit -> Mono.fromRunnable(permit::onIgnore));
+  }
+
+  private static void release(ConcurrencyLimiter.Permit permit, Throwable error) {
+    if (error instanceof WebClientResponseException responseException) {
+      permit.onResponse(responseException.getStatusCode().value());
+    } else if (error instanceof TimeoutException || error.getCause() instanceof TimeoutException) {
+      permit.onDropped();
+    } else {
+      permit.onIgnore();
+    }
+  }
+
+  /**
+   * Fails right away if the circuit breaker of the table, if one is configured, is open. Otherwise
+   * the outcome of the call is reported to the breaker once the response has been consumed.
+   */
+  private <T> Mono<T> breaker(Mono<T> call, String table) {
+    if (circuitBreakers == null) {
+      return call;
+    }
+    return Mono.usingWhen(
+        Mono.fromCallable(() -> circuitBreakers.forTable(table).acquire()),
+        permit -> call,
+        permit -> Mono.fromRunnable(permit::onSuccess),
+        (permit, error) -> Mono.fromRunnable(() -> report(permit, error)),
+        permit -> Mono.fromRunnable(permit::onIgnore));
+  }
+
+  private <T> Flux<T> breaker(Flux<T> call, String table) {
+    if (circuitBreakers == null) {
+      return call;
+    }
+    return Flux.usingWhen(
+        Mono.fromCallable(() -> circuitBreakers.forTable(table).acquire()),
+        permit -> call,
+        permit -> Mono.fromRunnable(permit::onSuccess),
+        (permit, error) -> Mono.fromRunnable(() -> report(permit, error)),
+        permit -> Mono.fromRunnable(permit::onIgnore));
+  }
+
+  // errors raised on this side of the network, e.g. while decoding, say nothing about the endpoint
+  private static void report(CircuitBreaker.Permit permit, Throwable error) {
+    if (error instanceof WebClientResponseException responseException) {
+      permit.onResponse(responseException.getStatusCode().value());
+    } else if (error instanceof WebClientRequestException
+        || error instanceof TimeoutException
+        || error.getCause() instanceof TimeoutException) {
+      permit.onFailure();
+    } else {
+      permit.onIgnore();
+    }
+  }
+
+  private ResponseSpec makeSelectAPICall(
       String table,
       MultiValueMap<String, String> queryParameters,
-      Consumer<HttpHeaders> headersConsumer,
-      Class<T> responseType) {
+      Consumer<HttpHeaders> headersConsumer) {
     return client
         .get()
         .uri(uriBuilder -> uriBuilder.path(table).queryParams(queryParameters).build())
+        .attribute(SupabaseRequestEventFilter.TABLE_ATTRIBUTE, table)
         .headers(headersConsumer)
-        .retrieve()
-        .bodyToMono(responseType)
-        .block();
+        .retrieve();
   }
 
-  private <T> T makeInsertDBCall(
-      String table,
-      List<Map<String, Object>> requestBody,
-      Consumer<HttpHeaders> headersConsumer,
-      Class<T> responseType) {
+  private ResponseSpec makeInsertDBCall(
+      String table, List<Map<String, Object>> requestBody, Consumer<HttpHeaders> headersConsumer) {
     return client
         .post()
         .uri(uriBuilder -> uriBuilder.path(table).build())
+        .attribute(SupabaseRequestEventFilter.TABLE_ATTRIBUTE, table)
         .contentType(MediaType.APPLICATION_JSON)
         .headers(headersConsumer)
         .bodyValue(requestBody)
-        .retrieve()
-        .bodyToMono(responseType)
-        .block();
+        .retrieve();
   }
 
-  private <T> T makeUpdateDBCall(
+  private ResponseSpec makeUpdateDBCall(
       String table,
       Consumer<HttpHeaders> headers,
       MultiValueMap<String, String> queryParameters,
-      List<Map<String, Object>> requestBody,
-      Class<T> responseType) {
+      List<Map<String, Object>> requestBody) {
     return client
         .patch()
         .uri(uriBuilder -> uriBuilder.path(table).queryParams(queryParameters).build())
+        .attribute(SupabaseRequestEventFilter.TABLE_ATTRIBUTE, table)
         .contentType(MediaType.APPLICATION_JSON)
         .headers(headers)
         .bodyValue(requestBody)
-        .retrieve()
-        .bodyToMono(responseType)
-        .block();
+        .retrieve();
   }
 
-  private <T> T makeDeleteAPICall(
-      String table,
-      Consumer<HttpHeaders> headers,
-      MultiValueMap<String, String> queryParameters,
-      Class<T> responseType) {
+  private ResponseSpec makeDeleteAPICall(
+      String table, Consumer<HttpHeaders> headers, MultiValueMap<String, String> queryParameters) {
     return client
         .delete()
         .uri(uriBuilder -> uriBuilder.path(table).queryParams(queryParameters).build())
+        .attribute(SupabaseRequestEventFilter.TABLE_ATTRIBUTE, table)
         .headers(headers)
-        .retrieve()
-        .bodyToMono(responseType)
-        .block();
+        .retrieve();
   }
 
   Consumer<HttpHeaders> constructHttpHeaders(Optional<Map<String, String>> additionalHeaders) {
@@ -186,14 +561,9 @@ public class SpringSupabaseClient {
    */
   public static SpringSupabaseClient newInstance(
       @NonNull String databaseUrl, @NonNull String serviceKey) {
-    var baseUrl = databaseUrl + ENDPOINT_PATH;
-    var client =
-        WebClient.builder()
-            .baseUrl(baseUrl)
-            .defaultHeader("apikey", serviceKey)
-            .defaultHeader("Authorization", "Bearer " + serviceKey)
-            .build();
-
-    return new SpringSupabaseClient(client);
+    return new SpringSupabaseClientBuilder()
+        .databaseUrl(databaseUrl)
+        .serviceKey(serviceKey)
+        .build();
   }
 }
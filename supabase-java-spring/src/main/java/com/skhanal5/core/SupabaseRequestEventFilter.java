@@ -0,0 +1,98 @@
+package com.skhanal5.core;
+
+import com.skhanal5.metrics.SupabaseRequestEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Emits a {@link SupabaseRequestEvent} for every exchange, including every retry. The event spans
+ * from sending the request until its response body has been consumed, and counts the bytes of both
+ * bodies as they pass through. While the event is disabled the exchange is left untouched.
+ */
+class SupabaseRequestEventFilter implements ExchangeFilterFunction {
+
+  /** The request attribute that carries the table of a request. */
+  static final String TABLE_ATTRIBUTE = SupabaseRequestEventFilter.class.getName() + ".table";
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    var event = new SupabaseRequestEvent();
+    if (!event.isEnabled()) {
+      return next.exchange(request);
+    }
+    event.begin();
+    var requestBytes = new AtomicLong();
+    var responseBytes = new AtomicLong();
+    var countingRequest =
+        ClientRequest.from(request)
+            .body(
+                (outputMessage, context) ->
+                    request
+                        .body()
+                        .insert(
+                            new ClientHttpRequestDecorator(outputMessage) {
+                              @Override
+                              public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                                return super.writeWith(
+                                    Flux.from(body)
+                                        .doOnNext(
+                                            buffer ->
+                                                requestBytes.addAndGet(
+                                                    buffer.readableByteCount())));
+                              }
+                            },
+                            context))
+            .build();
+    var committed = new AtomicBoolean();
+    return next.exchange(countingRequest)
+        .map(
+            response -> {
+              var status = response.statusCode().value();
+              // committed before the body completes downstream, so the caller sees the event
+              Runnable commitOnce =
+                  () -> {
+                    if (committed.compareAndSet(false, true)) {
+                      commit(event, request, status, requestBytes.get(), responseBytes.get());
+                    }
+                  };
+              return response
+                  .mutate()
+                  .body(
+                      body ->
+                          body.doOnNext(
+                                  buffer -> responseBytes.addAndGet(buffer.readableByteCount()))
+                              .doOnTerminate(commitOnce)
+                              .doOnCancel(commitOnce))
+                  .build();
+            })
+        .doOnError(error -> commit(event, request, 0, requestBytes.get(), -1));
+  }
+
+  private static void commit(
+      SupabaseRequestEvent event,
+      ClientRequest request,
+      int status,
+      long requestBytes,
+      long responseBytes) {
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    event.table = request.attribute(TABLE_ATTRIBUTE).map(String::valueOf).orElse(null);
+    event.method = request.method().name();
+    event.uriLength = request.url().toString().length();
+    event.requestBytes = requestBytes;
+    event.responseBytes = responseBytes;
+    event.status = status;
+    event.commit();
+  }
+}
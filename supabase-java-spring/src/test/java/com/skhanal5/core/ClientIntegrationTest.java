@@ -1,12 +1,30 @@
 package com.skhanal5.core;
 
 import com.skhanal5.core.mockserver.MockServer;
+import com.skhanal5.exceptions.CircuitBreakerOpenException;
+import com.skhanal5.exceptions.ConcurrencyLimitExceededException;
+import com.skhanal5.exceptions.RateLimitExceededException;
+import com.skhanal5.metrics.SupabaseRequestEvent;
 import com.skhanal5.models.*;
+import com.skhanal5.resilience.CircuitBreaker;
+import com.skhanal5.resilience.CircuitBreakerRegistry;
+import com.skhanal5.resilience.ConcurrencyLimiter;
+import com.skhanal5.resilience.LimitStrategy;
+import com.skhanal5.resilience.RateLimiter;
+import com.skhanal5.resilience.RetryPolicy;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 public class ClientIntegrationTest {
 
@@ -68,4 +86,240 @@ public class ClientIntegrationTest {
     var res = client.executeUpdate(query, String.class);
     Assertions.assertNull(res);
   }
+
+  @Test
+  void testExecuteSelectFluxEmitsEachRow() {
+    var client = SpringSupabaseClient.newInstance(baseUrl, "");
+    var query = new SelectQuery.SelectQueryBuilder().select("foo").from("mockrows").build();
+    var rows = client.executeSelectFlux(query, Map.class).collectList().block();
+    Assertions.assertEquals(List.of(Map.of("foo", "bar"), Map.of("foo", "baz")), rows);
+  }
+
+  @Test
+  void testSelectsAcceptAndInflateGzipResponses() {
+    // the default Reactor Netty connector asks for gzip and inflates the body in its pipeline
+    var client = SpringSupabaseClient.newInstance(baseUrl, "");
+    var query = new SelectQuery.SelectQueryBuilder().select("foo").from("mockrows").build();
+    var compressedBefore = mockServer.countCompressedRequestsTo("/rest/v1/mockrows");
+
+    var rows = client.executeSelectFlux(query, Map.class).collectList().block();
+
+    Assertions.assertEquals(List.of(Map.of("foo", "bar"), Map.of("foo", "baz")), rows);
+    Assertions.assertEquals(
+        compressedBefore + 1, mockServer.countCompressedRequestsTo("/rest/v1/mockrows"));
+  }
+
+  @Test
+  void testExecuteInsertMonoCompletesEmptyWithoutSelect() {
+    var client = SpringSupabaseClient.newInstance(baseUrl, "");
+    var query =
+        new InsertQuery.InsertQueryBuilder().insert(Map.of("bar", "baz")).from("mocktable").build();
+    var res = client.executeInsertMono(query, String.class).blockOptional();
+    Assertions.assertTrue(res.isEmpty());
+  }
+
+  @Test
+  void testExecuteUpdateMonoCompletesEmptyWithoutSelect() {
+    var client = SpringSupabaseClient.newInstance(baseUrl, "");
+    var query =
+        new UpdateQuery.UpdateQueryBuilder()
+            .from("mocktable")
+            .update(Map.of("foo", "var"))
+            .filter(new Filter.FilterBuilder().equals("foo", "bar").build())
+            .build();
+    var res = client.executeUpdateMono(query, String.class).blockOptional();
+    Assertions.assertTrue(res.isEmpty());
+  }
+
+  @Test
+  void testExecuteDeleteMonoCompletesEmptyWithoutSelect() {
+    var client = SpringSupabaseClient.newInstance(baseUrl, "");
+    var query =
+        new DeleteQuery.DeleteQueryBuilder()
+            .delete()
+            .from("mocktable")
+            .filter(new Filter.FilterBuilder().equals("foo", "bar").build())
+            .build();
+    var res = client.executeDeleteMono(query, String.class).blockOptional();
+    Assertions.assertTrue(res.isEmpty());
+  }
+
+  @Test
+  void testConcurrencyLimiterReleasesPermits() {
+    var limiter =
+        new ConcurrencyLimiter.ConcurrencyLimiterBuilder().strategy(LimitStrategy.fixed(1)).build();
+    var client =
+        new SpringSupabaseClient.SpringSupabaseClientBuilder()
+            .databaseUrl(baseUrl)
+            .serviceKey("")
+            .concurrencyLimiter(limiter)
+            .build();
+    var select = new SelectQuery.SelectQueryBuilder().select("foo").from("mockrows").build();
+    var insert =
+        new InsertQuery.InsertQueryBuilder().insert(Map.of("bar", "baz")).from("mocktable").build();
+
+    Assertions.assertEquals(2, client.executeSelectFlux(select, Map.class).count().block());
+    Assertions.assertNull(client.executeInsert(insert, String.class));
+    Assertions.assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void testConcurrencyLimiterRejectsOverTheLimit() {
+    var limiter =
+        new ConcurrencyLimiter.ConcurrencyLimiterBuilder().strategy(LimitStrategy.fixed(1)).build();
+    var client =
+        new SpringSupabaseClient.SpringSupabaseClientBuilder()
+            .databaseUrl(baseUrl)
+            .serviceKey("")
+            .concurrencyLimiter(limiter)
+            .build();
+    var query = new SelectQuery.SelectQueryBuilder().select("").from("mocktable").build();
+    var permit = limiter.tryAcquire().orElseThrow();
+
+    Assertions.assertThrows(
+        ConcurrencyLimitExceededException.class, () -> client.executeSelect(query, String.class));
+
+    permit.onIgnore();
+    Assertions.assertNotNull(client.executeSelect(query, String.class));
+  }
+
+  private static SpringSupabaseClient newRetryingClient() {
+    var retryPolicy =
+        new RetryPolicy.RetryPolicyBuilder()
+            .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+            .build();
+    return new SpringSupabaseClient.SpringSupabaseClientBuilder()
+        .databaseUrl(baseUrl)
+        .serviceKey("")
+        .retryPolicy(retryPolicy)
+        .build();
+  }
+
+  @Test
+  void testRetryPolicyRetriesTransientFailures() {
+    var client = newRetryingClient();
+    var query = new SelectQuery.SelectQueryBuilder().select("foo").from("flakytable").build();
+
+    var start = System.nanoTime();
+    var rows = client.executeSelectFlux(query, Map.class).collectList().block();
+
+    Assertions.assertEquals(List.of(Map.of("foo", "bar")), rows);
+    Assertions.assertEquals(2, mockServer.countRequestsTo("/rest/v1/flakytable"));
+    // the retry waits for the Retry-After of the 503 rather than the 5ms backoff
+    Assertions.assertTrue(System.nanoTime() - start >= Duration.ofSeconds(1).toNanos());
+  }
+
+  @Test
+  void testRetryPolicyGivesUpAfterMaxAttempts() {
+    var client = newRetryingClient();
+    var query =
+        new DeleteQuery.DeleteQueryBuilder()
+            .delete()
+            .from("unavailabletable")
+            .filter(new Filter.FilterBuilder().equals("foo", "bar").build())
+            .build();
+    var before = mockServer.countRequestsTo("/rest/v1/unavailabletable");
+
+    Assertions.assertThrows(
+        WebClientResponseException.class, () -> client.executeDelete(query, String.class));
+    Assertions.assertEquals(3, mockServer.countRequestsTo("/rest/v1/unavailabletable") - before);
+  }
+
+  @Test
+  void testRetryPolicyDoesNotRetryInserts() {
+    var client = newRetryingClient();
+    var query =
+        new InsertQuery.InsertQueryBuilder()
+            .insert(Map.of("bar", "baz"))
+            .from("unavailabletable")
+            .build();
+    var before = mockServer.countRequestsTo("/rest/v1/unavailabletable");
+
+    Assertions.assertThrows(
+        WebClientResponseException.class, () -> client.executeInsert(query, String.class));
+    Assertions.assertEquals(1, mockServer.countRequestsTo("/rest/v1/unavailabletable") - before);
+  }
+
+  @Test
+  void testCircuitBreakerFailsFastOnceOpen() {
+    var circuitBreakers =
+        new CircuitBreakerRegistry.CircuitBreakerRegistryBuilder()
+            .defaults(new CircuitBreaker.CircuitBreakerBuilder().slidingWindow(2, 2))
+            .build();
+    var client =
+        new SpringSupabaseClient.SpringSupabaseClientBuilder()
+            .databaseUrl(baseUrl)
+            .serviceKey("")
+            .circuitBreakers(circuitBreakers)
+            .build();
+    var query = new SelectQuery.SelectQueryBuilder().select("*").from("unavailabletable").build();
+    var before = mockServer.countRequestsTo("/rest/v1/unavailabletable");
+
+    for (int i = 0; i < 2; i++) {
+      Assertions.assertThrows(
+          WebClientResponseException.class, () -> client.executeSelect(query, String.class));
+    }
+    var exception =
+        Assertions.assertThrows(
+            CircuitBreakerOpenException.class, () -> client.executeSelect(query, String.class));
+
+    Assertions.assertEquals("unavailabletable", exception.getTable());
+    Assertions.assertEquals(2, mockServer.countRequestsTo("/rest/v1/unavailabletable") - before);
+    var healthyQuery = new SelectQuery.SelectQueryBuilder().select("").from("mocktable").build();
+    Assertions.assertNotNull(client.executeSelect(healthyQuery, String.class));
+  }
+
+  @Test
+  void testRateLimiterRejectsOverTheRate() {
+    var rateLimiter =
+        new RateLimiter.RateLimiterBuilder().global(1, 1).maxWait(Duration.ZERO).build();
+    var client =
+        new SpringSupabaseClient.SpringSupabaseClientBuilder()
+            .databaseUrl(baseUrl)
+            .serviceKey("")
+            .rateLimiter(rateLimiter)
+            .build();
+    var query = new SelectQuery.SelectQueryBuilder().select("").from("mocktable").build();
+
+    Assertions.assertNotNull(client.executeSelect(query, String.class));
+    var exception =
+        Assertions.assertThrows(
+            RateLimitExceededException.class, () -> client.executeSelect(query, String.class));
+
+    Assertions.assertEquals("mocktable", exception.getTable());
+    Assertions.assertEquals(1, rateLimiter.getRejectedCount());
+  }
+
+  @Test
+  void testRequestsEmitJfrEvents() throws Exception {
+    var client = SpringSupabaseClient.newInstance(baseUrl, "");
+    var select = new SelectQuery.SelectQueryBuilder().select("").from("mocktable").build();
+    var insert =
+        new InsertQuery.InsertQueryBuilder().insert(Map.of("bar", "baz")).from("mocktable").build();
+    var events = new ConcurrentHashMap<String, RecordedEvent>();
+    var received = new CountDownLatch(2);
+    try (var stream = new RecordingStream()) {
+      stream.enable(SupabaseRequestEvent.NAME);
+      stream.onEvent(
+          SupabaseRequestEvent.NAME,
+          event -> {
+            events.put(event.getString("method"), event);
+            received.countDown();
+          });
+      stream.startAsync();
+      client.executeSelect(select, String.class);
+      client.executeInsert(insert, String.class);
+
+      // events may be committed just after the caller got its response
+      Assertions.assertTrue(received.await(10, TimeUnit.SECONDS));
+    }
+
+    var selectEvent = events.get("GET");
+    Assertions.assertEquals("mocktable", selectEvent.getString("table"));
+    Assertions.assertEquals(200, selectEvent.getInt("status"));
+    Assertions.assertEquals(0, selectEvent.getLong("requestBytes"));
+    Assertions.assertTrue(selectEvent.getLong("responseBytes") > 0);
+    var insertEvent = events.get("POST");
+    Assertions.assertEquals("[{\"bar\":\"baz\"}]".length(), insertEvent.getLong("requestBytes"));
+  }
 }
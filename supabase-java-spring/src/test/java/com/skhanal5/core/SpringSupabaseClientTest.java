@@ -2,6 +2,7 @@ package com.skhanal5.core;
 
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import com.skhanal5.resilience.ConcurrencyLimiter;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -37,6 +38,25 @@ public class SpringSupabaseClientTest {
     Assertions.assertNotNull(supabaseClient.client);
   }
 
+  @Test
+  void testBuilderWithMissingServiceKey() {
+    var builder = new SpringSupabaseClient.SpringSupabaseClientBuilder().databaseUrl("");
+    Assertions.assertThrows(NullPointerException.class, builder::build);
+  }
+
+  @Test
+  void testBuilderSetsConcurrencyLimiter() {
+    var limiter = new ConcurrencyLimiter.ConcurrencyLimiterBuilder().build();
+    var supabaseClient =
+        new SpringSupabaseClient.SpringSupabaseClientBuilder()
+            .databaseUrl("")
+            .serviceKey("")
+            .concurrencyLimiter(limiter)
+            .build();
+    Assertions.assertNotNull(supabaseClient.client);
+    Assertions.assertSame(limiter, supabaseClient.concurrencyLimiter);
+  }
+
   private static Stream<Arguments> provideInputAndExpectedResult() {
     var emptyInput = Optional.empty();
     var emptyMapInput = Optional.of(Map.of());
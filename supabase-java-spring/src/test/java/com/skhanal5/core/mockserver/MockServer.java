@@ -2,6 +2,7 @@ package com.skhanal5.core.mockserver;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 
@@ -15,9 +16,50 @@ public class MockServer {
 
   public void registerSupabaseStubs() {
     this.stubSelectTable();
+    this.stubSelectRows();
     this.stubInsertTable();
     this.stubDeleteTable();
     this.stubUpdateTable();
+    this.stubFlakyTable();
+    this.stubUnavailableTable();
+  }
+
+  /**
+   * The first select of flakytable fails with a 503 that asks to retry after a second, every later
+   * one succeeds.
+   */
+  private void stubFlakyTable() {
+    mockServer.stubFor(
+        get(urlPathMatching("/rest/v1/flakytable"))
+            .inScenario("flaky")
+            .whenScenarioStateIs(STARTED)
+            .willReturn(aResponse().withStatus(503).withHeader("Retry-After", "1"))
+            .willSetStateTo("recovered"));
+    mockServer.stubFor(
+        get(urlPathMatching("/rest/v1/flakytable"))
+            .inScenario("flaky")
+            .whenScenarioStateIs("recovered")
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("[{\"foo\":\"bar\"}]")));
+  }
+
+  private void stubUnavailableTable() {
+    mockServer.stubFor(
+        any(urlPathMatching("/rest/v1/unavailabletable")).willReturn(aResponse().withStatus(503)));
+  }
+
+  public int countRequestsTo(String path) {
+    return mockServer.findAll(anyRequestedFor(urlPathEqualTo(path))).size();
+  }
+
+  public int countCompressedRequestsTo(String path) {
+    return mockServer
+        .findAll(
+            anyRequestedFor(urlPathEqualTo(path)).withHeader("Accept-Encoding", containing("gzip")))
+        .size();
   }
 
   private void stubSelectTable() {
@@ -30,6 +72,16 @@ public class MockServer {
                     .withBody("[\"foo\":\"bar\"}]")));
   }
 
+  private void stubSelectRows() {
+    mockServer.stubFor(
+        get(urlPathMatching("/rest/v1/mockrows"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("[{\"foo\":\"bar\"},{\"foo\":\"baz\"}]")));
+  }
+
   private void stubInsertTable() {
     mockServer.stubFor(
         post(urlPathMatching("/rest/v1/mocktable"))